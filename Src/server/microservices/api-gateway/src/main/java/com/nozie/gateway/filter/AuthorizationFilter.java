@@ -29,6 +29,7 @@ public class AuthorizationFilter implements GlobalFilter, Ordered {
 
         // Movie write operations require ADMIN or MODERATOR
         ROUTE_ROLE_REQUIREMENTS.put("POST:/api/movies", Set.of("ADMIN", "MODERATOR"));
+        ROUTE_ROLE_REQUIREMENTS.put("POST:/api/movies/bulk", Set.of("ADMIN", "MODERATOR"));
         ROUTE_ROLE_REQUIREMENTS.put("PUT:/api/movies/**", Set.of("ADMIN", "MODERATOR"));
         ROUTE_ROLE_REQUIREMENTS.put("DELETE:/api/movies/**", Set.of("ADMIN"));
 
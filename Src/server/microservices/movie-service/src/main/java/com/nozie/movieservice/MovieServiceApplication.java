@@ -4,6 +4,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Movie Service - Movie Management Microservice
@@ -16,6 +17,7 @@ import org.springframework.cloud.openfeign.EnableFeignClients;
 @SpringBootApplication(scanBasePackages = {"com.nozie.movieservice", "com.nozie.common"})
 @EnableDiscoveryClient
 @EnableFeignClients
+@EnableScheduling
 public class MovieServiceApplication {
 
     public static void main(String[] args) {
@@ -1,19 +1,35 @@
 package com.nozie.movieservice.catalog.controller;
 
 import com.nozie.common.dto.ApiResponse;
+import com.nozie.common.exception.BadRequestException;
 import com.nozie.movieservice.common.dto.*;
 import com.nozie.movieservice.common.model.Movie;
 import com.nozie.movieservice.catalog.service.CatalogService;
+import com.nozie.movieservice.catalog.service.MovieBulkService;
+import com.nozie.movieservice.catalog.service.MovieChangesService;
+import com.nozie.movieservice.catalog.service.MovieExportService;
+import com.nozie.movieservice.catalog.service.MovieFields;
 import com.nozie.movieservice.catalog.service.MovieMapper;
+import com.nozie.movieservice.catalog.service.TrendingService;
+import com.nozie.movieservice.common.repository.MovieRepositoryCustom.TotalMode;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Catalog API - Danh sách phim, tìm kiếm, filter, CRUD.
@@ -27,6 +43,9 @@ public class CatalogController {
     private static final Logger log = LoggerFactory.getLogger(CatalogController.class);
     private final CatalogService catalogService;
     private final MovieMapper movieMapper;
+    private final MovieBulkService movieBulkService;
+    private final MovieExportService movieExportService;
+    private final MovieChangesService movieChangesService;
 
     /** GET /api/movies - Danh sách có filter + pagination */
     @GetMapping
@@ -37,11 +56,15 @@ public class CatalogController {
             @RequestParam(required = false) String genre,
             @RequestParam(required = false) String country,
             @RequestParam(required = false) Integer year,
-            @RequestParam(required = false, name = "q") String keyword) {
-        log.info("GET /api/movies - page={}, size={}, type={}, genre={}, country={}, year={}, q={}",
-                page, size, type, genre, country, year, keyword);
-        PageResponse<MovieListItemResponse> result = catalogService.getMoviesWithFilter(
-                type, genre, country, year, keyword, page, size);
+            @RequestParam(required = false, name = "q") String keyword,
+            @RequestParam(required = false, defaultValue = "exact") String total,
+            @RequestParam(required = false) String cursor) {
+        log.info("GET /api/movies - page={}, size={}, type={}, genre={}, country={}, year={}, q={}, cursor={}",
+                page, size, type, genre, country, year, keyword, cursor);
+        PageResponse<MovieListItemResponse> result = cursor != null
+                ? catalogService.getMoviesWithFilterAfter(type, genre, country, year, keyword, cursor, size)
+                : catalogService.getMoviesWithFilter(type, genre, country, year, keyword, page, size,
+                        totalMode(total));
         return ResponseEntity.ok(ApiResponse.success(result));
     }
 
@@ -49,9 +72,14 @@ public class CatalogController {
     @GetMapping("/latest")
     public ResponseEntity<ApiResponse<PageResponse<MovieListItemResponse>>> getLatestMovies(
             @RequestParam(required = false, defaultValue = "1") int page,
-            @RequestParam(required = false, defaultValue = "24") int size) {
-        log.info("GET /api/movies/latest - page={}, size={}", page, size);
-        return ResponseEntity.ok(ApiResponse.success(catalogService.getLatestMovies(page, size)));
+            @RequestParam(required = false, defaultValue = "24") int size,
+            @RequestParam(required = false, defaultValue = "exact") String total,
+            @RequestParam(required = false) String cursor) {
+        log.info("GET /api/movies/latest - page={}, size={}, cursor={}", page, size, cursor);
+        PageResponse<MovieListItemResponse> result = cursor != null
+                ? catalogService.getLatestMoviesAfter(cursor, size)
+                : catalogService.getLatestMovies(page, size, totalMode(total));
+        return ResponseEntity.ok(ApiResponse.success(result));
     }
 
     /** GET /api/movies/search - Tìm kiếm theo từ khóa */
@@ -59,22 +87,44 @@ public class CatalogController {
     public ResponseEntity<ApiResponse<PageResponse<MovieListItemResponse>>> searchMovies(
             @RequestParam(name = "q") String keyword,
             @RequestParam(required = false, defaultValue = "1") int page,
-            @RequestParam(required = false, defaultValue = "24") int size) {
+            @RequestParam(required = false, defaultValue = "24") int size,
+            @RequestParam(required = false, defaultValue = "exact") String total) {
         log.info("GET /api/movies/search?q={}", keyword);
         PageResponse<MovieListItemResponse> result = catalogService.getMoviesWithFilter(
-                null, null, null, null, keyword, page, size);
+                null, null, null, null, keyword, page, size, totalMode(total));
         return ResponseEntity.ok(ApiResponse.success(result));
     }
 
+    /** GET /api/movies/facets - Số phim theo từng lựa chọn của bộ lọc dưới filter hiện tại */
+    @GetMapping("/facets")
+    public ResponseEntity<ApiResponse<MovieFacetsResponse>> getFacets(
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) String country,
+            @RequestParam(required = false) Integer year) {
+        log.debug("GET /api/movies/facets - type={}, genre={}, country={}, year={}", type, genre, country, year);
+        return ResponseEntity.ok(ApiResponse.success(catalogService.getFacets(type, genre, country, year)));
+    }
+
+    /** GET /api/movies/suggest - Gợi ý typeahead theo tiền tố tiêu đề (không dấu, xếp theo lượt xem) */
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<MovieSuggestionResponse>>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+        log.debug("GET /api/movies/suggest?prefix={}", prefix);
+        return ResponseEntity.ok(ApiResponse.success(catalogService.suggest(prefix, limit)));
+    }
+
     /** GET /api/movies/type/{type} - Phim theo loại (single/series/hoathinh) */
     @GetMapping("/type/{type}")
     public ResponseEntity<ApiResponse<PageResponse<MovieListItemResponse>>> getMoviesByType(
             @PathVariable String type,
             @RequestParam(required = false, defaultValue = "1") int page,
-            @RequestParam(required = false, defaultValue = "24") int size) {
+            @RequestParam(required = false, defaultValue = "24") int size,
+            @RequestParam(required = false, defaultValue = "exact") String total) {
         log.info("GET /api/movies/type/{}", type);
         PageResponse<MovieListItemResponse> result = catalogService.getMoviesWithFilter(
-                type, null, null, null, null, page, size);
+                type, null, null, null, null, page, size, totalMode(total));
         return ResponseEntity.ok(ApiResponse.success(result));
     }
 
@@ -83,9 +133,10 @@ public class CatalogController {
     public ResponseEntity<ApiResponse<PageResponse<MovieListItemResponse>>> getMoviesByGenre(
             @PathVariable String slug,
             @RequestParam(required = false, defaultValue = "1") int page,
-            @RequestParam(required = false, defaultValue = "24") int size) {
+            @RequestParam(required = false, defaultValue = "24") int size,
+            @RequestParam(required = false, defaultValue = "exact") String total) {
         log.info("GET /api/movies/genre/{}", slug);
-        return ResponseEntity.ok(ApiResponse.success(catalogService.getMoviesByGenre(slug, page, size)));
+        return ResponseEntity.ok(ApiResponse.success(catalogService.getMoviesByGenre(slug, page, size, totalMode(total))));
     }
 
     /** GET /api/movies/country/{slug} - Phim theo quốc gia */
@@ -93,9 +144,10 @@ public class CatalogController {
     public ResponseEntity<ApiResponse<PageResponse<MovieListItemResponse>>> getMoviesByCountry(
             @PathVariable String slug,
             @RequestParam(required = false, defaultValue = "1") int page,
-            @RequestParam(required = false, defaultValue = "24") int size) {
+            @RequestParam(required = false, defaultValue = "24") int size,
+            @RequestParam(required = false, defaultValue = "exact") String total) {
         log.info("GET /api/movies/country/{}", slug);
-        return ResponseEntity.ok(ApiResponse.success(catalogService.getMoviesByCountry(slug, page, size)));
+        return ResponseEntity.ok(ApiResponse.success(catalogService.getMoviesByCountry(slug, page, size, totalMode(total))));
     }
 
     /** GET /api/movies/year/{year} - Phim theo năm */
@@ -103,18 +155,20 @@ public class CatalogController {
     public ResponseEntity<ApiResponse<PageResponse<MovieListItemResponse>>> getMoviesByYear(
             @PathVariable int year,
             @RequestParam(required = false, defaultValue = "1") int page,
-            @RequestParam(required = false, defaultValue = "24") int size) {
+            @RequestParam(required = false, defaultValue = "24") int size,
+            @RequestParam(required = false, defaultValue = "exact") String total) {
         log.info("GET /api/movies/year/{}", year);
-        return ResponseEntity.ok(ApiResponse.success(catalogService.getMoviesByYear(year, page, size)));
+        return ResponseEntity.ok(ApiResponse.success(catalogService.getMoviesByYear(year, page, size, totalMode(total))));
     }
 
-    /** GET /api/movies/trending - Top phim xem nhiều */
+    /** GET /api/movies/trending - Phim thịnh hành theo cửa sổ thời gian (hour/day/week) */
     @GetMapping("/trending")
-    public ResponseEntity<ApiResponse<List<MovieListItemResponse>>> getTrendingMovies() {
-        log.info("GET /api/movies/trending");
-        List<Movie> movies = catalogService.getTrendingMovies();
-        List<MovieListItemResponse> items = movies.stream().map(movieMapper::toListItem).toList();
-        return ResponseEntity.ok(ApiResponse.success(items));
+    public ResponseEntity<ApiResponse<List<MovieListItemResponse>>> getTrendingMovies(
+            @RequestParam(required = false, defaultValue = "day") String window,
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+        log.info("GET /api/movies/trending?window={}", window);
+        return ResponseEntity.ok(ApiResponse.success(
+                catalogService.getTrendingMovies(TrendingService.Window.from(window), limit)));
     }
 
     /** GET /api/movies/free - Phim miễn phí */
@@ -126,20 +180,86 @@ public class CatalogController {
         return ResponseEntity.ok(ApiResponse.success(items));
     }
 
+    /**
+     * GET /api/movies/changes - Phim tạo / sửa / xóa sau token since (nextToken của lần gọi trước), kèm list-item.
+     * Không có since = toàn bộ catalog từ đầu.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ApiResponse<MovieChangesResponse>> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false, defaultValue = "100") int limit) {
+        log.debug("GET /api/movies/changes - since={}, limit={}", since, limit);
+        return ResponseEntity.ok(ApiResponse.success(movieChangesService.changesSince(since, limit)));
+    }
+
+    /**
+     * GET /api/movies/export - Toàn bộ catalog dạng NDJSON (mỗi dòng một MovieResponse), đọc theo cursor và ghi
+     * dần ra response. fields/exclude như chi tiết phim; since chỉ lấy phim có updatedAt >= since; gzip=true nén.
+     */
+    @GetMapping("/export")
+    public void exportMovies(
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String exclude,
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false, defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        Set<String> selected = MovieFields.parse(fields, exclude);
+        LocalDateTime from = MovieExportService.parseSince(since);
+        log.info("GET /api/movies/export - since={}, fields={}, gzip={}", from, selected, gzip);
+        response.setContentType(MovieBulkService.NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        if (!gzip) {
+            movieExportService.export(response.getOutputStream(), selected, from);
+            return;
+        }
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        GZIPOutputStream out = new GZIPOutputStream(response.getOutputStream(), 8192);
+        movieExportService.export(out, selected, from);
+        out.finish();
+    }
+
     /** GET /api/movies/{id} - Chi tiết phim theo ID */
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<MovieResponse>> getMovieById(@PathVariable String id) {
+    public ResponseEntity<ApiResponse<Object>> getMovieById(
+            @PathVariable String id,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String exclude) {
         log.info("GET /api/movies/{}", id);
-        Movie movie = catalogService.getMovieById(id);
-        return ResponseEntity.ok(ApiResponse.success(movieMapper.toResponse(movie)));
+        Set<String> selected = MovieFields.parse(fields, exclude);
+        return ResponseEntity.ok(ApiResponse.success(detail(catalogService.getMovieById(id, selected), selected)));
+    }
+
+    /** GET /api/movies/{id}/similar - Phim tương tự (thể loại, quốc gia, diễn viên, đạo diễn, năm, loại) */
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<ApiResponse<List<MovieListItemResponse>>> getSimilarMovies(
+            @PathVariable String id,
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+        log.debug("GET /api/movies/{}/similar?limit={}", id, limit);
+        return ResponseEntity.ok(ApiResponse.success(catalogService.getSimilarMovies(id, limit)));
     }
 
     /** GET /api/movies/slug/{slug} - Chi tiết phim theo slug */
     @GetMapping("/slug/{slug}")
-    public ResponseEntity<ApiResponse<MovieResponse>> getMovieBySlug(@PathVariable String slug) {
+    public ResponseEntity<ApiResponse<Object>> getMovieBySlug(
+            @PathVariable String slug,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String exclude) {
         log.info("GET /api/movies/slug/{}", slug);
-        Movie movie = catalogService.getMovieBySlug(slug);
-        return ResponseEntity.ok(ApiResponse.success(movieMapper.toResponse(movie)));
+        Set<String> selected = MovieFields.parse(fields, exclude);
+        return ResponseEntity.ok(ApiResponse.success(detail(catalogService.getMovieBySlug(slug, selected), selected)));
+    }
+
+    /** MovieResponse đầy đủ, hoặc chỉ các trường đã chọn khi có fields/exclude. */
+    private Object detail(Movie movie, Set<String> selected) {
+        return selected == null ? movieMapper.toResponse(movie) : movieMapper.toResponse(movie, selected);
+    }
+
+    /** POST /api/movies/batch - Tra cứu nhiều phim (id/slug) trong một lần gọi */
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<MovieBatchResponse>> getMoviesBatch(@RequestBody MovieBatchRequest request) {
+        log.debug("POST /api/movies/batch - ids={}, slugs={}", request.getIds(), request.getSlugs());
+        return ResponseEntity.ok(ApiResponse.success(catalogService.getMoviesBatch(request)));
     }
 
     /** POST /api/movies - Tạo phim */
@@ -150,6 +270,21 @@ public class CatalogController {
         return new ResponseEntity<>(ApiResponse.success("Movie created successfully", movie), HttpStatus.CREATED);
     }
 
+    /**
+     * POST /api/movies/bulk - Tạo / cập nhật nhiều phim theo slug. Body: JSON array hoặc NDJSON
+     * (application/x-ndjson, mỗi dòng một phim); upsert=false thì slug đã có là lỗi. Trả kết quả từng phần tử.
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MovieBulkService.NDJSON})
+    public ResponseEntity<ApiResponse<MovieBulkResponse>> bulkUpsert(
+            HttpServletRequest request,
+            @RequestParam(required = false, defaultValue = "true") boolean upsert) throws IOException {
+        boolean ndjson = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType(MovieBulkService.NDJSON));
+        log.info("POST /api/movies/bulk - ndjson={}, upsert={}", ndjson, upsert);
+        MovieBulkResponse result = movieBulkService.upsert(request.getInputStream(), ndjson, upsert);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
     /** PUT /api/movies/{id} - Cập nhật phim */
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<Movie>> updateMovie(@PathVariable String id,
@@ -166,4 +301,13 @@ public class CatalogController {
         catalogService.deleteMovie(id);
         return ResponseEntity.ok(ApiResponse.success("Movie deleted successfully", null));
     }
+
+    /** total=exact|estimated|none */
+    private static TotalMode totalMode(String total) {
+        try {
+            return TotalMode.valueOf(total.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid total mode '" + total + "', expected exact, estimated or none");
+        }
+    }
 }
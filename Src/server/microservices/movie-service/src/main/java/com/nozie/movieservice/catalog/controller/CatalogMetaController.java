@@ -1,17 +1,23 @@
 package com.nozie.movieservice.catalog.controller;
 
 import com.nozie.common.dto.ApiResponse;
-import com.nozie.movieservice.catalog.service.CatalogService;
+import com.nozie.movieservice.catalog.service.CatalogMetadataService;
 import com.nozie.movieservice.common.model.Country;
 import com.nozie.movieservice.common.model.Genre;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
  * Catalog metadata API - Thể loại, quốc gia, năm (dùng cho filter UI).
+ * Trả về từ snapshot trong bộ nhớ kèm ETag / Cache-Control; If-None-Match khớp thì trả 304.
  */
 @RestController
 @RequestMapping("/api")
@@ -19,20 +25,36 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class CatalogMetaController {
 
-    private final CatalogService catalogService;
+    private final CatalogMetadataService catalogMetadataService;
+
+    @Value("${movie.meta.max-age-seconds:300}")
+    private long maxAgeSeconds;
 
     @GetMapping("/genres")
-    public ResponseEntity<ApiResponse<List<Genre>>> getGenres() {
-        return ResponseEntity.ok(ApiResponse.success(catalogService.getAllGenres()));
+    public ResponseEntity<ApiResponse<List<Genre>>> getGenres(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return cached(catalogMetadataService.getGenres(), ifNoneMatch);
     }
 
     @GetMapping("/countries")
-    public ResponseEntity<ApiResponse<List<Country>>> getCountries() {
-        return ResponseEntity.ok(ApiResponse.success(catalogService.getAllCountries()));
+    public ResponseEntity<ApiResponse<List<Country>>> getCountries(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return cached(catalogMetadataService.getCountries(), ifNoneMatch);
     }
 
     @GetMapping("/years")
-    public ResponseEntity<ApiResponse<List<Integer>>> getYears() {
-        return ResponseEntity.ok(ApiResponse.success(catalogService.getDistinctYears()));
+    public ResponseEntity<ApiResponse<List<Integer>>> getYears(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return cached(catalogMetadataService.getYears(), ifNoneMatch);
+    }
+
+    private <T> ResponseEntity<ApiResponse<List<T>>> cached(CatalogMetadataService.Snapshot<T> snapshot,
+                                                            String ifNoneMatch) {
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+        if (snapshot.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(snapshot.etag()).cacheControl(cacheControl)
+                .body(ApiResponse.success(snapshot.data()));
     }
 }
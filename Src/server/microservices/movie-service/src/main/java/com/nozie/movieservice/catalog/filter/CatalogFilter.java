@@ -0,0 +1,52 @@
+package com.nozie.movieservice.catalog.filter;
+
+import com.nozie.movieservice.common.model.Movie;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Điều kiện lọc catalog (giá trị null = không lọc). Giá trị rỗng được chuẩn hóa về null
+ * để các filter tương đương có cùng {@link #key()}.
+ */
+public record CatalogFilter(String type, String genre, String country, Integer year, Movie.AccessType accessType) {
+
+    public static final CatalogFilter NONE = new CatalogFilter(null, null, null, null, null);
+
+    public static CatalogFilter of(String type, String genre, String country, Integer year) {
+        return new CatalogFilter(clean(type), clean(genre), clean(country), year, null);
+    }
+
+    public static CatalogFilter accessType(Movie.AccessType accessType) {
+        return new CatalogFilter(null, null, null, null, accessType);
+    }
+
+    public boolean isEmpty() {
+        return terms().isEmpty();
+    }
+
+    /** Khóa chuẩn hóa, dùng làm key cache. */
+    public String key() {
+        return String.join("|", nz(type), nz(genre), nz(country), year != null ? year.toString() : "",
+                accessType != null ? accessType.name() : "");
+    }
+
+    /** Các facet đang lọc và giá trị tương ứng. */
+    Map<Facet, String> terms() {
+        Map<Facet, String> terms = new EnumMap<>(Facet.class);
+        if (type != null) terms.put(Facet.TYPE, type);
+        if (genre != null) terms.put(Facet.GENRE, genre);
+        if (country != null) terms.put(Facet.COUNTRY, country);
+        if (year != null) terms.put(Facet.YEAR, year.toString());
+        if (accessType != null) terms.put(Facet.ACCESS_TYPE, accessType.name());
+        return terms;
+    }
+
+    private static String clean(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static String nz(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,162 @@
+package com.nozie.movieservice.catalog.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nozie.movieservice.common.cache.RebuildableSnapshot;
+import com.nozie.movieservice.common.event.MovieChangedEvent;
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.repository.Keyset;
+import com.nozie.movieservice.common.repository.MovieRepositoryCustom;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Trả lời các danh sách filter của catalog (type, genre, country, year, accessType) hoàn toàn từ bộ nhớ:
+ * {@link FacetIndex} giữ list-item của mọi phim cùng bitmap theo từng giá trị facet.
+ * <p>
+ * Index được dựng nền từ Mongo lúc khởi động và định kỳ (để nhận thay đổi từ replica khác và lượt xem đã
+ * flush), đồng thời cập nhật ngay qua MovieChangedEvent. Trước khi dựng xong, CatalogService query Mongo như cũ.
+ */
+@Component
+@Slf4j
+public class CatalogFilterIndex {
+
+    private final MongoTemplate mongoTemplate;
+    private final Cache<String, CachedCounts> facetCountCache;
+    private final RebuildableSnapshot<FacetIndex, MovieChangedEvent> index =
+            new RebuildableSnapshot<>(CatalogFilterIndex::apply);
+
+    public CatalogFilterIndex(MongoTemplate mongoTemplate,
+                              @Value("${movie.filter.facet-cache-size:1000}") long facetCacheSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.facetCountCache = Caffeine.newBuilder().maximumSize(facetCacheSize).build();
+    }
+
+    public boolean isReady() {
+        return index.get() != null;
+    }
+
+    /** Trang phim khớp filter theo (updatedAt desc, _id desc) kèm tổng chính xác. */
+    public Page page(CatalogFilter filter, int offset, int limit) {
+        return index.get().query(filter, FacetIndex.Order.UPDATED, offset, limit);
+    }
+
+    /** Trang phim mới nhất (_id desc). */
+    public Page latest(int offset, int limit) {
+        return index.get().query(CatalogFilter.NONE, FacetIndex.Order.LATEST, offset, limit);
+    }
+
+    /** Keyset pagination theo (updatedAt desc, _id desc); after null = trang đầu. */
+    public List<Movie> after(CatalogFilter filter, Keyset after, int limit) {
+        Movie probe = after != null ? Movie.builder().updatedAt(after.getUpdatedAt()).id(after.getId()).build() : null;
+        return index.get().after(filter, FacetIndex.Order.UPDATED, probe, limit);
+    }
+
+    /** Keyset pagination theo _id desc; afterId null = trang đầu. */
+    public List<Movie> latestAfter(String afterId, int limit) {
+        Movie probe = afterId != null ? Movie.builder().id(afterId).build() : null;
+        return index.get().after(CatalogFilter.NONE, FacetIndex.Order.LATEST, probe, limit);
+    }
+
+    /** List-item của các phim trong ids (giữ thứ tự) khớp filter. */
+    public List<Movie> retain(List<String> ids, CatalogFilter filter) {
+        return index.get().retain(ids, filter);
+    }
+
+    /**
+     * Số phim theo giá trị của từng facet dưới filter (xem {@link FacetIndex#counts}), cache theo
+     * {@link CatalogFilter#key()} cho tới lần ghi kế tiếp vào index.
+     */
+    public FacetCounts facetCounts(CatalogFilter filter) {
+        FacetIndex current = index.get();
+        CachedCounts cached = facetCountCache.getIfPresent(filter.key());
+        if (cached != null && cached.index() == current && cached.counts().version() == current.version()) {
+            return cached.counts();
+        }
+        FacetCounts counts = current.counts(filter);
+        facetCountCache.put(filter.key(), new CachedCounts(current, counts));
+        return counts;
+    }
+
+    /** Một trang kết quả: list-item và tổng số phim khớp. */
+    public record Page(List<Movie> items, int total) {
+    }
+
+    /** Tổng số phim khớp filter và số phim theo từng (facet, giá trị); version = phiên bản index lúc đếm. */
+    public record FacetCounts(int total, Map<Facet, Map<String, Integer>> counts, long version) {
+    }
+
+    private record CachedCounts(FacetIndex index, FacetCounts counts) {
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${movie.filter.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        FacetIndex fresh;
+        try {
+            fresh = index.rebuild(this::load);
+        } catch (RuntimeException ex) {
+            log.warn("Filter index rebuild failed: {}", ex.getMessage());
+            return;
+        }
+        log.info("Filter index rebuilt: {} movies in {} ms", fresh.size(), System.currentTimeMillis() - start);
+    }
+
+    private FacetIndex load() {
+        FacetIndex fresh = new FacetIndex();
+        Query q = new Query();
+        q.fields().include(MovieRepositoryCustom.LIST_ITEM_FIELDS);
+        try (Stream<Movie> movies = mongoTemplate.stream(q, Movie.class)) {
+            movies.forEach(fresh::put);
+        }
+        return fresh;
+    }
+
+    @EventListener
+    public void onMovieChanged(MovieChangedEvent event) {
+        index.apply(event);
+    }
+
+    private static void apply(FacetIndex target, MovieChangedEvent event) {
+        if (event.getType() == MovieChangedEvent.ChangeType.DELETED) {
+            target.remove(event.getMovieId());
+        } else {
+            target.put(listItem(event.getMovie()));
+        }
+    }
+
+    /** Bản sao chỉ gồm các trường list-item (không giữ episodes/content trong index). */
+    static Movie listItem(Movie m) {
+        return Movie.builder()
+                .id(m.getId())
+                .name(m.getName())
+                .originName(m.getOriginName())
+                .slug(m.getSlug())
+                .thumbUrl(m.getThumbUrl())
+                .posterUrl(m.getPosterUrl())
+                .type(m.getType())
+                .quality(m.getQuality())
+                .lang(m.getLang())
+                .year(m.getYear())
+                .view(m.getView())
+                .time(m.getTime())
+                .episodeCurrent(m.getEpisodeCurrent())
+                .tmdbRating(m.getTmdbRating())
+                .imdbRating(m.getImdbRating())
+                .category(m.getCategory())
+                .country(m.getCountry())
+                .price(m.getPrice())
+                .accessType(m.getAccessType())
+                .updatedAt(m.getUpdatedAt())
+                .build();
+    }
+}
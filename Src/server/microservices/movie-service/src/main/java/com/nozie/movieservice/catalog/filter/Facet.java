@@ -0,0 +1,33 @@
+package com.nozie.movieservice.catalog.filter;
+
+import com.nozie.movieservice.common.model.CategoryRef;
+import com.nozie.movieservice.common.model.CountryRef;
+import com.nozie.movieservice.common.model.Movie;
+
+import java.util.function.BiConsumer;
+
+/** Các trường filter được đánh bitmap index. */
+public enum Facet {
+    TYPE,
+    GENRE,
+    COUNTRY,
+    YEAR,
+    ACCESS_TYPE;
+
+    /** Gọi action cho từng (facet, giá trị) của phim; genre/country có thể nhiều giá trị. */
+    static void forEachValue(Movie movie, BiConsumer<Facet, String> action) {
+        if (movie.getType() != null) action.accept(TYPE, movie.getType());
+        if (movie.getCategory() != null) {
+            for (CategoryRef c : movie.getCategory()) {
+                if (c != null && c.getSlug() != null) action.accept(GENRE, c.getSlug());
+            }
+        }
+        if (movie.getCountry() != null) {
+            for (CountryRef c : movie.getCountry()) {
+                if (c != null && c.getSlug() != null) action.accept(COUNTRY, c.getSlug());
+            }
+        }
+        if (movie.getYear() != null) action.accept(YEAR, movie.getYear().toString());
+        if (movie.getAccessType() != null) action.accept(ACCESS_TYPE, movie.getAccessType().name());
+    }
+}
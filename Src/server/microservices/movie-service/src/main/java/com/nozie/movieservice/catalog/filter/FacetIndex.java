@@ -0,0 +1,232 @@
+package com.nozie.movieservice.catalog.filter;
+
+import com.nozie.movieservice.common.model.Movie;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap index trong bộ nhớ cho các filter của catalog.
+ * <p>
+ * Mỗi phim có một ordinal dày (ordinal của phim đã xóa được dùng lại) và mỗi giá trị facet giữ một BitSet
+ * các ordinal. Filter = AND các BitSet; trang kết quả lấy bằng cách duyệt mảng ordinal đã sắp xếp sẵn theo
+ * (updatedAt desc, _id desc) hoặc (_id desc) - cùng thứ tự với query Mongo tương ứng.
+ * Đọc song song, ghi độc quyền (ReadWriteLock).
+ */
+class FacetIndex {
+
+    /** updatedAt desc (null xếp cuối), _id desc. */
+    static final Comparator<Movie> BY_UPDATED = Comparator
+            .comparing(Movie::getUpdatedAt, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+            .thenComparing(Movie::getId, Comparator.reverseOrder());
+    static final Comparator<Movie> BY_ID = Comparator.comparing(Movie::getId, Comparator.reverseOrder());
+
+    enum Order {UPDATED, LATEST}
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<Movie> items = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private final Map<Facet, Map<String, BitSet>> postings = new EnumMap<>(Facet.class);
+    private final OrdinalOrder byUpdated = new OrdinalOrder(BY_UPDATED, items::get);
+    private final OrdinalOrder byId = new OrdinalOrder(BY_ID, items::get);
+    /** Tăng sau mỗi lần ghi, để cache kết quả đếm facet biết khi nào hết hạn. */
+    private volatile long version;
+
+    FacetIndex() {
+        for (Facet facet : Facet.values()) {
+            postings.put(facet, new HashMap<>());
+        }
+    }
+
+    /** Thêm hoặc thay thế phim (list-item, id khác null). */
+    void put(Movie movie) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(movie.getId());
+            addLocked(movie);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Trang [offset, offset + limit) của các phim khớp filter theo thứ tự order. */
+    CatalogFilterIndex.Page query(CatalogFilter filter, Order order, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet match = matchLocked(filter);
+            int total = match.cardinality();
+            List<Movie> page = new ArrayList<>(Math.min(limit, Math.max(0, total - offset)));
+            if (offset < total) {
+                collect(match, orderOf(order), 0, offset, limit, page);
+            }
+            return new CatalogFilterIndex.Page(page, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Tối đa limit phim khớp filter đứng sau probe (vị trí cuối trang trước) theo thứ tự order. */
+    List<Movie> after(CatalogFilter filter, Order order, Movie probe, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet match = matchLocked(filter);
+            OrdinalOrder ords = orderOf(order);
+            int start = probe != null ? ords.positionAfter(probe) : 0;
+            List<Movie> page = new ArrayList<>(Math.min(limit, 64));
+            collect(match, ords, start, 0, limit, page);
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Các phim trong ids (giữ nguyên thứ tự) còn trong index và khớp filter. */
+    List<Movie> retain(List<String> ids, CatalogFilter filter) {
+        lock.readLock().lock();
+        try {
+            BitSet match = matchLocked(filter);
+            List<Movie> result = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                Integer ord = ordinals.get(id);
+                if (ord != null && match.get(ord)) result.add(items.get(ord));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long version() {
+        return version;
+    }
+
+    /**
+     * Số phim theo từng giá trị của mỗi facet dưới filter. Số đếm của một facet bỏ qua điều kiện của chính
+     * facet đó (filter genre=a vẫn cho biết genre=b có bao nhiêu phim khi kết hợp các điều kiện còn lại).
+     */
+    CatalogFilterIndex.FacetCounts counts(CatalogFilter filter) {
+        lock.readLock().lock();
+        try {
+            Map<Facet, String> terms = filter.terms();
+            Map<Facet, Map<String, Integer>> counts = new EnumMap<>(Facet.class);
+            for (Facet facet : Facet.values()) {
+                Map<Facet, String> others = new EnumMap<>(Facet.class);
+                others.putAll(terms);
+                others.remove(facet);
+                BitSet base = matchLocked(others);
+                Map<String, Integer> values = new HashMap<>();
+                for (Map.Entry<String, BitSet> e : postings.get(facet).entrySet()) {
+                    int count;
+                    if (base == live) {
+                        count = e.getValue().cardinality();
+                    } else {
+                        BitSet both = (BitSet) e.getValue().clone();
+                        both.and(base);
+                        count = both.cardinality();
+                    }
+                    if (count > 0) values.put(e.getKey(), count);
+                }
+                counts.put(facet, values);
+            }
+            return new CatalogFilterIndex.FacetCounts(matchLocked(terms).cardinality(), counts, version);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collect(BitSet match, OrdinalOrder ords, int start, int skip, int limit, List<Movie> out) {
+        int skipped = 0;
+        for (int i = start; i < ords.size() && out.size() < limit; i++) {
+            int ord = ords.get(i);
+            if (!match.get(ord)) continue;
+            if (skipped < skip) {
+                skipped++;
+            } else {
+                out.add(items.get(ord));
+            }
+        }
+    }
+
+    /** BitSet các phim khớp filter; không được sửa kết quả (có thể là BitSet nội bộ). */
+    private BitSet matchLocked(CatalogFilter filter) {
+        return matchLocked(filter.terms());
+    }
+
+    private BitSet matchLocked(Map<Facet, String> terms) {
+        BitSet result = null;
+        for (Map.Entry<Facet, String> term : terms.entrySet()) {
+            BitSet bits = postings.get(term.getKey()).get(term.getValue());
+            if (bits == null) return new BitSet();
+            if (result == null) {
+                result = (BitSet) bits.clone();
+            } else {
+                result.and(bits);
+            }
+        }
+        return result != null ? result : live;
+    }
+
+    private OrdinalOrder orderOf(Order order) {
+        return order == Order.LATEST ? byId : byUpdated;
+    }
+
+    private void addLocked(Movie movie) {
+        int ord = live.nextClearBit(0);
+        if (ord == items.size()) {
+            items.add(movie);
+        } else {
+            items.set(ord, movie);
+        }
+        live.set(ord);
+        ordinals.put(movie.getId(), ord);
+        Facet.forEachValue(movie, (facet, value) ->
+                postings.get(facet).computeIfAbsent(value, v -> new BitSet()).set(ord));
+        byUpdated.insert(ord);
+        byId.insert(ord);
+    }
+
+    private void removeLocked(String id) {
+        Integer ord = ordinals.remove(id);
+        if (ord == null) return;
+        Movie old = items.get(ord);
+        byUpdated.remove(ord);
+        byId.remove(ord);
+        Facet.forEachValue(old, (facet, value) -> {
+            Map<String, BitSet> values = postings.get(facet);
+            BitSet bits = values.get(value);
+            if (bits == null) return;
+            bits.clear(ord);
+            if (bits.isEmpty()) values.remove(value);
+        });
+        live.clear(ord);
+        items.set(ord, null);
+    }
+}
@@ -0,0 +1,75 @@
+package com.nozie.movieservice.catalog.filter;
+
+import com.nozie.movieservice.common.model.Movie;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntFunction;
+
+/**
+ * Mảng ordinal luôn được giữ sắp xếp theo comparator; thêm/xóa bằng binary search + dịch mảng.
+ * Không thread-safe, FacetIndex giữ lock.
+ */
+final class OrdinalOrder {
+
+    private final Comparator<Movie> comparator;
+    private final IntFunction<Movie> items;
+    private int[] ords = new int[1024];
+    private int size;
+
+    OrdinalOrder(Comparator<Movie> comparator, IntFunction<Movie> items) {
+        this.comparator = comparator;
+        this.items = items;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int position) {
+        return ords[position];
+    }
+
+    /** Gọi khi items(ord) đã trỏ tới phim mới. */
+    void insert(int ord) {
+        int pos = lowerBound(items.apply(ord));
+        if (size == ords.length) {
+            ords = Arrays.copyOf(ords, size * 2);
+        }
+        System.arraycopy(ords, pos, ords, pos + 1, size - pos);
+        ords[pos] = ord;
+        size++;
+    }
+
+    /** Gọi trước khi items(ord) bị thay/xóa. */
+    void remove(int ord) {
+        int pos = lowerBound(items.apply(ord));
+        while (pos < size && ords[pos] != ord) pos++;
+        if (pos == size) return;
+        System.arraycopy(ords, pos + 1, ords, pos, size - pos - 1);
+        size--;
+    }
+
+    /** Vị trí đầu tiên đứng sau probe trong thứ tự. */
+    int positionAfter(Movie probe) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparator.compare(items.apply(ords[mid]), probe) <= 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private int lowerBound(Movie probe) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparator.compare(items.apply(ords[mid]), probe) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,211 @@
+package com.nozie.movieservice.catalog.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index trong bộ nhớ với xếp hạng BM25.
+ * <p>
+ * Mỗi document có một ordinal tăng dần nên postings luôn được sắp xếp; cập nhật = đánh dấu xóa ordinal cũ
+ * + thêm ordinal mới, và index tự compact khi số ordinal đã xóa vượt 1/4 số document còn sống.
+ * Đọc song song, ghi độc quyền (ReadWriteLock) - catalog ghi rất ít so với đọc.
+ */
+class InvertedIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MAX_QUERY_TERMS = 31;
+    private static final int MAX_PREFIX_EXPANSION = 64;
+    private static final int MIN_DELETED_FOR_COMPACTION = 256;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private final List<Map<String, Float>> docTerms = new ArrayList<>();
+    private final BitSet deleted = new BitSet();
+    private float[] lengths = new float[1024];
+    private double totalLength;
+    private int liveDocs;
+
+    /** Thêm hoặc thay thế document; termWeights = tần suất từ đã nhân trọng số field. */
+    void put(String id, Map<String, Float> termWeights) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            addLocked(id, termWeights);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Trả về id các document chứa tất cả từ trong query (từ cuối được coi là tiền tố nếu lastIsPrefix),
+     * sắp xếp theo điểm BM25 giảm dần, tối đa limit phần tử.
+     */
+    List<String> search(List<String> queryTerms, boolean lastIsPrefix, int limit) {
+        List<String> unique = new ArrayList<>(new LinkedHashSet<>(queryTerms));
+        if (unique.isEmpty() || limit <= 0) return List.of();
+        if (unique.size() > MAX_QUERY_TERMS) unique = unique.subList(0, MAX_QUERY_TERMS);
+
+        lock.readLock().lock();
+        try {
+            if (liveDocs == 0) return List.of();
+            int n = ids.size();
+            float avgLength = (float) (totalLength / liveDocs);
+            float[] scores = new float[n];
+            int[] matched = new int[n];
+            int fullMask = (1 << unique.size()) - 1;
+
+            for (int i = 0; i < unique.size(); i++) {
+                String term = unique.get(i);
+                Map<String, Postings> group = (lastIsPrefix && i == unique.size() - 1)
+                        ? expandPrefix(term)
+                        : singleTerm(term);
+                if (group.isEmpty()) return List.of();
+                int bit = 1 << i;
+                for (Postings p : group.values()) {
+                    float idf = (float) Math.log(1 + (liveDocs - p.size + 0.5) / (p.size + 0.5));
+                    for (int j = 0; j < p.size; j++) {
+                        int doc = p.docs[j];
+                        if (deleted.get(doc)) continue;
+                        float tf = p.weights[j];
+                        float norm = K1 * (1 - B + B * lengths[doc] / avgLength);
+                        scores[doc] += idf * tf * (K1 + 1) / (tf + norm);
+                        matched[doc] |= bit;
+                    }
+                }
+            }
+
+            List<Integer> hits = new ArrayList<>();
+            for (int doc = 0; doc < n; doc++) {
+                if (matched[doc] == fullMask && !deleted.get(doc)) hits.add(doc);
+            }
+            hits.sort((a, b) -> {
+                int c = Float.compare(scores[b], scores[a]);
+                return c != 0 ? c : Integer.compare(b, a);
+            });
+            List<String> result = new ArrayList<>(Math.min(limit, hits.size()));
+            for (int k = 0; k < hits.size() && k < limit; k++) {
+                result.add(ids.get(hits.get(k)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<String, Postings> singleTerm(String term) {
+        Postings p = terms.get(term);
+        return p != null ? Map.of(term, p) : Collections.emptyMap();
+    }
+
+    private Map<String, Postings> expandPrefix(String prefix) {
+        NavigableMap<String, Postings> range = terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (range.size() <= MAX_PREFIX_EXPANSION) return range;
+        Map<String, Postings> limited = new HashMap<>();
+        for (Map.Entry<String, Postings> e : range.entrySet()) {
+            if (limited.size() >= MAX_PREFIX_EXPANSION) break;
+            limited.put(e.getKey(), e.getValue());
+        }
+        return limited;
+    }
+
+    private void addLocked(String id, Map<String, Float> termWeights) {
+        int doc = ids.size();
+        ids.add(id);
+        docTerms.add(termWeights);
+        ordinals.put(id, doc);
+        if (doc >= lengths.length) {
+            lengths = Arrays.copyOf(lengths, lengths.length * 2);
+        }
+        float length = 0;
+        for (Map.Entry<String, Float> e : termWeights.entrySet()) {
+            terms.computeIfAbsent(e.getKey(), t -> new Postings()).add(doc, e.getValue());
+            length += e.getValue();
+        }
+        lengths[doc] = length;
+        totalLength += length;
+        liveDocs++;
+    }
+
+    private void removeLocked(String id) {
+        Integer doc = ordinals.remove(id);
+        if (doc == null) return;
+        deleted.set(doc);
+        docTerms.set(doc, null);
+        totalLength -= lengths[doc];
+        liveDocs--;
+    }
+
+    /** Dựng lại postings từ các document còn sống khi ordinal đã xóa chiếm quá nhiều. */
+    private void compactIfNeeded() {
+        int dead = deleted.cardinality();
+        if (dead < MIN_DELETED_FOR_COMPACTION || dead * 4 < liveDocs) return;
+        List<String> liveIds = new ArrayList<>(liveDocs);
+        List<Map<String, Float>> liveTerms = new ArrayList<>(liveDocs);
+        for (int doc = 0; doc < ids.size(); doc++) {
+            if (!deleted.get(doc)) {
+                liveIds.add(ids.get(doc));
+                liveTerms.add(docTerms.get(doc));
+            }
+        }
+        terms.clear();
+        ordinals.clear();
+        ids.clear();
+        docTerms.clear();
+        deleted.clear();
+        lengths = new float[Math.max(1024, liveIds.size() * 2)];
+        totalLength = 0;
+        liveDocs = 0;
+        for (int i = 0; i < liveIds.size(); i++) {
+            addLocked(liveIds.get(i), liveTerms.get(i));
+        }
+    }
+
+    /** Danh sách (ordinal, trọng số) cho một từ, ordinal tăng dần. */
+    private static final class Postings {
+        int[] docs = new int[4];
+        float[] weights = new float[4];
+        int size;
+
+        void add(int doc, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.nozie.movieservice.catalog.search;
+
+import com.nozie.movieservice.common.cache.RebuildableSnapshot;
+import com.nozie.movieservice.common.event.MovieChangedEvent;
+import com.nozie.movieservice.common.model.Movie;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Full-text search trong bộ nhớ cho /api/movies/search và filter q: tìm trên name, originName,
+ * alternativeNames, actor, director đã bỏ dấu, xếp hạng BM25.
+ * <p>
+ * Index được dựng nền từ collection movies lúc khởi động và định kỳ (để nhận thay đổi từ replica khác),
+ * đồng thời cập nhật tăng dần qua MovieChangedEvent. Trước khi dựng xong, CatalogService dùng regex như cũ.
+ */
+@Component
+@Slf4j
+public class MovieSearchIndex {
+
+    static final String[] SEARCH_FIELDS = {"name", "originName", "alternativeNames", "actor", "director"};
+
+    private static final float NAME_WEIGHT = 3f;
+    private static final float ALT_NAME_WEIGHT = 2f;
+    private static final float PEOPLE_WEIGHT = 1f;
+
+    private final MongoTemplate mongoTemplate;
+    private final RebuildableSnapshot<InvertedIndex, MovieChangedEvent> index =
+            new RebuildableSnapshot<>(MovieSearchIndex::apply);
+
+    @Value("${movie.search.max-results:1000}")
+    private int maxResults;
+
+    public MovieSearchIndex(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public boolean isReady() {
+        return index.get() != null;
+    }
+
+    /** Id phim khớp tất cả từ khóa (từ cuối khớp tiền tố), theo độ liên quan giảm dần. */
+    public List<String> search(String keyword) {
+        InvertedIndex current = index.get();
+        if (current == null) return List.of();
+        return current.search(TextAnalyzer.tokenize(keyword), true, maxResults);
+    }
+
+    /**
+     * Như {@link #search(String)} nhưng filter (type/genre/country/year của catalog) chạy trên toàn bộ kết quả
+     * đã xếp hạng rồi mới cắt còn max-results, để phim khớp filter nhưng xếp hạng thấp không bị mất.
+     */
+    public <T> List<T> search(String keyword, Function<List<String>, List<T>> filter) {
+        InvertedIndex current = index.get();
+        if (current == null) return List.of();
+        List<T> matched = filter.apply(current.search(TextAnalyzer.tokenize(keyword), true, Integer.MAX_VALUE));
+        return matched.size() > maxResults ? matched.subList(0, maxResults) : matched;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${movie.search.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        InvertedIndex fresh;
+        try {
+            fresh = index.rebuild(this::load);
+        } catch (RuntimeException ex) {
+            log.warn("Search index rebuild failed: {}", ex.getMessage());
+            return;
+        }
+        log.info("Search index rebuilt: {} movies in {} ms", fresh.size(), System.currentTimeMillis() - start);
+    }
+
+    private InvertedIndex load() {
+        InvertedIndex fresh = new InvertedIndex();
+        Query q = new Query();
+        q.fields().include(SEARCH_FIELDS);
+        try (Stream<Movie> movies = mongoTemplate.stream(q, Movie.class)) {
+            movies.forEach(m -> fresh.put(m.getId(), termWeights(m)));
+        }
+        return fresh;
+    }
+
+    @EventListener
+    public void onMovieChanged(MovieChangedEvent event) {
+        index.apply(event);
+    }
+
+    private static void apply(InvertedIndex target, MovieChangedEvent event) {
+        if (event.getType() == MovieChangedEvent.ChangeType.DELETED) {
+            target.remove(event.getMovieId());
+        } else {
+            target.put(event.getMovieId(), termWeights(event.getMovie()));
+        }
+    }
+
+    static Map<String, Float> termWeights(Movie movie) {
+        Map<String, Float> weights = new HashMap<>();
+        addTokens(weights, movie.getName(), NAME_WEIGHT);
+        addTokens(weights, movie.getOriginName(), NAME_WEIGHT);
+        addAll(weights, movie.getAlternativeNames(), ALT_NAME_WEIGHT);
+        addAll(weights, movie.getActor(), PEOPLE_WEIGHT);
+        addAll(weights, movie.getDirector(), PEOPLE_WEIGHT);
+        return weights;
+    }
+
+    private static void addAll(Map<String, Float> weights, List<String> texts, float weight) {
+        if (texts == null) return;
+        texts.forEach(t -> addTokens(weights, t, weight));
+    }
+
+    private static void addTokens(Map<String, Float> weights, String text, float weight) {
+        for (String token : TextAnalyzer.tokenize(text)) {
+            weights.merge(token, weight, Float::sum);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.nozie.movieservice.catalog.search;
+
+import com.nozie.movieservice.common.cache.RebuildableSnapshot;
+import com.nozie.movieservice.common.dto.MovieSuggestionResponse;
+import com.nozie.movieservice.common.event.MovieChangedEvent;
+import com.nozie.movieservice.common.model.Movie;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Gợi ý tìm kiếm theo tiền tố cho /api/movies/suggest, phục vụ hoàn toàn từ bộ nhớ.
+ * <p>
+ * Danh sách phim (tiêu đề + view) được nạp nền từ Mongo lúc khởi động và định kỳ; thay đổi từ catalog
+ * (MovieChangedEvent) cập nhật danh sách ngay và SuggestionSnapshot được dựng lại từ bộ nhớ sau tối đa
+ * movie.suggest.refresh-interval-ms.
+ */
+@Component
+@Slf4j
+public class MovieSuggestIndex {
+
+    static final int MAX_SUGGESTIONS = 20;
+
+    private static final String[] FIELDS = {
+            "name", "originName", "alternativeNames", "slug", "thumbUrl", "year", "view"
+    };
+
+    private final MongoTemplate mongoTemplate;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final RebuildableSnapshot<Map<String, SuggestionSnapshot.Candidate>, MovieChangedEvent> candidates =
+            new RebuildableSnapshot<>(new ConcurrentHashMap<>(), MovieSuggestIndex::apply);
+    private volatile SuggestionSnapshot snapshot = SuggestionSnapshot.EMPTY;
+
+    public MovieSuggestIndex(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public List<MovieSuggestionResponse> suggest(String prefix, int limit) {
+        return snapshot.suggest(prefix, Math.min(limit, MAX_SUGGESTIONS));
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${movie.suggest.reload-interval-ms:600000}")
+    public void reload() {
+        Map<String, SuggestionSnapshot.Candidate> fresh;
+        try {
+            fresh = candidates.rebuild(this::load);
+        } catch (RuntimeException ex) {
+            log.warn("Suggest index reload failed: {}", ex.getMessage());
+            return;
+        }
+        dirty.set(false);
+        snapshot = SuggestionSnapshot.build(fresh.values(), MAX_SUGGESTIONS);
+        log.info("Suggest index loaded: {} movies", snapshot.size());
+    }
+
+    @Scheduled(fixedDelayString = "${movie.suggest.refresh-interval-ms:2000}")
+    public void refreshIfDirty() {
+        if (dirty.getAndSet(false)) {
+            snapshot = SuggestionSnapshot.build(candidates.get().values(), MAX_SUGGESTIONS);
+        }
+    }
+
+    private Map<String, SuggestionSnapshot.Candidate> load() {
+        Map<String, SuggestionSnapshot.Candidate> fresh = new ConcurrentHashMap<>();
+        Query q = new Query();
+        q.fields().include(FIELDS);
+        try (Stream<Movie> movies = mongoTemplate.stream(q, Movie.class)) {
+            movies.forEach(m -> fresh.put(m.getId(), candidate(m)));
+        }
+        return fresh;
+    }
+
+    @EventListener
+    public void onMovieChanged(MovieChangedEvent event) {
+        candidates.apply(event);
+        dirty.set(true);
+    }
+
+    private static void apply(Map<String, SuggestionSnapshot.Candidate> target, MovieChangedEvent event) {
+        if (event.getType() == MovieChangedEvent.ChangeType.DELETED) {
+            target.remove(event.getMovieId());
+        } else {
+            target.put(event.getMovieId(), candidate(event.getMovie()));
+        }
+    }
+
+    static SuggestionSnapshot.Candidate candidate(Movie m) {
+        List<String> titles = new ArrayList<>();
+        if (m.getName() != null) titles.add(m.getName());
+        if (m.getOriginName() != null) titles.add(m.getOriginName());
+        if (m.getAlternativeNames() != null) titles.addAll(m.getAlternativeNames());
+        MovieSuggestionResponse movie = MovieSuggestionResponse.builder()
+                .id(m.getId())
+                .name(m.getName())
+                .originName(m.getOriginName())
+                .slug(m.getSlug())
+                .thumbUrl(m.getThumbUrl())
+                .year(m.getYear())
+                .build();
+        return new SuggestionSnapshot.Candidate(movie, m.getView() != null ? m.getView() : 0L, titles);
+    }
+}
@@ -0,0 +1,148 @@
+package com.nozie.movieservice.catalog.search;
+
+import com.nozie.movieservice.common.dto.MovieSuggestionResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Từ điển gợi ý bất biến: mảng key đã sắp xếp (tiêu đề đã bỏ dấu + các hậu tố bắt đầu từ mỗi từ) trỏ tới
+ * ordinal của phim. Tra cứu tiền tố = binary search lấy khoảng key rồi chọn top-k theo lượt xem;
+ * các tiền tố ngắn (khoảng key rất rộng) có sẵn top-k tính trước.
+ */
+final class SuggestionSnapshot {
+
+    static final SuggestionSnapshot EMPTY = build(List.of(), 1);
+
+    private static final int SHORT_PREFIX = 2;
+    private static final int MAX_WORD_STARTS = 8;
+
+    private final String[] keys;
+    private final int[] owners;
+    private final MovieSuggestionResponse[] movies;
+    private final int maxK;
+    private final Map<String, int[]> shortPrefixTop;
+
+    private SuggestionSnapshot(String[] keys, int[] owners, MovieSuggestionResponse[] movies,
+                               int maxK, Map<String, int[]> shortPrefixTop) {
+        this.keys = keys;
+        this.owners = owners;
+        this.movies = movies;
+        this.maxK = maxK;
+        this.shortPrefixTop = shortPrefixTop;
+    }
+
+    /** Một phim cần đưa vào từ điển: dữ liệu hiển thị, trọng số (view) và các tiêu đề (name, originName, tên khác). */
+    record Candidate(MovieSuggestionResponse movie, long weight, List<String> titles) {
+    }
+
+    static SuggestionSnapshot build(Collection<Candidate> candidates, int maxK) {
+        List<Candidate> byWeight = new ArrayList<>(candidates);
+        byWeight.sort(Comparator.comparingLong(Candidate::weight).reversed());
+
+        MovieSuggestionResponse[] movies = new MovieSuggestionResponse[byWeight.size()];
+        List<String> keyList = new ArrayList<>();
+        List<Integer> ownerList = new ArrayList<>();
+        Map<String, List<Integer>> shortTop = new HashMap<>();
+
+        // Duyệt theo trọng số giảm dần: k phim đầu tiên gặp ở mỗi tiền tố ngắn chính là top-k của tiền tố đó
+        for (int ord = 0; ord < byWeight.size(); ord++) {
+            Candidate c = byWeight.get(ord);
+            movies[ord] = c.movie();
+            for (String key : keysFor(c.titles())) {
+                keyList.add(key);
+                ownerList.add(ord);
+                for (int len = 1; len <= Math.min(SHORT_PREFIX, key.length()); len++) {
+                    List<Integer> top = shortTop.computeIfAbsent(key.substring(0, len), p -> new ArrayList<>(maxK));
+                    if (top.size() < maxK && !top.contains(ord)) top.add(ord);
+                }
+            }
+        }
+
+        Integer[] order = new Integer[keyList.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparing(keyList::get));
+        String[] keys = new String[order.length];
+        int[] owners = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = keyList.get(order[i]);
+            owners[i] = ownerList.get(order[i]);
+        }
+
+        Map<String, int[]> shortPrefixTop = new HashMap<>(shortTop.size() * 2);
+        shortTop.forEach((p, top) -> shortPrefixTop.put(p, top.stream().mapToInt(Integer::intValue).toArray()));
+        return new SuggestionSnapshot(keys, owners, movies, maxK, shortPrefixTop);
+    }
+
+    int size() {
+        return movies.length;
+    }
+
+    /** Top-k phim có tiêu đề (hoặc một từ trong tiêu đề trở đi) bắt đầu bằng prefix, theo trọng số giảm dần. */
+    List<MovieSuggestionResponse> suggest(String prefix, int k) {
+        String key = normalize(prefix);
+        int limit = Math.min(k, maxK);
+        if (key.isEmpty() || limit <= 0) return List.of();
+
+        if (key.length() <= SHORT_PREFIX) {
+            int[] top = shortPrefixTop.get(key);
+            if (top == null) return List.of();
+            List<MovieSuggestionResponse> result = new ArrayList<>(limit);
+            for (int i = 0; i < top.length && i < limit; i++) result.add(movies[top[i]]);
+            return result;
+        }
+
+        int from = lowerBound(key);
+        int to = lowerBound(key + Character.MAX_VALUE);
+        // Ordinal được gán theo trọng số giảm dần nên ordinal nhỏ hơn = xếp trên
+        int[] best = new int[limit];
+        int found = 0;
+        for (int i = from; i < to; i++) {
+            int ord = owners[i];
+            if (found == limit && ord >= best[limit - 1]) continue;
+            int pos = Arrays.binarySearch(best, 0, found, ord);
+            if (pos >= 0) continue;
+            pos = -pos - 1;
+            System.arraycopy(best, pos, best, pos + 1, Math.min(found, limit - 1) - pos);
+            best[pos] = ord;
+            if (found < limit) found++;
+        }
+        List<MovieSuggestionResponse> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) result.add(movies[best[i]]);
+        return result;
+    }
+
+    private int lowerBound(String key) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    static String normalize(String text) {
+        return String.join(" ", TextAnalyzer.tokenize(text));
+    }
+
+    /** Tiêu đề đầy đủ và các hậu tố bắt đầu từ mỗi từ ("phim hanh dong" -> "hanh dong", "dong"). */
+    private static Set<String> keysFor(List<String> titles) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String title : titles) {
+            List<String> tokens = TextAnalyzer.tokenize(title);
+            for (int start = 0; start < tokens.size() && start < MAX_WORD_STARTS; start++) {
+                keys.add(String.join(" ", tokens.subList(start, tokens.size())));
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,37 @@
+package com.nozie.movieservice.catalog.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hóa text tiếng Việt cho tìm kiếm: bỏ dấu ("Hành Động" -> "hanh dong"), đ -> d, chữ thường,
+ * tách từ theo ký tự không phải chữ/số.
+ */
+public final class TextAnalyzer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextAnalyzer() {
+    }
+
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) return "";
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(fold(text))) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,91 @@
+package com.nozie.movieservice.catalog.service;
+
+import com.nozie.common.exception.BadRequestException;
+import com.nozie.movieservice.common.repository.Keyset;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Mã hóa / giải mã cursor (opaque với client) cho keyset pagination.
+ * Định dạng trước khi base64url: "u|updatedAt|id" cho danh sách filter, "i|id" cho /latest,
+ * "c|changedAt|id" cho token của /changes.
+ */
+final class CatalogCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private CatalogCursor() {
+    }
+
+    static String encodeKeyset(Keyset keyset) {
+        String updatedAt = keyset.getUpdatedAt() != null ? keyset.getUpdatedAt().toString() : "";
+        return encode("u|" + updatedAt + "|" + keyset.getId());
+    }
+
+    /** null nếu cursor rỗng (trang đầu). */
+    static Keyset decodeKeyset(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        String[] parts = decode(cursor).split("\\|", -1);
+        if (parts.length != 3 || !"u".equals(parts[0]) || parts[2].isEmpty()) {
+            throw invalid(cursor);
+        }
+        try {
+            LocalDateTime updatedAt = parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]);
+            return new Keyset(updatedAt, parts[2]);
+        } catch (DateTimeParseException ex) {
+            throw invalid(cursor);
+        }
+    }
+
+    static String encodeChange(LocalDateTime changedAt, String id) {
+        return encode("c|" + changedAt + "|" + id);
+    }
+
+    /** null nếu token rỗng (từ đầu). */
+    static Keyset decodeChange(String token) {
+        if (token == null || token.isBlank()) return null;
+        String[] parts = decode(token).split("\\|", -1);
+        // id rỗng = mốc cắt của trang rỗng (mọi thay đổi từ thời điểm đó trở đi)
+        if (parts.length != 3 || !"c".equals(parts[0])) {
+            throw invalid(token);
+        }
+        try {
+            return new Keyset(LocalDateTime.parse(parts[1]), parts[2]);
+        } catch (DateTimeParseException ex) {
+            throw invalid(token);
+        }
+    }
+
+    static String encodeId(String id) {
+        return encode("i|" + id);
+    }
+
+    static String decodeId(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        String raw = decode(cursor);
+        if (!raw.startsWith("i|") || raw.length() == 2) {
+            throw invalid(cursor);
+        }
+        return raw.substring(2);
+    }
+
+    private static String encode(String raw) {
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        try {
+            return new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw invalid(cursor);
+        }
+    }
+
+    private static BadRequestException invalid(String cursor) {
+        return new BadRequestException("Invalid cursor '" + cursor + "'");
+    }
+}
@@ -0,0 +1,123 @@
+package com.nozie.movieservice.catalog.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nozie.movieservice.common.event.MovieChangedEvent;
+import com.nozie.movieservice.common.model.Country;
+import com.nozie.movieservice.common.model.Genre;
+import com.nozie.movieservice.common.repository.CountryRepository;
+import com.nozie.movieservice.common.repository.GenreRepository;
+import com.nozie.movieservice.common.repository.MovieRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Thể loại, quốc gia và danh sách năm cho filter UI, giữ dưới dạng snapshot bất biến kèm ETag.
+ * <p>
+ * Genres/countries chỉ đổi khi import từ OPhim nên được nạp lại định kỳ (movie.meta.refresh-interval-ms);
+ * danh sách năm được tính lại sau thay đổi catalog (MovieChangedEvent) trong vòng movie.meta.dirty-check-ms.
+ */
+@Service
+@Slf4j
+public class CatalogMetadataService {
+
+    private final GenreRepository genreRepository;
+    private final CountryRepository countryRepository;
+    private final MovieRepository movieRepository;
+    private final ObjectMapper objectMapper;
+    private final AtomicBoolean yearsDirty = new AtomicBoolean();
+    private volatile Snapshot<Genre> genres;
+    private volatile Snapshot<Country> countries;
+    private volatile Snapshot<Integer> years;
+
+    public CatalogMetadataService(GenreRepository genreRepository, CountryRepository countryRepository,
+                                  MovieRepository movieRepository, ObjectMapper objectMapper) {
+        this.genreRepository = genreRepository;
+        this.countryRepository = countryRepository;
+        this.movieRepository = movieRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /** Danh sách và ETag (strong) của nội dung. */
+    public record Snapshot<T>(List<T> data, String etag) {
+
+        /** true nếu header If-None-Match chứa ETag hiện tại (hoặc "*"). */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+            for (String tag : ifNoneMatch.split(",")) {
+                String t = tag.trim();
+                if (t.startsWith("W/")) t = t.substring(2);
+                if (t.equals("*") || t.equals(etag)) return true;
+            }
+            return false;
+        }
+    }
+
+    public Snapshot<Genre> getGenres() {
+        Snapshot<Genre> current = genres;
+        return current != null ? current : (genres = snapshot(genreRepository::findAll));
+    }
+
+    public Snapshot<Country> getCountries() {
+        Snapshot<Country> current = countries;
+        return current != null ? current : (countries = snapshot(countryRepository::findAll));
+    }
+
+    public Snapshot<Integer> getYears() {
+        Snapshot<Integer> current = years;
+        return current != null ? current : (years = snapshot(this::loadYears));
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${movie.meta.refresh-interval-ms:3600000}")
+    public void refresh() {
+        try {
+            genres = snapshot(genreRepository::findAll);
+            countries = snapshot(countryRepository::findAll);
+            years = snapshot(this::loadYears);
+            log.debug("Catalog metadata refreshed: {} genres, {} countries, {} years",
+                    genres.data().size(), countries.data().size(), years.data().size());
+        } catch (RuntimeException ex) {
+            log.warn("Catalog metadata refresh failed: {}", ex.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${movie.meta.dirty-check-ms:5000}")
+    public void refreshYearsIfDirty() {
+        if (!yearsDirty.getAndSet(false)) return;
+        try {
+            years = snapshot(this::loadYears);
+        } catch (RuntimeException ex) {
+            yearsDirty.set(true);
+            log.warn("Year list refresh failed: {}", ex.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onMovieChanged(MovieChangedEvent event) {
+        yearsDirty.set(true);
+    }
+
+    private List<Integer> loadYears() {
+        List<Integer> distinct = movieRepository.findDistinctYears();
+        if (distinct == null) return List.of();
+        return distinct.stream().filter(Objects::nonNull).sorted((a, b) -> Integer.compare(b, a)).toList();
+    }
+
+    private <T> Snapshot<T> snapshot(Supplier<List<T>> loader) {
+        List<T> data = List.copyOf(loader.get());
+        try {
+            String hash = DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(data));
+            return new Snapshot<>(data, "\"" + hash + "\"");
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize catalog metadata", ex);
+        }
+    }
+}
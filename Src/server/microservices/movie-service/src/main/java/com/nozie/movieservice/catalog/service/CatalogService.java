@@ -2,26 +2,48 @@ package com.nozie.movieservice.catalog.service;
 
 import com.nozie.common.exception.BadRequestException;
 import com.nozie.common.exception.ResourceNotFoundException;
+import com.nozie.common.exception.ServiceUnavailableException;
+import com.nozie.movieservice.catalog.filter.CatalogFilter;
+import com.nozie.movieservice.catalog.filter.CatalogFilterIndex;
+import com.nozie.movieservice.catalog.filter.Facet;
+import com.nozie.movieservice.catalog.search.MovieSearchIndex;
+import com.nozie.movieservice.catalog.search.MovieSuggestIndex;
+import com.nozie.movieservice.catalog.similar.SimilarTitlesIndex;
+import com.nozie.movieservice.common.cache.MovieCache;
+import com.nozie.movieservice.common.dto.MovieBatchRequest;
+import com.nozie.movieservice.common.dto.MovieBatchResponse;
+import com.nozie.movieservice.common.dto.MovieFacetsResponse;
 import com.nozie.movieservice.common.dto.MovieListItemResponse;
 import com.nozie.movieservice.common.dto.MovieRequest;
+import com.nozie.movieservice.common.dto.MovieSuggestionResponse;
 import com.nozie.movieservice.common.dto.PageResponse;
-import com.nozie.movieservice.common.model.Country;
-import com.nozie.movieservice.common.model.Genre;
+import com.nozie.movieservice.common.event.MovieChangedEvent;
 import com.nozie.movieservice.common.model.Movie;
-import com.nozie.movieservice.common.repository.CountryRepository;
-import com.nozie.movieservice.common.repository.GenreRepository;
+import com.nozie.movieservice.common.repository.Keyset;
+import com.nozie.movieservice.common.repository.MovieEpisodeRepository;
 import com.nozie.movieservice.common.repository.MovieRepository;
+import com.nozie.movieservice.common.repository.MovieRepositoryCustom.TotalMode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,9 +53,18 @@ import java.util.stream.Collectors;
 public class CatalogService {
 
     private final MovieRepository movieRepository;
-    private final GenreRepository genreRepository;
-    private final CountryRepository countryRepository;
+    private final MovieCache movieCache;
+    private final MovieEpisodeRepository movieEpisodeRepository;
     private final MovieMapper movieMapper;
+    private final MovieSearchIndex movieSearchIndex;
+    private final CatalogFilterIndex catalogFilterIndex;
+    private final MovieSuggestIndex movieSuggestIndex;
+    private final SimilarTitlesIndex similarTitlesIndex;
+    private final TrendingService trendingService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${movie.batch.max-size:100}")
+    private int batchMaxSize;
 
     public Movie createMovie(MovieRequest request) {
         log.info("Creating movie: {}", request.getName());
@@ -42,47 +73,61 @@ public class CatalogService {
             throw new BadRequestException("Movie with slug '" + request.getSlug() + "' already exists");
         }
 
-        Movie movie = mapToEntity(request, new Movie());
-
-        if (movie.getAccessType() == null) {
-            if (movie.getPrice() != null && movie.getPrice().compareTo(BigDecimal.ZERO) > 0) {
-                movie.setAccessType(Movie.AccessType.RENTAL);
-            } else {
-                movie.setAccessType(Movie.AccessType.FREE);
-            }
-        }
+        Movie movie = movieMapper.toNewEntity(request);
+        movie.setUpdatedAt(movie.getCreatedAt());
+        Movie saved = movieRepository.save(movie);
+        eventPublisher.publishEvent(MovieChangedEvent.created(saved));
+        return saved;
+    }
 
-        return movieRepository.save(movie);
+    @Transactional(readOnly = true)
+    public Movie getMovieById(String id) {
+        return movieCache.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Movie", "id", id));
     }
 
     @Transactional(readOnly = true)
-    public List<Movie> getAllMovies() {
-        return movieRepository.findAll();
+    public Movie getMovieBySlug(String slug) {
+        return movieCache.findBySlug(slug)
+                .orElseThrow(() -> new ResourceNotFoundException("Movie", "slug", slug));
     }
 
+    /**
+     * Chi tiết phim chỉ với các trường trong fields: dùng bản đầy đủ nếu đã có trong cache tầng 1, còn lại
+     * đọc Mongo với projection (không đi qua cache).
+     */
     @Transactional(readOnly = true)
-    public Movie getMovieById(String id) {
-        return movieRepository.findById(id)
+    public Movie getMovieById(String id, Set<String> fields) {
+        if (fields == null) return getMovieById(id);
+        return movieCache.peekById(id)
+                .or(() -> movieRepository.findProjectedById(id, fields))
                 .orElseThrow(() -> new ResourceNotFoundException("Movie", "id", id));
     }
 
     @Transactional(readOnly = true)
-    public Movie getMovieBySlug(String slug) {
-        return movieRepository.findBySlug(slug)
+    public Movie getMovieBySlug(String slug, Set<String> fields) {
+        if (fields == null) return getMovieBySlug(slug);
+        return movieCache.peekBySlug(slug)
+                .or(() -> movieRepository.findProjectedBySlug(slug, fields))
                 .orElseThrow(() -> new ResourceNotFoundException("Movie", "slug", slug));
     }
 
     public Movie updateMovie(String id, MovieRequest request) {
-        Movie existingMovie = getMovieById(id);
+        // Đọc thẳng từ Mongo: bản trong cache được chia sẻ giữa các request, không sửa tại chỗ
+        Movie existingMovie = movieRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Movie", "id", id));
 
         if (!existingMovie.getSlug().equals(request.getSlug()) &&
                 movieRepository.existsBySlug(request.getSlug())) {
             throw new BadRequestException("Movie with slug '" + request.getSlug() + "' already exists");
         }
 
-        Movie updatedMovie = mapToEntity(request, existingMovie);
+        Movie updatedMovie = movieMapper.toEntity(request, existingMovie);
+        updatedMovie.onUpdate();
 
-        return movieRepository.save(updatedMovie);
+        Movie saved = movieRepository.save(updatedMovie);
+        eventPublisher.publishEvent(MovieChangedEvent.updated(saved));
+        return saved;
     }
 
     public void deleteMovie(String id) {
@@ -90,15 +135,53 @@ public class CatalogService {
             throw new ResourceNotFoundException("Movie", "id", id);
         }
         movieRepository.deleteById(id);
+        movieRepository.markDeleted(id, LocalDateTime.now());
+        movieEpisodeRepository.deleteByMovieId(id);
+        eventPublisher.publishEvent(MovieChangedEvent.deleted(id));
     }
 
+    /**
+     * Tra cứu nhiều phim (id và/hoặc slug, tổng tối đa movie.batch.max-size) bằng một query $in,
+     * chỉ trả list-item. Kết quả giữ thứ tự request; id/slug không tồn tại được liệt kê riêng.
+     */
     @Transactional(readOnly = true)
-    public List<Movie> searchMovies(String keyword) {
-        if (keyword == null || keyword.trim().isEmpty()) {
-            return getAllMovies();
+    public MovieBatchResponse getMoviesBatch(MovieBatchRequest request) {
+        List<String> ids = distinct(request.getIds());
+        List<String> slugs = distinct(request.getSlugs());
+        if (ids.isEmpty() && slugs.isEmpty()) {
+            throw new BadRequestException("Batch request must contain ids or slugs");
+        }
+        if (ids.size() + slugs.size() > batchMaxSize) {
+            throw new BadRequestException("Batch request is limited to " + batchMaxSize + " ids and slugs");
+        }
+        List<Movie> found = movieRepository.findListItemsByIdsOrSlugs(ids, slugs);
+        Map<String, Movie> byId = found.stream().collect(Collectors.toMap(Movie::getId, Function.identity()));
+        Map<String, Movie> bySlug = found.stream().filter(m -> m.getSlug() != null)
+                .collect(Collectors.toMap(Movie::getSlug, Function.identity(), (a, b) -> a));
+
+        Map<String, MovieListItemResponse> movies = new LinkedHashMap<>();
+        List<String> missingIds = new ArrayList<>();
+        for (String id : ids) {
+            Movie m = byId.get(id);
+            if (m != null) movies.putIfAbsent(m.getId(), movieMapper.toListItem(m));
+            else missingIds.add(id);
+        }
+        List<String> missingSlugs = new ArrayList<>();
+        for (String slug : slugs) {
+            Movie m = bySlug.get(slug);
+            if (m != null) movies.putIfAbsent(m.getId(), movieMapper.toListItem(m));
+            else missingSlugs.add(slug);
         }
-        return movieRepository.findByNameContainingIgnoreCaseOrOriginNameContainingIgnoreCase(keyword.trim(),
-                keyword.trim());
+        return MovieBatchResponse.builder()
+                .movies(movies)
+                .missingIds(missingIds)
+                .missingSlugs(missingSlugs)
+                .build();
+    }
+
+    private static List<String> distinct(List<String> values) {
+        if (values == null) return List.of();
+        return values.stream().filter(v -> v != null && !v.isBlank()).map(String::trim).distinct().toList();
     }
 
     @Transactional(readOnly = true)
@@ -107,107 +190,244 @@ public class CatalogService {
     }
 
     @Transactional(readOnly = true)
-    public List<Movie> getTrendingMovies() {
-        return movieRepository.findTop10ByOrderByViewDesc();
+    public List<MovieListItemResponse> getTrendingMovies(TrendingService.Window window, int limit) {
+        return trendingService.getTrending(window, limit);
     }
 
     @Transactional(readOnly = true)
     public List<Movie> getFreeMovies() {
+        if (catalogFilterIndex.isReady()) {
+            return catalogFilterIndex.page(CatalogFilter.accessType(Movie.AccessType.FREE), 0, Integer.MAX_VALUE).items();
+        }
         return movieRepository.findByAccessType(Movie.AccessType.FREE);
     }
 
     @Transactional(readOnly = true)
     public PageResponse<MovieListItemResponse> getMoviesWithFilter(String type, String genreSlug,
                                                                    String countrySlug, Integer year,
-                                                                   String keyword, int page, int size) {
+                                                                   String keyword, int page, int size,
+                                                                   TotalMode totalMode) {
+        if (keyword != null && !keyword.isBlank() && movieSearchIndex.isReady()) {
+            return searchWithFilter(type, genreSlug, countrySlug, year, keyword, page, size);
+        }
+        if ((keyword == null || keyword.isBlank()) && catalogFilterIndex.isReady()) {
+            int limit = Math.min(50, Math.max(1, size));
+            int pageIndex = Math.max(0, page - 1);
+            CatalogFilterIndex.Page result = catalogFilterIndex.page(CatalogFilter.of(type, genreSlug, countrySlug, year),
+                    offset(pageIndex, limit), limit);
+            return toPageResponse(result, pageIndex, limit, totalMode);
+        }
         Pageable pageable = PageRequest.of(Math.max(0, page - 1), Math.min(50, Math.max(1, size)),
-                Sort.by(Sort.Direction.DESC, "updatedAt").nullsLast());
-        Page<Movie> p = movieRepository.findWithFilter(type, genreSlug, countrySlug, year, keyword, pageable);
-        List<MovieListItemResponse> items = p.getContent().stream()
-                .map(movieMapper::toListItem)
-                .collect(Collectors.toList());
-        return PageResponse.<MovieListItemResponse>builder()
-                .items(items)
-                .page(p.getNumber() + 1)
-                .size(p.getSize())
-                .totalItems(p.getTotalElements())
-                .totalPages(p.getTotalPages())
-                .build();
+                Sort.by(Sort.Direction.DESC, "updatedAt", "_id"));
+        Slice<Movie> s = movieRepository.findWithFilter(type, genreSlug, countrySlug, year, keyword,
+                pageable, totalMode);
+        return toPageResponse(s);
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<MovieListItemResponse> getMoviesByGenre(String genreSlug, int page, int size,
+                                                                TotalMode totalMode) {
+        return getMoviesWithFilter(null, genreSlug, null, null, null, page, size, totalMode);
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<MovieListItemResponse> getMoviesByCountry(String countrySlug, int page, int size,
+                                                                  TotalMode totalMode) {
+        return getMoviesWithFilter(null, null, countrySlug, null, null, page, size, totalMode);
     }
 
     @Transactional(readOnly = true)
-    public List<Genre> getAllGenres() {
-        return genreRepository.findAll();
+    public PageResponse<MovieListItemResponse> getMoviesByYear(int year, int page, int size,
+                                                               TotalMode totalMode) {
+        return getMoviesWithFilter(null, null, null, year, null, page, size, totalMode);
     }
 
     @Transactional(readOnly = true)
-    public List<Country> getAllCountries() {
-        return countryRepository.findAll();
+    public PageResponse<MovieListItemResponse> getLatestMovies(int page, int size, TotalMode totalMode) {
+        if (catalogFilterIndex.isReady()) {
+            int limit = Math.min(50, Math.max(1, size));
+            int pageIndex = Math.max(0, page - 1);
+            return toPageResponse(catalogFilterIndex.latest(offset(pageIndex, limit), limit), pageIndex, limit, totalMode);
+        }
+        Pageable pageable = PageRequest.of(Math.max(0, page - 1), Math.min(50, Math.max(1, size)),
+                Sort.by(Sort.Direction.DESC, "_id"));
+        Slice<Movie> s = movieRepository.findWithFilter(null, null, null, null, null, pageable, totalMode);
+        return toPageResponse(s);
     }
 
+    /**
+     * Số phim theo từng giá trị type/genre/country/year dưới filter, tính từ CatalogFilterIndex
+     * (cache theo filter đã chuẩn hóa). Mỗi facet bỏ qua điều kiện của chính nó.
+     */
     @Transactional(readOnly = true)
-    public List<Integer> getDistinctYears() {
-        List<Integer> years = movieRepository.findDistinctYears();
-        if (years == null) return List.of();
-        return years.stream().filter(y -> y != null).sorted((a, b) -> Integer.compare(b, a)).toList();
+    public MovieFacetsResponse getFacets(String type, String genreSlug, String countrySlug, Integer year) {
+        if (!catalogFilterIndex.isReady()) {
+            throw new ServiceUnavailableException("Facet counts are not available yet, retry shortly");
+        }
+        CatalogFilterIndex.FacetCounts counts = catalogFilterIndex.facetCounts(
+                CatalogFilter.of(type, genreSlug, countrySlug, year));
+        return MovieFacetsResponse.builder()
+                .total(counts.total())
+                .types(facetCounts(counts, Facet.TYPE))
+                .genres(facetCounts(counts, Facet.GENRE))
+                .countries(facetCounts(counts, Facet.COUNTRY))
+                .years(facetCounts(counts, Facet.YEAR))
+                .build();
+    }
+
+    private static List<MovieFacetsResponse.FacetCount> facetCounts(CatalogFilterIndex.FacetCounts counts, Facet facet) {
+        return counts.counts().getOrDefault(facet, Map.of()).entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .map(e -> MovieFacetsResponse.FacetCount.builder().value(e.getKey()).count(e.getValue()).build())
+                .toList();
     }
 
+    /**
+     * Phim tương tự (tối đa movie.similar.top-k) theo thể loại, quốc gia, diễn viên, đạo diễn, năm và loại;
+     * danh sách lấy từ SimilarTitlesIndex, list-item từ bộ nhớ nếu filter index sẵn sàng.
+     */
     @Transactional(readOnly = true)
-    public PageResponse<MovieListItemResponse> getMoviesByGenre(String genreSlug, int page, int size) {
-        return getMoviesWithFilter(null, genreSlug, null, null, null, page, size);
+    public List<MovieListItemResponse> getSimilarMovies(String id, int limit) {
+        if (!similarTitlesIndex.isReady()) {
+            throw new ServiceUnavailableException("Similar titles are not available yet, retry shortly");
+        }
+        List<String> neighbours = similarTitlesIndex.neighbours(id).orElse(null);
+        if (neighbours == null) {
+            // phim mới từ replica khác chưa vào index: rỗng thay vì 404
+            if (!movieRepository.existsById(id)) {
+                throw new ResourceNotFoundException("Movie", "id", id);
+            }
+            return List.of();
+        }
+        List<String> ids = neighbours.subList(0, Math.min(neighbours.size(), Math.max(1, limit)));
+        if (catalogFilterIndex.isReady()) {
+            return catalogFilterIndex.retain(ids, CatalogFilter.NONE).stream().map(movieMapper::toListItem).toList();
+        }
+        Map<String, Movie> byId = movieRepository.findListItemsByIds(ids).stream()
+                .collect(Collectors.toMap(Movie::getId, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).map(movieMapper::toListItem).toList();
     }
 
+    /** Gợi ý typeahead theo tiền tố tiêu đề, không truy vấn Mongo. */
     @Transactional(readOnly = true)
-    public PageResponse<MovieListItemResponse> getMoviesByCountry(String countrySlug, int page, int size) {
-        return getMoviesWithFilter(null, null, countrySlug, null, null, page, size);
+    public List<MovieSuggestionResponse> suggest(String prefix, int limit) {
+        return movieSuggestIndex.suggest(prefix, Math.max(1, limit));
+    }
+
+    /**
+     * Tìm kiếm qua MovieSearchIndex (xếp theo độ liên quan); filter còn lại và list-item lấy từ
+     * CatalogFilterIndex, hoặc khi index chưa sẵn sàng thì bằng một query $in theo id rồi chỉ load trang hiện tại.
+     */
+    private PageResponse<MovieListItemResponse> searchWithFilter(String type, String genreSlug,
+                                                                 String countrySlug, Integer year,
+                                                                 String keyword, int page, int size) {
+        int limit = Math.min(50, Math.max(1, size));
+        int pageIndex = Math.max(0, page - 1);
+        CatalogFilter filter = CatalogFilter.of(type, genreSlug, countrySlug, year);
+        if (catalogFilterIndex.isReady()) {
+            List<Movie> matched = movieSearchIndex.search(keyword, ids -> catalogFilterIndex.retain(ids, filter));
+            int from = Math.min(matched.size(), offset(pageIndex, limit));
+            List<Movie> pageItems = matched.subList(from, Math.min(matched.size(), from + limit));
+            return toPageResponse(new CatalogFilterIndex.Page(pageItems, matched.size()), pageIndex, limit,
+                    TotalMode.EXACT);
+        }
+        List<String> ranked = filter.isEmpty()
+                ? movieSearchIndex.search(keyword)
+                : movieSearchIndex.search(keyword, ids -> {
+                    if (ids.isEmpty()) return ids;
+                    Set<String> matching = new HashSet<>(movieRepository.filterIds(ids, type, genreSlug, countrySlug, year));
+                    return ids.stream().filter(matching::contains).toList();
+                });
+        int from = Math.min(ranked.size(), offset(pageIndex, limit));
+        List<String> pageIds = ranked.subList(from, Math.min(ranked.size(), from + limit));
+        Map<String, Movie> byId = movieRepository.findListItemsByIds(pageIds).stream()
+                .collect(Collectors.toMap(Movie::getId, Function.identity()));
+        List<MovieListItemResponse> items = pageIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(movieMapper::toListItem)
+                .collect(Collectors.toList());
+        return PageResponse.<MovieListItemResponse>builder()
+                .items(items)
+                .page(pageIndex + 1)
+                .size(limit)
+                .totalItems(ranked.size())
+                .totalPages((ranked.size() + limit - 1) / limit)
+                .hasNext(from + limit < ranked.size())
+                .build();
     }
 
+    /**
+     * Cursor mode của getMoviesWithFilter: cursor rỗng = trang đầu, nextCursor của response dùng cho trang sau.
+     */
     @Transactional(readOnly = true)
-    public PageResponse<MovieListItemResponse> getMoviesByYear(int year, int page, int size) {
-        return getMoviesWithFilter(null, null, null, year, null, page, size);
+    public PageResponse<MovieListItemResponse> getMoviesWithFilterAfter(String type, String genreSlug,
+                                                                        String countrySlug, Integer year,
+                                                                        String keyword, String cursor, int size) {
+        int limit = Math.min(50, Math.max(1, size));
+        Keyset after = CatalogCursor.decodeKeyset(cursor);
+        List<Movie> movies = (keyword == null || keyword.isBlank()) && catalogFilterIndex.isReady()
+                ? catalogFilterIndex.after(CatalogFilter.of(type, genreSlug, countrySlug, year), after, limit + 1)
+                : movieRepository.findWithFilterAfter(type, genreSlug, countrySlug, year, keyword, after, limit + 1);
+        return toCursorResponse(movies, limit,
+                last -> CatalogCursor.encodeKeyset(new Keyset(last.getUpdatedAt(), last.getId())));
     }
 
+    /** Cursor mode của getLatestMovies (thứ tự _id desc). */
     @Transactional(readOnly = true)
-    public PageResponse<MovieListItemResponse> getLatestMovies(int page, int size) {
-        Pageable pageable = PageRequest.of(Math.max(0, page - 1), Math.min(50, Math.max(1, size)),
-                Sort.by(Sort.Direction.DESC, "_id"));
-        Page<Movie> p = movieRepository.findAll(pageable);
-        List<MovieListItemResponse> items = p.getContent().stream()
+    public PageResponse<MovieListItemResponse> getLatestMoviesAfter(String cursor, int size) {
+        int limit = Math.min(50, Math.max(1, size));
+        String afterId = CatalogCursor.decodeId(cursor);
+        List<Movie> movies = catalogFilterIndex.isReady()
+                ? catalogFilterIndex.latestAfter(afterId, limit + 1)
+                : movieRepository.findLatestAfter(afterId, limit + 1);
+        return toCursorResponse(movies, limit, last -> CatalogCursor.encodeId(last.getId()));
+    }
+
+    private PageResponse<MovieListItemResponse> toCursorResponse(List<Movie> movies, int limit,
+                                                                 Function<Movie, String> cursorOf) {
+        boolean hasNext = movies.size() > limit;
+        List<Movie> page = hasNext ? movies.subList(0, limit) : movies;
+        return PageResponse.<MovieListItemResponse>builder()
+                .items(page.stream().map(movieMapper::toListItem).collect(Collectors.toList()))
+                .size(limit)
+                .totalItems(-1)
+                .totalPages(-1)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? cursorOf.apply(page.get(page.size() - 1)) : null)
+                .build();
+    }
+
+    /** totalItems/totalPages = -1 khi không đếm tổng (total=none). */
+    private PageResponse<MovieListItemResponse> toPageResponse(Slice<Movie> s) {
+        List<MovieListItemResponse> items = s.getContent().stream()
                 .map(movieMapper::toListItem)
                 .collect(Collectors.toList());
         return PageResponse.<MovieListItemResponse>builder()
                 .items(items)
-                .page(p.getNumber() + 1)
-                .size(p.getSize())
-                .totalItems(p.getTotalElements())
-                .totalPages(p.getTotalPages())
+                .page(s.getNumber() + 1)
+                .size(s.getSize())
+                .totalItems(s instanceof Page<Movie> p ? p.getTotalElements() : -1)
+                .totalPages(s instanceof Page<Movie> p ? p.getTotalPages() : -1)
+                .hasNext(s.hasNext())
+                .build();
+    }
+
+    /** Trang từ CatalogFilterIndex: tổng luôn chính xác và miễn phí, vẫn trả -1 khi total=none. */
+    private PageResponse<MovieListItemResponse> toPageResponse(CatalogFilterIndex.Page result, int pageIndex,
+                                                               int limit, TotalMode totalMode) {
+        boolean counted = totalMode != TotalMode.NONE;
+        return PageResponse.<MovieListItemResponse>builder()
+                .items(result.items().stream().map(movieMapper::toListItem).collect(Collectors.toList()))
+                .page(pageIndex + 1)
+                .size(limit)
+                .totalItems(counted ? result.total() : -1)
+                .totalPages(counted ? (result.total() + limit - 1) / limit : -1)
+                .hasNext((long) (pageIndex + 1) * limit < result.total())
                 .build();
     }
 
-    private Movie mapToEntity(MovieRequest request, Movie movie) {
-        movie.setName(request.getName());
-        movie.setOriginName(request.getOriginName());
-        movie.setSlug(request.getSlug());
-        movie.setContent(request.getContent());
-        movie.setPosterUrl(request.getPosterUrl());
-        movie.setThumbUrl(request.getThumbUrl());
-        movie.setTrailerUrl(request.getTrailerUrl());
-        movie.setType(request.getType());
-        movie.setStatus(request.getStatus());
-        movie.setQuality(request.getQuality());
-        movie.setLang(request.getLang());
-        movie.setYear(request.getYear());
-        movie.setTime(request.getTime());
-        movie.setEpisodeCurrent(request.getEpisodeCurrent());
-        movie.setEpisodeTotal(request.getEpisodeTotal());
-        movie.setPrice(request.getPrice() != null ? request.getPrice() : BigDecimal.ZERO);
-        movie.setTmdbRating(request.getTmdbRating());
-        movie.setImdbRating(request.getImdbRating());
-
-        if (request.getAccessType() != null) {
-            movie.setAccessType(request.getAccessType());
-        }
-
-        return movie;
+    private static int offset(int pageIndex, int limit) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) pageIndex * limit);
     }
 }
@@ -0,0 +1,285 @@
+package com.nozie.movieservice.catalog.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.nozie.common.exception.BadRequestException;
+import com.nozie.movieservice.common.dto.MovieBulkResponse;
+import com.nozie.movieservice.common.dto.MovieRequest;
+import com.nozie.movieservice.common.event.MovieChangedEvent;
+import com.nozie.movieservice.common.model.Movie;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Tạo / cập nhật nhiều phim trong một request (POST /api/movies/bulk): đọc JSON array hoặc NDJSON theo luồng,
+ * validate song song, một query $in cho mọi slug rồi một bulkWrite unordered. Slug đã có → cập nhật như
+ * PUT /api/movies/{id} (hoặc lỗi khi upsert=false); lỗi của một phần tử không chặn các phần tử khác.
+ */
+@Service
+@Slf4j
+public class MovieBulkService {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private final MongoTemplate mongoTemplate;
+    private final MovieMapper movieMapper;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxItems;
+
+    public MovieBulkService(MongoTemplate mongoTemplate, MovieMapper movieMapper, Validator validator,
+                            ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher,
+                            @Value("${movie.bulk.max-items:10000}") int maxItems) {
+        this.mongoTemplate = mongoTemplate;
+        this.movieMapper = movieMapper;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.maxItems = maxItems;
+    }
+
+    /** Một phần tử của request: request null khi dòng NDJSON không parse được (error là lý do). */
+    record Item(int index, MovieRequest request, String error) {
+
+        Item withError(String message) {
+            return new Item(index, request, message);
+        }
+    }
+
+    public MovieBulkResponse upsert(InputStream body, boolean ndjson, boolean upsert) throws IOException {
+        List<Item> items = validate(read(body, ndjson));
+        if (items.isEmpty()) {
+            throw new BadRequestException("Bulk request must contain at least one movie");
+        }
+        items = rejectDuplicateSlugs(items);
+
+        List<String> slugs = items.stream().filter(i -> i.error() == null).map(i -> i.request().getSlug()).toList();
+        Map<String, String> existing = existingIdsBySlug(slugs);
+
+        MovieBulkResponse.ItemResult[] results = new MovieBulkResponse.ItemResult[items.size()];
+        List<Integer> written = new ArrayList<>();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Movie.class);
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            String slug = item.request() != null ? item.request().getSlug() : null;
+            if (item.error() != null) {
+                results[i] = failed(item, slug, item.error());
+                continue;
+            }
+            String id = existing.get(slug);
+            if (id != null && !upsert) {
+                results[i] = failed(item, slug, "Movie with slug '" + slug + "' already exists");
+                continue;
+            }
+            if (id != null) {
+                ops.updateOne(Query.query(Criteria.where("_id").is(id)), toUpdate(item.request()));
+                results[i] = result(item, slug, MovieBulkResponse.Status.UPDATED, id);
+            } else {
+                String newId = new ObjectId().toHexString();
+                ops.upsert(Query.query(Criteria.where("_id").is(newId)), toInsert(movieMapper.toNewEntity(item.request())));
+                results[i] = result(item, slug, MovieBulkResponse.Status.CREATED, newId);
+            }
+            written.add(i);
+        }
+
+        if (!written.isEmpty()) {
+            try {
+                ops.execute();
+            } catch (BulkOperationException ex) {
+                // index của lỗi là thứ tự thao tác trong bulk, tức vị trí trong written
+                for (BulkWriteError error : ex.getErrors()) {
+                    int i = written.get(error.getIndex());
+                    results[i] = failed(items.get(i), results[i].getSlug(), error.getMessage());
+                }
+            }
+        }
+        publishChanges(results);
+
+        List<MovieBulkResponse.ItemResult> list = List.of(results);
+        return MovieBulkResponse.builder()
+                .total(list.size())
+                .created(count(list, MovieBulkResponse.Status.CREATED))
+                .updated(count(list, MovieBulkResponse.Status.UPDATED))
+                .failed(count(list, MovieBulkResponse.Status.FAILED))
+                .results(list)
+                .build();
+    }
+
+    /** Đọc phần tử từ body: JSON array (hoặc một object), hoặc NDJSON mỗi dòng một MovieRequest. */
+    List<Item> read(InputStream body, boolean ndjson) throws IOException {
+        List<Item> items = new ArrayList<>();
+        if (ndjson) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                checkLimit(items.size());
+                try {
+                    items.add(new Item(items.size(), objectMapper.readValue(line, MovieRequest.class), null));
+                } catch (JsonProcessingException ex) {
+                    items.add(new Item(items.size(), null, "Invalid JSON: " + ex.getOriginalMessage()));
+                }
+            }
+            return items;
+        }
+        try (MappingIterator<MovieRequest> it = objectMapper.readerFor(MovieRequest.class).readValues(body)) {
+            while (it.hasNextValue()) {
+                checkLimit(items.size());
+                items.add(new Item(items.size(), it.nextValue(), null));
+            }
+        } catch (JsonProcessingException ex) {
+            throw new BadRequestException("Invalid JSON body: " + ex.getOriginalMessage());
+        }
+        return items;
+    }
+
+    /** Chạy Bean Validation (như @Valid của POST /api/movies) song song trên các phần tử. */
+    List<Item> validate(List<Item> items) {
+        return IntStream.range(0, items.size()).parallel()
+                .mapToObj(i -> {
+                    Item item = items.get(i);
+                    if (item.error() != null) return item;
+                    if (item.request() == null) return item.withError("Movie must not be null");
+                    String violations = validator.validate(item.request()).stream()
+                            .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                            .sorted()
+                            .collect(Collectors.joining("; "));
+                    return violations.isEmpty() ? item : item.withError(violations);
+                })
+                .toList();
+    }
+
+    /** Slug lặp lại trong cùng request: giữ lần đầu, các lần sau lỗi. */
+    static List<Item> rejectDuplicateSlugs(List<Item> items) {
+        Map<String, Integer> firstIndex = new HashMap<>();
+        List<Item> checked = new ArrayList<>(items.size());
+        for (Item item : items) {
+            if (item.error() == null) {
+                Integer first = firstIndex.putIfAbsent(item.request().getSlug(), item.index());
+                if (first != null) {
+                    item = item.withError("Duplicate slug '" + item.request().getSlug() + "' (also at index " + first + ")");
+                }
+            }
+            checked.add(item);
+        }
+        return checked;
+    }
+
+    private void checkLimit(int size) {
+        if (size >= maxItems) {
+            throw new BadRequestException("Bulk request is limited to " + maxItems + " movies");
+        }
+    }
+
+    /** slug → id của các phim đã có, một query $in. */
+    private Map<String, String> existingIdsBySlug(List<String> slugs) {
+        if (slugs.isEmpty()) return Map.of();
+        Query q = Query.query(Criteria.where("slug").in(slugs));
+        q.fields().include("slug");
+        return mongoTemplate.find(q, Movie.class).stream()
+                .collect(Collectors.toMap(Movie::getSlug, Movie::getId, (a, b) -> a));
+    }
+
+    /**
+     * Cùng các trường mà PUT /api/movies/{id} ghi đè (MovieMapper.toEntity); view, servers, ... giữ nguyên.
+     * updatedAt lấy giờ Mongo lúc lệnh được ghi ($currentDate): bulkWrite lớn có thể chạy lâu hơn cửa sổ
+     * movie.changes.settle-ms, giờ lấy trước khi ghi sẽ làm feed /changes bỏ sót phim.
+     */
+    private Update toUpdate(MovieRequest request) {
+        Movie m = movieMapper.toEntity(request, new Movie());
+        Update update = new Update()
+                .set("name", m.getName())
+                .set("originName", m.getOriginName())
+                .set("slug", m.getSlug())
+                .set("content", m.getContent())
+                .set("posterUrl", m.getPosterUrl())
+                .set("thumbUrl", m.getThumbUrl())
+                .set("trailerUrl", m.getTrailerUrl())
+                .set("type", m.getType())
+                .set("status", m.getStatus())
+                .set("quality", m.getQuality())
+                .set("lang", m.getLang())
+                .set("year", m.getYear())
+                .set("time", m.getTime())
+                .set("episodeCurrent", m.getEpisodeCurrent())
+                .set("episodeTotal", m.getEpisodeTotal())
+                .set("price", m.getPrice())
+                .set("tmdbRating", m.getTmdbRating())
+                .set("imdbRating", m.getImdbRating())
+                .currentDate("updatedAt");
+        if (request.getAccessType() != null) {
+            update.set("accessType", request.getAccessType());
+        }
+        return update;
+    }
+
+    /**
+     * Phim mới ghi bằng upsert theo _id vừa sinh (luôn là lệnh chèn) thay cho insert, để createdAt / updatedAt
+     * cũng lấy giờ Mongo lúc ghi ($currentDate không dùng được với insert).
+     */
+    private Update toInsert(Movie movie) {
+        Document doc = new Document();
+        mongoTemplate.getConverter().write(movie, doc);
+        Update update = new Update();
+        doc.forEach((field, value) -> {
+            if (!"_id".equals(field) && !"createdAt".equals(field) && !"updatedAt".equals(field)) {
+                update.setOnInsert(field, value);
+            }
+        });
+        return update.currentDate("createdAt").currentDate("updatedAt");
+    }
+
+    /**
+     * Cache chi tiết và các index trong bộ nhớ cập nhật như khi tạo / sửa từng phim; đọc lại phim đã ghi (một
+     * query $in) để sự kiện mang createdAt / updatedAt thật.
+     */
+    private void publishChanges(MovieBulkResponse.ItemResult[] results) {
+        Map<String, MovieBulkResponse.Status> written = new HashMap<>();
+        for (MovieBulkResponse.ItemResult r : results) {
+            if (r.getStatus() != MovieBulkResponse.Status.FAILED) written.put(r.getId(), r.getStatus());
+        }
+        if (written.isEmpty()) return;
+        mongoTemplate.find(Query.query(Criteria.where("_id").in(written.keySet())), Movie.class)
+                .forEach(movie -> eventPublisher.publishEvent(written.get(movie.getId()) == MovieBulkResponse.Status.CREATED
+                        ? MovieChangedEvent.created(movie) : MovieChangedEvent.updated(movie)));
+    }
+
+    private static MovieBulkResponse.ItemResult result(Item item, String slug, MovieBulkResponse.Status status, String id) {
+        return MovieBulkResponse.ItemResult.builder().index(item.index()).slug(slug).status(status).id(id).build();
+    }
+
+    private static MovieBulkResponse.ItemResult failed(Item item, String slug, String error) {
+        return MovieBulkResponse.ItemResult.builder().index(item.index()).slug(slug)
+                .status(MovieBulkResponse.Status.FAILED).error(error).build();
+    }
+
+    private static int count(List<MovieBulkResponse.ItemResult> results, MovieBulkResponse.Status status) {
+        return (int) results.stream().filter(r -> r.getStatus() == status).count();
+    }
+}
@@ -0,0 +1,105 @@
+package com.nozie.movieservice.catalog.service;
+
+import com.nozie.movieservice.common.dto.MovieChangesResponse;
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.model.MovieTombstone;
+import com.nozie.movieservice.common.repository.Keyset;
+import com.nozie.movieservice.common.repository.MovieRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feed thay đổi cho client có cache cục bộ (GET /api/movies/changes): phim tạo / sửa theo updatedAt và phim
+ * xóa theo tombstone, trộn theo token (thời điểm, id) tăng dần. Chỉ trả thay đổi cũ hơn movie.changes.settle-ms
+ * để ghi đang dở (hoặc lệch đồng hồ giữa các replica) không bị token vượt qua.
+ */
+@Service
+public class MovieChangesService {
+
+    private final MovieRepository movieRepository;
+    private final MovieMapper movieMapper;
+    private final long settleMs;
+    private final int maxLimit;
+
+    public MovieChangesService(MovieRepository movieRepository, MovieMapper movieMapper,
+                               @Value("${movie.changes.settle-ms:2000}") long settleMs,
+                               @Value("${movie.changes.max-limit:500}") int maxLimit) {
+        this.movieRepository = movieRepository;
+        this.movieMapper = movieMapper;
+        this.settleMs = settleMs;
+        this.maxLimit = maxLimit;
+    }
+
+    /** since null/rỗng = từ đầu (chỉ phim hiện có, không kèm phim đã xóa). */
+    public MovieChangesResponse changesSince(String since, int limit) {
+        int size = Math.min(maxLimit, Math.max(1, limit));
+        Keyset after = CatalogCursor.decodeChange(since);
+        LocalDateTime now = LocalDateTime.now();
+        if (after != null && after.getUpdatedAt().isBefore(now.minus(MovieTombstone.RETENTION))) {
+            // tombstone cũ hơn token đã hết hạn, không còn biết phim nào bị xóa
+            return MovieChangesResponse.builder().changes(List.of()).resync(true).build();
+        }
+        LocalDateTime before = now.minusNanos(settleMs * 1_000_000);
+        List<Movie> changed = movieRepository.findChangedAfter(after, before, size + 1);
+        List<MovieTombstone> deleted = after != null
+                ? movieRepository.findDeletedAfter(after, before, size + 1)
+                : List.of();
+        return merge(changed, deleted, after, before, size);
+    }
+
+    /**
+     * Trộn hai danh sách đã xếp theo (thời điểm, id) tăng dần, lấy tối đa limit thay đổi. Trang rỗng trả token
+     * tại mốc cắt before để client đang rảnh không giữ mãi token cũ rồi bị resync.
+     */
+    MovieChangesResponse merge(List<Movie> changed, List<MovieTombstone> deleted, Keyset after,
+                               LocalDateTime before, int limit) {
+        List<MovieChangesResponse.Change> changes = new ArrayList<>(Math.min(limit, changed.size() + deleted.size()));
+        int i = 0;
+        int j = 0;
+        while (changes.size() < limit && (i < changed.size() || j < deleted.size())) {
+            boolean takeMovie = j >= deleted.size() || (i < changed.size()
+                    && compare(changed.get(i).getUpdatedAt(), changed.get(i).getId(),
+                    deleted.get(j).getDeletedAt(), deleted.get(j).getId()) <= 0);
+            changes.add(takeMovie ? upserted(changed.get(i++), after) : removed(deleted.get(j++)));
+        }
+        String nextToken = changes.isEmpty()
+                ? CatalogCursor.encodeChange(before.truncatedTo(ChronoUnit.MILLIS), "")
+                : CatalogCursor.encodeChange(changes.get(changes.size() - 1).getChangedAt(),
+                changes.get(changes.size() - 1).getId());
+        return MovieChangesResponse.builder()
+                .changes(changes)
+                .nextToken(nextToken)
+                .hasMore(i < changed.size() || j < deleted.size())
+                .build();
+    }
+
+    /** CREATED nếu phim được tạo sau token của client, ngược lại UPDATED. */
+    private MovieChangesResponse.Change upserted(Movie movie, Keyset after) {
+        boolean created = after == null
+                || (movie.getCreatedAt() != null && movie.getCreatedAt().isAfter(after.getUpdatedAt()));
+        return MovieChangesResponse.Change.builder()
+                .type(created ? MovieChangesResponse.Type.CREATED : MovieChangesResponse.Type.UPDATED)
+                .id(movie.getId())
+                .changedAt(movie.getUpdatedAt())
+                .movie(movieMapper.toListItem(movie))
+                .build();
+    }
+
+    private static MovieChangesResponse.Change removed(MovieTombstone tombstone) {
+        return MovieChangesResponse.Change.builder()
+                .type(MovieChangesResponse.Type.DELETED)
+                .id(tombstone.getId())
+                .changedAt(tombstone.getDeletedAt())
+                .build();
+    }
+
+    private static int compare(LocalDateTime t1, String id1, LocalDateTime t2, String id2) {
+        int c = t1.compareTo(t2);
+        return c != 0 ? c : id1.compareTo(id2);
+    }
+}
@@ -0,0 +1,93 @@
+package com.nozie.movieservice.catalog.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.nozie.common.exception.BadRequestException;
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.repository.MovieRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Export toàn bộ catalog (GET /api/movies/export) dạng NDJSON - mỗi dòng một MovieResponse. Đọc qua cursor
+ * Mongo theo từng batch và ghi thẳng ra response: bộ nhớ không phụ thuộc kích thước catalog, client đọc chậm
+ * thì write chặn và cursor cũng dừng lấy batch mới.
+ */
+@Service
+@Slf4j
+public class MovieExportService {
+
+    private final MovieRepository movieRepository;
+    private final MovieMapper movieMapper;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final int batchSize;
+
+    public MovieExportService(MovieRepository movieRepository, MovieMapper movieMapper, ObjectMapper objectMapper,
+                              @Value("${movie.export.batch-size:500}") int batchSize) {
+        this.movieRepository = movieRepository;
+        this.movieMapper = movieMapper;
+        this.objectMapper = objectMapper;
+        // flush sau mỗi phim sẽ đẩy từng chunk nhỏ ra socket; để buffer của generator/servlet tự flush
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.batchSize = batchSize;
+    }
+
+    /** Ghi các phim (chỉ fields nếu khác null, chỉ updatedAt >= since nếu khác null) vào out; trả số phim. */
+    public long export(OutputStream out, Set<String> fields, LocalDateTime since) throws IOException {
+        long started = System.nanoTime();
+        long count;
+        try (Stream<Movie> movies = movieRepository.streamForExport(since, fields, batchSize)) {
+            count = write(movies, out, fields);
+        }
+        log.info("Exported {} movies (since={}, fields={}) in {} ms", count, since, fields,
+                (System.nanoTime() - started) / 1_000_000);
+        return count;
+    }
+
+    long write(Stream<Movie> movies, OutputStream out, Set<String> fields) throws IOException {
+        long count = 0;
+        try (JsonGenerator gen = objectMapper.createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Mặc định Jackson chèn dấu cách giữa các giá trị gốc; dòng mới do mình tự ghi
+            gen.setRootValueSeparator(null);
+            Iterator<Movie> it = movies.iterator();
+            while (it.hasNext()) {
+                Movie movie = it.next();
+                writer.writeValue(gen, fields == null ? movieMapper.toResponse(movie) : movieMapper.toResponse(movie, fields));
+                gen.writeRaw('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** since: ISO instant/offset (2024-05-01T00:00:00Z), giờ địa phương (2024-05-01T07:00:00) hoặc ngày (2024-05-01). */
+    public static LocalDateTime parseSince(String since) {
+        if (since == null || since.isBlank()) return null;
+        String value = since.trim();
+        try {
+            if (value.length() == 10) return LocalDate.parse(value).atStartOfDay();
+            if (value.endsWith("Z") || value.matches(".*[+-]\\d{2}:\\d{2}$")) {
+                return OffsetDateTime.parse(value).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            }
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException ex) {
+            throw new BadRequestException("Invalid since '" + since + "', expected an ISO-8601 date or timestamp");
+        }
+    }
+}
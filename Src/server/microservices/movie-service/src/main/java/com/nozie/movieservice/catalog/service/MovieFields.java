@@ -0,0 +1,83 @@
+package com.nozie.movieservice.catalog.service;
+
+import com.nozie.common.exception.BadRequestException;
+import com.nozie.movieservice.common.dto.MovieResponse;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Sparse fieldset cho chi tiết phim: fields= (chỉ lấy các trường này) / exclude= (bỏ các trường này).
+ * Tên trường là tên thuộc tính của MovieResponse, trùng tên field trong document Mongo nên dùng thẳng
+ * làm projection. id luôn được trả về.
+ */
+public final class MovieFields {
+
+    static final Map<String, Function<MovieResponse, Object>> GETTERS = new LinkedHashMap<>();
+
+    static {
+        GETTERS.put("id", MovieResponse::getId);
+        GETTERS.put("externalId", MovieResponse::getExternalId);
+        GETTERS.put("name", MovieResponse::getName);
+        GETTERS.put("originName", MovieResponse::getOriginName);
+        GETTERS.put("slug", MovieResponse::getSlug);
+        GETTERS.put("content", MovieResponse::getContent);
+        GETTERS.put("thumbUrl", MovieResponse::getThumbUrl);
+        GETTERS.put("posterUrl", MovieResponse::getPosterUrl);
+        GETTERS.put("trailerUrl", MovieResponse::getTrailerUrl);
+        GETTERS.put("type", MovieResponse::getType);
+        GETTERS.put("status", MovieResponse::getStatus);
+        GETTERS.put("quality", MovieResponse::getQuality);
+        GETTERS.put("lang", MovieResponse::getLang);
+        GETTERS.put("year", MovieResponse::getYear);
+        GETTERS.put("view", MovieResponse::getView);
+        GETTERS.put("time", MovieResponse::getTime);
+        GETTERS.put("episodeCurrent", MovieResponse::getEpisodeCurrent);
+        GETTERS.put("episodeTotal", MovieResponse::getEpisodeTotal);
+        GETTERS.put("price", MovieResponse::getPrice);
+        GETTERS.put("accessType", MovieResponse::getAccessType);
+        GETTERS.put("tmdbRating", MovieResponse::getTmdbRating);
+        GETTERS.put("imdbRating", MovieResponse::getImdbRating);
+        GETTERS.put("category", MovieResponse::getCategory);
+        GETTERS.put("country", MovieResponse::getCountry);
+        GETTERS.put("alternativeNames", MovieResponse::getAlternativeNames);
+        GETTERS.put("actor", MovieResponse::getActor);
+        GETTERS.put("director", MovieResponse::getDirector);
+        GETTERS.put("servers", MovieResponse::getServers);
+        GETTERS.put("customHlsUrl", MovieResponse::getCustomHlsUrl);
+        GETTERS.put("customHlsSource", MovieResponse::getCustomHlsSource);
+        GETTERS.put("updatedAt", MovieResponse::getUpdatedAt);
+    }
+
+    private MovieFields() {
+    }
+
+    /** null nếu không có fields/exclude (trả đầy đủ); ngược lại tập trường cần trả, luôn gồm id. */
+    public static Set<String> parse(String fields, String exclude) {
+        boolean hasFields = fields != null && !fields.isBlank();
+        boolean hasExclude = exclude != null && !exclude.isBlank();
+        if (!hasFields && !hasExclude) return null;
+        Set<String> selected = new LinkedHashSet<>(hasFields ? names(fields) : GETTERS.keySet());
+        if (hasExclude) selected.removeAll(names(exclude));
+        selected.add("id");
+        return Collections.unmodifiableSet(selected);
+    }
+
+    private static Set<String> names(String csv) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String raw : csv.split(",")) {
+            String name = raw.trim();
+            if (name.isEmpty()) continue;
+            if (!GETTERS.containsKey(name)) {
+                throw new BadRequestException("Unknown movie field '" + name + "', expected one of "
+                        + String.join(", ", GETTERS.keySet()));
+            }
+            names.add(name);
+        }
+        return names;
+    }
+}
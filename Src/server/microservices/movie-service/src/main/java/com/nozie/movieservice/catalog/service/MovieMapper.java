@@ -1,10 +1,16 @@
 package com.nozie.movieservice.catalog.service;
 
 import com.nozie.movieservice.common.dto.MovieListItemResponse;
+import com.nozie.movieservice.common.dto.MovieRequest;
 import com.nozie.movieservice.common.dto.MovieResponse;
 import com.nozie.movieservice.common.model.Movie;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
 @Component
 public class MovieMapper {
 
@@ -28,10 +34,22 @@ public class MovieMapper {
                 .imdbRating(m.getImdbRating())
                 .category(m.getCategory())
                 .country(m.getCountry())
+                .price(m.getPrice())
                 .accessType(m.getAccessType() != null ? m.getAccessType().name() : null)
                 .build();
     }
 
+    /** Chỉ các trường trong fields (xem {@link MovieFields}), giữ thứ tự của MovieResponse. */
+    public Map<String, Object> toResponse(Movie m, Set<String> fields) {
+        if (m == null) return null;
+        MovieResponse full = toResponse(m);
+        Map<String, Object> sparse = new LinkedHashMap<>();
+        MovieFields.GETTERS.forEach((name, getter) -> {
+            if (fields.contains(name)) sparse.put(name, getter.apply(full));
+        });
+        return sparse;
+    }
+
     public MovieResponse toResponse(Movie m) {
         if (m == null) return null;
         return MovieResponse.builder()
@@ -62,9 +80,51 @@ public class MovieMapper {
                 .alternativeNames(m.getAlternativeNames())
                 .actor(m.getActor())
                 .director(m.getDirector())
-                .episodes(m.getEpisodes())
+                .servers(m.getServers())
                 .customHlsUrl(m.getCustomHlsUrl())
                 .customHlsSource(m.getCustomHlsSource())
+                .updatedAt(m.getUpdatedAt())
                 .build();
     }
+
+    /** Phim mới từ request; không truyền accessType thì RENTAL nếu có giá, ngược lại FREE. */
+    public Movie toNewEntity(MovieRequest request) {
+        Movie movie = toEntity(request, new Movie());
+        if (movie.getAccessType() == null) {
+            if (movie.getPrice() != null && movie.getPrice().compareTo(BigDecimal.ZERO) > 0) {
+                movie.setAccessType(Movie.AccessType.RENTAL);
+            } else {
+                movie.setAccessType(Movie.AccessType.FREE);
+            }
+        }
+        return movie;
+    }
+
+    /** Ghi các trường của request vào movie (tạo mới hoặc PUT ghi đè toàn bộ); accessType chỉ đổi khi có. */
+    public Movie toEntity(MovieRequest request, Movie movie) {
+        movie.setName(request.getName());
+        movie.setOriginName(request.getOriginName());
+        movie.setSlug(request.getSlug());
+        movie.setContent(request.getContent());
+        movie.setPosterUrl(request.getPosterUrl());
+        movie.setThumbUrl(request.getThumbUrl());
+        movie.setTrailerUrl(request.getTrailerUrl());
+        movie.setType(request.getType());
+        movie.setStatus(request.getStatus());
+        movie.setQuality(request.getQuality());
+        movie.setLang(request.getLang());
+        movie.setYear(request.getYear());
+        movie.setTime(request.getTime());
+        movie.setEpisodeCurrent(request.getEpisodeCurrent());
+        movie.setEpisodeTotal(request.getEpisodeTotal());
+        movie.setPrice(request.getPrice() != null ? request.getPrice() : BigDecimal.ZERO);
+        movie.setTmdbRating(request.getTmdbRating());
+        movie.setImdbRating(request.getImdbRating());
+
+        if (request.getAccessType() != null) {
+            movie.setAccessType(request.getAccessType());
+        }
+
+        return movie;
+    }
 }
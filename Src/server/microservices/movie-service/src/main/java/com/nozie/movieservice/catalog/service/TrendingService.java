@@ -0,0 +1,157 @@
+package com.nozie.movieservice.catalog.service;
+
+import com.nozie.common.exception.BadRequestException;
+import com.nozie.movieservice.common.dto.MovieListItemResponse;
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.repository.MovieRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bảng xếp hạng thịnh hành theo lượt xem gần đây thay vì lượt xem trọn đời.
+ * <p>
+ * Lượt xem (từ StreamingService) được đếm vào bucket theo giờ (vòng 168 giờ). Định kỳ, điểm của mỗi
+ * cửa sổ (hour/day/week) = tổng số đếm các bucket nhân hệ số suy giảm mũ theo tuổi bucket; top-N của từng
+ * cửa sổ được tính sẵn kèm list-item nên /api/movies/trending chỉ đọc một tham chiếu trong bộ nhớ.
+ * Mỗi replica xếp hạng theo phần lưu lượng nó nhận; khi chưa có dữ liệu (vừa khởi động) dùng lượt xem trọn đời.
+ */
+@Service
+@Slf4j
+public class TrendingService {
+
+    private static final long HOUR_MS = 3_600_000L;
+    private static final int SLOTS = 168;
+
+    private final MovieRepository movieRepository;
+    private final MovieMapper movieMapper;
+    private final Clock clock = Clock.systemUTC();
+    private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(SLOTS);
+    private volatile Map<Window, List<MovieListItemResponse>> leaderboards = new EnumMap<>(Window.class);
+
+    @Value("${movie.trending.top-n:50}")
+    private int topN;
+
+    public TrendingService(MovieRepository movieRepository, MovieMapper movieMapper) {
+        this.movieRepository = movieRepository;
+        this.movieMapper = movieMapper;
+    }
+
+    /** Ghi nhận một lượt xem vào bucket giờ hiện tại. */
+    public void record(String movieId) {
+        long hour = clock.millis() / HOUR_MS;
+        bucketFor(hour).counts.computeIfAbsent(movieId, id -> new LongAdder()).increment();
+    }
+
+    /** Top phim thịnh hành của cửa sổ, đọc từ bảng đã tính sẵn. */
+    public List<MovieListItemResponse> getTrending(Window window, int limit) {
+        List<MovieListItemResponse> board = leaderboards.get(window);
+        if (board == null) {
+            board = lifetimeTop();
+        }
+        return board.subList(0, Math.min(Math.max(1, limit), board.size()));
+    }
+
+    @Scheduled(fixedDelayString = "${movie.trending.recompute-interval-ms:60000}")
+    public void recompute() {
+        Map<Window, List<MovieListItemResponse>> fresh = new EnumMap<>(Window.class);
+        List<MovieListItemResponse> fallback = null;
+        for (Window window : Window.values()) {
+            List<String> ids = topIds(window);
+            if (ids.isEmpty()) {
+                fallback = fallback != null ? fallback : lifetimeTop();
+                fresh.put(window, fallback);
+                continue;
+            }
+            Map<String, Movie> byId = movieRepository.findListItemsByIds(ids).stream()
+                    .collect(Collectors.toMap(Movie::getId, Function.identity()));
+            fresh.put(window, ids.stream()
+                    .map(byId::get)
+                    .filter(Objects::nonNull)
+                    .map(movieMapper::toListItem)
+                    .toList());
+        }
+        leaderboards = fresh;
+        log.debug("Trending leaderboards recomputed: {}", fresh.keySet());
+    }
+
+    private List<MovieListItemResponse> lifetimeTop() {
+        return movieRepository.findTop10ByOrderByViewDesc().stream().map(movieMapper::toListItem).toList();
+    }
+
+    /** Id top-N của cửa sổ theo điểm đã suy giảm. */
+    private List<String> topIds(Window window) {
+        long now = clock.millis();
+        long currentHour = now / HOUR_MS;
+        Map<String, Double> scores = new HashMap<>();
+        for (int age = 0; age < window.hours; age++) {
+            long hour = currentHour - age;
+            Bucket bucket = buckets.get(Math.floorMod(hour, SLOTS));
+            if (bucket == null || bucket.hour != hour) continue;
+            // Tuổi tính từ giữa bucket (bucket hiện tại: giữa đầu giờ và bây giờ)
+            double mid = age == 0 ? (hour * HOUR_MS + now) / 2.0 : (hour + 0.5) * HOUR_MS;
+            double weight = Math.pow(0.5, (now - mid) / window.halfLifeMs);
+            bucket.counts.forEach((id, count) -> scores.merge(id, count.sum() * weight, Double::sum));
+        }
+        List<Map.Entry<String, Double>> entries = new ArrayList<>(scores.entrySet());
+        entries.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        return entries.stream().limit(topN).map(Map.Entry::getKey).toList();
+    }
+
+    private Bucket bucketFor(long hour) {
+        int slot = Math.floorMod(hour, SLOTS);
+        Bucket bucket = buckets.get(slot);
+        while (bucket == null || bucket.hour < hour) {
+            Bucket fresh = new Bucket(hour);
+            if (buckets.compareAndSet(slot, bucket, fresh)) return fresh;
+            bucket = buckets.get(slot);
+        }
+        return bucket;
+    }
+
+    private static final class Bucket {
+        final long hour;
+        final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+        Bucket(long hour) {
+            this.hour = hour;
+        }
+    }
+
+    /** Cửa sổ xếp hạng: số bucket giờ được tính và chu kỳ bán rã của trọng số. */
+    public enum Window {
+        HOUR(2, HOUR_MS / 2),
+        DAY(24, 6 * HOUR_MS),
+        WEEK(SLOTS, 48 * HOUR_MS);
+
+        private final int hours;
+        private final double halfLifeMs;
+
+        Window(int hours, long halfLifeMs) {
+            this.hours = hours;
+            this.halfLifeMs = halfLifeMs;
+        }
+
+        public static Window from(String value) {
+            try {
+                return Window.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException ex) {
+                throw new BadRequestException("Invalid trending window '" + value + "', expected hour, day or week");
+            }
+        }
+    }
+}
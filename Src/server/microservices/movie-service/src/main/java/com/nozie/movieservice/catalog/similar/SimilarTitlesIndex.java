@@ -0,0 +1,137 @@
+package com.nozie.movieservice.catalog.similar;
+
+import com.nozie.movieservice.common.cache.RebuildableSnapshot;
+import com.nozie.movieservice.common.event.MovieChangedEvent;
+import com.nozie.movieservice.common.model.Movie;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Phim tương tự cho /api/movies/{id}/similar, phục vụ từ bộ nhớ (xem {@link SimilarityModel}).
+ * <p>
+ * Model được dựng toàn bộ lúc khởi động và định kỳ trên một ForkJoinPool riêng; MovieChangedEvent được gom
+ * theo id và áp tăng dần sau tối đa movie.similar.refresh-interval-ms, chỉ tính lại các phim bị ảnh hưởng.
+ */
+@Component
+@Slf4j
+public class SimilarTitlesIndex {
+
+    private static final String[] FIELDS = {"type", "year", "view", "category", "country", "actor", "director"};
+
+    private final MongoTemplate mongoTemplate;
+    private final int topK;
+    private final int maxPosting;
+    private final int bucketCandidates;
+    private final ForkJoinPool pool;
+    private final Object lock = new Object();
+    private final RebuildableSnapshot<SimilarityModel, Collection<MovieChangedEvent>> model =
+            new RebuildableSnapshot<>(SimilarTitlesIndex::apply);
+    /** Thay đổi chưa áp lên model, theo id. Guarded by lock. */
+    private Map<String, MovieChangedEvent> pending = new LinkedHashMap<>();
+
+    public SimilarTitlesIndex(MongoTemplate mongoTemplate,
+                              @Value("${movie.similar.top-k:20}") int topK,
+                              @Value("${movie.similar.max-posting:1000}") int maxPosting,
+                              @Value("${movie.similar.bucket-candidates:200}") int bucketCandidates,
+                              @Value("${movie.similar.parallelism:0}") int parallelism) {
+        this.mongoTemplate = mongoTemplate;
+        this.topK = topK;
+        this.maxPosting = maxPosting;
+        this.bucketCandidates = bucketCandidates;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public boolean isReady() {
+        return model.get() != null;
+    }
+
+    public int topK() {
+        return topK;
+    }
+
+    /** Id phim tương tự, giảm dần theo độ tương tự; empty nếu phim chưa có trong index. */
+    public Optional<List<String>> neighbours(String id) {
+        return model.get().neighbours(id);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${movie.similar.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        SimilarityModel fresh;
+        try {
+            fresh = model.rebuild(this::load);
+        } catch (RuntimeException ex) {
+            log.warn("Similar titles rebuild failed: {}", ex.getMessage());
+            return;
+        }
+        log.info("Similar titles rebuilt: {} movies in {} ms (parallelism {})", fresh.size(),
+                System.currentTimeMillis() - start, pool.getParallelism());
+    }
+
+    private SimilarityModel load() {
+        SimilarityModel fresh = new SimilarityModel(topK, maxPosting, bucketCandidates);
+        Query q = new Query();
+        q.fields().include(FIELDS);
+        try (Stream<Movie> movies = mongoTemplate.stream(q, Movie.class)) {
+            movies.forEach(fresh::put);
+        }
+        fresh.computeAll(pool);
+        return fresh;
+    }
+
+    /** Áp các thay đổi đã gom lên model (lô áp trong lúc rebuild được áp lại lên model mới trước khi swap). */
+    @Scheduled(fixedDelayString = "${movie.similar.refresh-interval-ms:2000}")
+    public void refresh() {
+        Collection<MovieChangedEvent> events;
+        synchronized (lock) {
+            if (model.get() == null || pending.isEmpty()) return;
+            events = pending.values();
+            pending = new LinkedHashMap<>();
+        }
+        model.apply(events);
+    }
+
+    @EventListener
+    public void onMovieChanged(MovieChangedEvent event) {
+        synchronized (lock) {
+            pending.put(event.getMovieId(), event);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /** Gom theo id (thay đổi sau cùng thắng) rồi cập nhật model một lần. */
+    private static void apply(SimilarityModel target, Collection<MovieChangedEvent> events) {
+        if (events.isEmpty()) return;
+        Map<String, MovieChangedEvent> latest = new LinkedHashMap<>();
+        events.forEach(e -> latest.put(e.getMovieId(), e));
+        List<Movie> upserts = new ArrayList<>();
+        List<String> deletes = new ArrayList<>();
+        for (MovieChangedEvent e : latest.values()) {
+            if (e.getType() == MovieChangedEvent.ChangeType.DELETED) {
+                deletes.add(e.getMovieId());
+            } else {
+                upserts.add(e.getMovie());
+            }
+        }
+        target.update(upserts, deletes);
+    }
+}
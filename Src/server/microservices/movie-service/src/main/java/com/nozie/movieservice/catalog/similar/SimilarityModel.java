@@ -0,0 +1,468 @@
+package com.nozie.movieservice.catalog.similar;
+
+import com.nozie.movieservice.common.model.CategoryRef;
+import com.nozie.movieservice.common.model.CountryRef;
+import com.nozie.movieservice.common.model.Movie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Top-K phim tương tự của từng phim. Mỗi phim là một tập feature có trọng số theo trường (thể loại, quốc gia,
+ * diễn viên, đạo diễn, năm, loại); độ tương tự là weighted Jaccard Σw(A∩B) / Σw(A∪B).
+ * <p>
+ * Ứng viên của một phim chỉ lấy từ posting của các feature hiếm (≤ maxPosting phim, vd cùng diễn viên /
+ * đạo diễn) và tối đa bucketCandidates phim cùng nhóm (loại + thể loại + quốc gia) gần năm nhất, nên chi phí
+ * mỗi phim gần như không đổi theo kích thước catalog. Dựng toàn bộ chạy song song trên ForkJoinPool; thay đổi
+ * lẻ (update) chỉ tính lại các phim bị ảnh hưởng.
+ * <p>
+ * Không thread-safe khi ghi: SimilarTitlesIndex gọi put/computeAll/update trong lock; neighbours đọc được
+ * từ mọi thread.
+ */
+final class SimilarityModel {
+
+    static final float TYPE_WEIGHT = 1f;
+    static final float CATEGORY_WEIGHT = 3f;
+    static final float COUNTRY_WEIGHT = 1f;
+    static final float ACTOR_WEIGHT = 1.5f;
+    static final float DIRECTOR_WEIGHT = 2f;
+    /** Chia cho 3 feature year-1, year, year+1: cùng năm chung cả 3, lệch 2 năm còn chung 1 */
+    static final float YEAR_WEIGHT = 1.5f;
+
+    /** Giá trị OPhim dùng khi chưa có diễn viên / đạo diễn, không phải tên người */
+    private static final Set<String> PLACEHOLDER_NAMES = Set.of("đang cập nhật", "dang cap nhat", "updating", "n/a");
+    private static final int MAX_YEAR_DISTANCE = 5;
+    private static final int LEAF_SIZE = 256;
+    private static final int[] NO_ORDS = new int[0];
+    private static final float[] NO_SCORES = new float[0];
+
+    private final int topK;
+    private final int maxPosting;
+    private final int bucketCandidates;
+
+    private final Map<String, Integer> featureIds = new HashMap<>();
+    private float[] featureWeights = new float[256];
+    private final List<Postings> postings = new ArrayList<>();
+    /** nhóm (loại + thể loại + quốc gia) → năm → phim */
+    private final Map<String, TreeMap<Integer, Postings>> buckets = new HashMap<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    /** Theo ordinal; null = phim đã xóa */
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, List<String>> neighbours = new ConcurrentHashMap<>();
+
+    SimilarityModel(int topK, int maxPosting, int bucketCandidates) {
+        this.topK = topK;
+        this.maxPosting = maxPosting;
+        this.bucketCandidates = bucketCandidates;
+    }
+
+    /** Id các phim tương tự (giảm dần); empty nếu phim không có trong model. */
+    Optional<List<String>> neighbours(String id) {
+        return Optional.ofNullable(neighbours.get(id));
+    }
+
+    int size() {
+        return ordinals.size();
+    }
+
+    /** Thêm phim khi dựng toàn bộ; neighbours chỉ có sau computeAll. */
+    void put(Movie movie) {
+        Integer ord = ordinals.get(movie.getId());
+        if (ord != null) {
+            unlink(ord);
+            link(ord, movie);
+        } else {
+            ord = entries.size();
+            entries.add(null);
+            ordinals.put(movie.getId(), ord);
+            link(ord, movie);
+        }
+    }
+
+    /** Tính top-K của mọi phim song song trên pool, rồi dựng chỉ mục ngược (phim nào đang liệt kê phim nào). */
+    void computeAll(ForkJoinPool pool) {
+        pool.invoke(new ComputeTask(0, entries.size()));
+        for (int ord = 0; ord < entries.size(); ord++) {
+            Entry e = entries.get(ord);
+            if (e == null) continue;
+            for (int other : e.top) entries.get(other).listedBy.add(ord);
+            publish(e);
+        }
+    }
+
+    /**
+     * Áp thay đổi của catalog: phim bị xóa / sửa rời khỏi danh sách của phim khác (các phim đó tính lại),
+     * phim mới / sửa được tính lại và chen vào danh sách của ứng viên nếu đủ điểm.
+     */
+    void update(Collection<Movie> upserts, Collection<String> deletes) {
+        Set<Integer> affected = new HashSet<>();
+        for (String id : deletes) {
+            Integer ord = ordinals.remove(id);
+            if (ord == null) continue;
+            Entry e = entries.get(ord);
+            e.listedBy.forEach(affected::add);
+            for (int other : e.top) {
+                Entry o = entries.get(other);
+                if (o != null) o.listedBy.remove(ord);
+            }
+            unlink(ord);
+            entries.set(ord, null);
+            neighbours.remove(id);
+        }
+        List<Integer> changed = new ArrayList<>(upserts.size());
+        for (Movie movie : upserts) {
+            Integer ord = ordinals.get(movie.getId());
+            if (ord != null) entries.get(ord).listedBy.forEach(affected::add);
+            put(movie);
+            changed.add(ordinals.get(movie.getId()));
+        }
+        affected.addAll(changed);
+        affected.removeIf(ord -> entries.get(ord) == null);
+
+        Scratch scratch = new Scratch(topK);
+        for (int ord : changed) {
+            Entry e = entries.get(ord);
+            int n = candidates(ord, scratch);
+            for (int i = 0; i < n; i++) {
+                int other = scratch.buffer[i];
+                if (affected.contains(other)) continue;
+                Entry o = entries.get(other);
+                int[] before = o.top;
+                if (offer(o, ord, similarity(o, e))) {
+                    relink(other, before, o.top);
+                    publish(o);
+                }
+            }
+        }
+        for (int ord : affected) {
+            Entry e = entries.get(ord);
+            int[] before = e.top;
+            computeTop(ord, scratch);
+            relink(ord, before, e.top);
+            publish(e);
+        }
+    }
+
+    /** Weighted Jaccard của hai phim (feature đã sắp xếp tăng dần). */
+    private float similarity(Entry a, Entry b) {
+        int[] x = a.features;
+        int[] y = b.features;
+        float inter = 0;
+        int i = 0;
+        int j = 0;
+        while (i < x.length && j < y.length) {
+            if (x[i] == y[j]) {
+                inter += featureWeights[x[i]];
+                i++;
+                j++;
+            } else if (x[i] < y[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        float union = a.weight + b.weight - inter;
+        return union > 0 ? inter / union : 0;
+    }
+
+    /** Độ tương tự giữa hai phim theo id (cho test / debug); 0 nếu thiếu phim. */
+    float similarity(String a, String b) {
+        Integer x = ordinals.get(a);
+        Integer y = ordinals.get(b);
+        return x == null || y == null ? 0 : similarity(entries.get(x), entries.get(y));
+    }
+
+    private void computeTop(int ord, Scratch scratch) {
+        Entry e = entries.get(ord);
+        int n = candidates(ord, scratch);
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            int other = scratch.buffer[i];
+            float score = similarity(e, entries.get(other));
+            if (score <= 0) continue;
+            int inserted = insert(scratch.top, scratch.scores, size, other, score);
+            if (inserted >= 0) size = inserted;
+        }
+        e.top = Arrays.copyOf(scratch.top, size);
+        e.scores = Arrays.copyOf(scratch.scores, size);
+    }
+
+    /** Ứng viên của ord (không gồm chính nó), đã khử trùng, nằm ở scratch.buffer[0, n). */
+    private int candidates(int ord, Scratch scratch) {
+        Entry e = entries.get(ord);
+        scratch.size = 0;
+        for (int f : e.features) {
+            Postings p = postings.get(f);
+            if (p.size <= maxPosting) scratch.addAll(p);
+        }
+        TreeMap<Integer, Postings> byYear = buckets.get(e.bucket);
+        if (byYear != null) {
+            int taken = 0;
+            for (int d = 0; d <= MAX_YEAR_DISTANCE && taken < bucketCandidates; d++) {
+                taken += scratch.addSome(byYear.get(e.year - d), bucketCandidates - taken);
+                if (d > 0) taken += scratch.addSome(byYear.get(e.year + d), bucketCandidates - taken);
+            }
+        }
+        Arrays.sort(scratch.buffer, 0, scratch.size);
+        int n = 0;
+        for (int i = 0; i < scratch.size; i++) {
+            int c = scratch.buffer[i];
+            if (c == ord || (n > 0 && scratch.buffer[n - 1] == c)) continue;
+            scratch.buffer[n++] = c;
+        }
+        return n;
+    }
+
+    /** Chen other vào top-K đã lưu của e nếu đủ điểm; true nếu top đổi. */
+    private boolean offer(Entry e, int other, float score) {
+        if (score <= 0) return false;
+        for (int ord : e.top) {
+            if (ord == other) return false;
+        }
+        int[] top = Arrays.copyOf(e.top, Math.min(topK, e.top.length + 1));
+        float[] scores = Arrays.copyOf(e.scores, top.length);
+        if (insert(top, scores, e.top.length, other, score) < 0) return false;
+        e.top = top;
+        e.scores = scores;
+        return true;
+    }
+
+    /**
+     * Chen (other, score) vào top[0, n) đã xếp giảm dần (điểm cao trước, hòa thì nhiều lượt xem trước), sức chứa
+     * top.length; trả kích thước mới, -1 nếu đầy và không đủ điểm.
+     */
+    private int insert(int[] top, float[] scores, int n, int other, float score) {
+        int capacity = top.length;
+        if (n == capacity && !ranksBefore(score, other, scores[n - 1], top[n - 1])) return -1;
+        int pos = Math.min(n, capacity - 1);
+        while (pos > 0 && ranksBefore(score, other, scores[pos - 1], top[pos - 1])) {
+            top[pos] = top[pos - 1];
+            scores[pos] = scores[pos - 1];
+            pos--;
+        }
+        top[pos] = other;
+        scores[pos] = score;
+        return Math.min(capacity, n + 1);
+    }
+
+    private boolean ranksBefore(float score, int ord, float otherScore, int otherOrd) {
+        if (score != otherScore) return score > otherScore;
+        Entry a = entries.get(ord);
+        Entry b = entries.get(otherOrd);
+        if (a.view != b.view) return a.view > b.view;
+        return a.id.compareTo(b.id) < 0;
+    }
+
+    /** Cập nhật listedBy khi top của ord đổi từ before sang after. */
+    private void relink(int ord, int[] before, int[] after) {
+        for (int other : before) {
+            Entry o = entries.get(other);
+            if (o != null) o.listedBy.remove(ord);
+        }
+        for (int other : after) entries.get(other).listedBy.add(ord);
+    }
+
+    private void publish(Entry e) {
+        List<String> ids = new ArrayList<>(e.top.length);
+        for (int other : e.top) ids.add(entries.get(other).id);
+        neighbours.put(e.id, List.copyOf(ids));
+    }
+
+    /** Ghi feature / bucket của phim vào posting. */
+    private void link(int ord, Movie movie) {
+        Entry previous = entries.get(ord);
+        Entry e = new Entry(movie.getId());
+        if (previous != null) {
+            e.top = previous.top;
+            e.scores = previous.scores;
+            e.listedBy = previous.listedBy;
+        }
+        e.view = movie.getView() != null ? movie.getView() : 0L;
+        e.year = movie.getYear() != null ? movie.getYear() : 0;
+        e.bucket = bucket(movie);
+        e.features = features(movie);
+        float weight = 0;
+        for (int f : e.features) {
+            weight += featureWeights[f];
+            postings.get(f).add(ord);
+        }
+        e.weight = weight;
+        buckets.computeIfAbsent(e.bucket, k -> new TreeMap<>()).computeIfAbsent(e.year, k -> new Postings()).add(ord);
+        entries.set(ord, e);
+    }
+
+    private void unlink(int ord) {
+        Entry e = entries.get(ord);
+        if (e == null) return;
+        for (int f : e.features) postings.get(f).remove(ord);
+        TreeMap<Integer, Postings> byYear = buckets.get(e.bucket);
+        if (byYear != null && byYear.containsKey(e.year)) byYear.get(e.year).remove(ord);
+    }
+
+    private int[] features(Movie m) {
+        Set<Integer> ids = new HashSet<>();
+        if (m.getType() != null) ids.add(feature("t:" + m.getType(), TYPE_WEIGHT));
+        if (m.getCategory() != null) {
+            for (CategoryRef c : m.getCategory()) {
+                if (c != null && c.getSlug() != null) ids.add(feature("c:" + c.getSlug(), CATEGORY_WEIGHT));
+            }
+        }
+        if (m.getCountry() != null) {
+            for (CountryRef c : m.getCountry()) {
+                if (c != null && c.getSlug() != null) ids.add(feature("n:" + c.getSlug(), COUNTRY_WEIGHT));
+            }
+        }
+        addNames(ids, "a:", m.getActor(), ACTOR_WEIGHT);
+        addNames(ids, "d:", m.getDirector(), DIRECTOR_WEIGHT);
+        if (m.getYear() != null) {
+            for (int d = -1; d <= 1; d++) ids.add(feature("y:" + (m.getYear() + d), YEAR_WEIGHT / 3));
+        }
+        return ids.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    private void addNames(Set<Integer> ids, String prefix, List<String> names, float weight) {
+        if (names == null) return;
+        for (String name : names) {
+            if (name == null) continue;
+            String key = name.trim().toLowerCase(Locale.ROOT);
+            if (!key.isEmpty() && !PLACEHOLDER_NAMES.contains(key)) ids.add(feature(prefix + key, weight));
+        }
+    }
+
+    private int feature(String key, float weight) {
+        Integer id = featureIds.get(key);
+        if (id != null) return id;
+        id = postings.size();
+        featureIds.put(key, id);
+        postings.add(new Postings());
+        if (id == featureWeights.length) featureWeights = Arrays.copyOf(featureWeights, id * 2);
+        featureWeights[id] = weight;
+        return id;
+    }
+
+    private static String bucket(Movie m) {
+        StringBuilder key = new StringBuilder(String.valueOf(m.getType()));
+        key.append('|');
+        if (m.getCategory() != null) {
+            m.getCategory().stream().filter(c -> c != null && c.getSlug() != null)
+                    .map(CategoryRef::getSlug).sorted().forEach(s -> key.append(s).append(','));
+        }
+        key.append('|');
+        if (m.getCountry() != null) {
+            m.getCountry().stream().filter(c -> c != null && c.getSlug() != null)
+                    .map(CountryRef::getSlug).sorted().forEach(s -> key.append(s).append(','));
+        }
+        return key.toString();
+    }
+
+    /** Tính top-K cho các ordinal [from, to), chia đôi tới LEAF_SIZE. */
+    private final class ComputeTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+
+        ComputeTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ComputeTask(from, mid), new ComputeTask(mid, to));
+                return;
+            }
+            Scratch scratch = new Scratch(topK);
+            for (int ord = from; ord < to; ord++) {
+                if (entries.get(ord) != null) computeTop(ord, scratch);
+            }
+        }
+    }
+
+    private static final class Entry {
+        final String id;
+        long view;
+        int year;
+        String bucket;
+        int[] features;
+        float weight;
+        int[] top = NO_ORDS;
+        float[] scores = NO_SCORES;
+        /** Các phim đang có phim này trong top */
+        Postings listedBy = new Postings();
+
+        Entry(String id) {
+            this.id = id;
+        }
+    }
+
+    /** Danh sách ordinal không trùng, thứ tự tùy ý. */
+    private static final class Postings {
+        int[] items = new int[4];
+        int size;
+
+        void add(int ord) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = ord;
+        }
+
+        void remove(int ord) {
+            for (int i = 0; i < size; i++) {
+                if (items[i] == ord) {
+                    items[i] = items[--size];
+                    return;
+                }
+            }
+        }
+
+        void forEach(IntConsumer action) {
+            for (int i = 0; i < size; i++) action.accept(items[i]);
+        }
+    }
+
+    /** Bộ đệm ứng viên và top-K đang tính của một thread. */
+    private static final class Scratch {
+        int[] buffer = new int[1024];
+        int size;
+        final int[] top;
+        final float[] scores;
+
+        Scratch(int topK) {
+            top = new int[topK];
+            scores = new float[topK];
+        }
+
+        void addAll(Postings p) {
+            ensure(p.size);
+            System.arraycopy(p.items, 0, buffer, size, p.size);
+            size += p.size;
+        }
+
+        int addSome(Postings p, int max) {
+            if (p == null || max <= 0) return 0;
+            int n = Math.min(max, p.size);
+            ensure(n);
+            System.arraycopy(p.items, 0, buffer, size, n);
+            size += n;
+            return n;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.nozie.movieservice.common.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nozie.movieservice.common.event.MovieChangedEvent;
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.repository.MovieRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cache hai tầng cho chi tiết phim theo id và slug, đứng trước MovieRepository.findById/findBySlug.
+ * <p>
+ * Tầng 1 là Caffeine (W-TinyLFU, giới hạn số phần tử) trong từng replica; tầng 2 là Redis dùng chung
+ * (bật bằng movie.cache.redis.enabled). Khi phim được tạo/sửa/xóa, replica xử lý request xóa entry ở cả hai
+ * tầng và broadcast id qua kênh {@link #CHANNEL}; replica khác đọc lại phim và phát MovieChangedEvent remote để
+ * tầng 1 và các index trong bộ nhớ của nó cập nhật ({@link MovieCacheBroadcastConfig}).
+ * Lỗi Redis chỉ làm giảm tỉ lệ hit, không làm hỏng request.
+ * <p>
+ * Các miss đồng thời cho cùng id/slug được gộp bằng {@link SingleFlight}: một request đọc Redis/Mongo và
+ * ghi lại cache, các request khác chờ chung kết quả tối đa movie.lookup.timeout-ms.
+ * <p>
+ * Load bắt đầu trước một lần invalidate và xong sau nó không được ghi bản cũ trở lại: mỗi invalidate tăng bộ
+ * đếm thế hệ (theo stripe của id, và một bộ đếm chung cho load theo slug), load chỉ ghi cache nếu thế hệ không
+ * đổi và xóa lại nếu invalidate chen vào trong lúc ghi. Redis còn được xóa lần hai sau movie.lookup.timeout-ms
+ * cho load đang chạy ở replica khác.
+ */
+@Component
+@Slf4j
+public class MovieCache {
+
+    public static final String CHANNEL = "movie-cache:invalidate";
+
+    private static final String ID_KEY = "movie:detail:id:";
+    private static final String SLUG_KEY = "movie:detail:slug:";
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final MovieRepository movieRepository;
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final Duration remoteTtl;
+    private final Cache<String, Movie> byId;
+    private final Cache<String, String> slugToId;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter remoteErrors;
+    private final Counter staleLoads;
+    private final Duration lookupTimeout;
+    private final AtomicLongArray idGenerations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLong generation = new AtomicLong();
+    private final SingleFlight<String, Optional<Movie>> idLoads;
+    private final SingleFlight<String, Optional<Movie>> slugLoads;
+
+    public MovieCache(MovieRepository movieRepository,
+                      ObjectProvider<StringRedisTemplate> redisTemplate,
+                      ObjectMapper objectMapper,
+                      MeterRegistry meterRegistry,
+                      @Value("${movie.cache.redis.enabled:false}") boolean redisEnabled,
+                      @Value("${movie.cache.max-size:2000}") long maxSize,
+                      @Value("${movie.cache.local-ttl-ms:600000}") long localTtlMs,
+                      @Value("${movie.cache.redis.ttl-ms:3600000}") long remoteTtlMs,
+                      @Value("${movie.lookup.timeout-ms:5000}") long lookupTimeoutMs) {
+        this.movieRepository = movieRepository;
+        this.redis = redisEnabled ? redisTemplate.getIfAvailable() : null;
+        this.objectMapper = objectMapper;
+        this.remoteTtl = Duration.ofMillis(remoteTtlMs);
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(localTtlMs))
+                .recordStats()
+                .build();
+        this.slugToId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(localTtlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "movie.detail.id");
+        CaffeineCacheMetrics.monitor(meterRegistry, slugToId, "movie.detail.slug");
+        this.remoteHits = meterRegistry.counter("movie.detail.remote", "result", "hit");
+        this.remoteMisses = meterRegistry.counter("movie.detail.remote", "result", "miss");
+        this.remoteErrors = meterRegistry.counter("movie.detail.remote", "result", "error");
+        this.staleLoads = meterRegistry.counter("movie.detail.stale-loads");
+        this.lookupTimeout = Duration.ofMillis(lookupTimeoutMs);
+        this.idLoads = new SingleFlight<>("findById", Duration.ofMillis(lookupTimeoutMs), meterRegistry);
+        this.slugLoads = new SingleFlight<>("findBySlug", Duration.ofMillis(lookupTimeoutMs), meterRegistry);
+    }
+
+    public Optional<Movie> findById(String id) {
+        Movie movie = byId.getIfPresent(id);
+        if (movie != null) {
+            return Optional.of(movie);
+        }
+        return idLoads.load(id, () -> loadById(id));
+    }
+
+    private Optional<Movie> loadById(String id) {
+        long started = idGenerations.get(stripe(id));
+        Movie movie = readRemote(id);
+        boolean fromRemote = movie != null;
+        if (movie == null) {
+            movie = movieRepository.findById(id).orElse(null);
+            if (movie == null) {
+                return Optional.empty();
+            }
+        }
+        store(movie, !fromRemote, () -> idGenerations.get(stripe(id)) == started);
+        return Optional.of(movie);
+    }
+
+    public Optional<Movie> findBySlug(String slug) {
+        String id = slugToId.getIfPresent(slug);
+        if (id == null) {
+            id = remoteGet(SLUG_KEY + slug);
+        }
+        if (id != null) {
+            // slug -> id có thể đã cũ nếu phim đổi slug: chỉ tin khi slug của phim vẫn khớp
+            Optional<Movie> movie = findById(id);
+            if (movie.isPresent() && slug.equals(movie.get().getSlug())) {
+                slugToId.put(slug, id);
+                return movie;
+            }
+            slugToId.invalidate(slug);
+        }
+        return slugLoads.load(slug, () -> {
+            // id chưa biết trước khi load nên so với bộ đếm chung
+            long started = generation.get();
+            Optional<Movie> movie = movieRepository.findBySlug(slug);
+            movie.ifPresent(m -> store(m, true, () -> generation.get() == started));
+            return movie;
+        });
+    }
+
+    /** Phim đang có trong tầng 1, không đọc Redis/Mongo. */
+    public Optional<Movie> peekById(String id) {
+        return Optional.ofNullable(byId.getIfPresent(id));
+    }
+
+    public Optional<Movie> peekBySlug(String slug) {
+        String id = slugToId.getIfPresent(slug);
+        Movie movie = id != null ? byId.getIfPresent(id) : null;
+        return movie != null && slug.equals(movie.getSlug()) ? Optional.of(movie) : Optional.empty();
+    }
+
+    /** Xóa phim khỏi tầng 1 của replica này (gọi khi nhận broadcast). */
+    public void evictLocal(String id) {
+        idGenerations.incrementAndGet(stripe(id));
+        generation.incrementAndGet();
+        byId.invalidate(id);
+        slugToId.asMap().values().removeIf(id::equals);
+    }
+
+    @EventListener
+    public void onMovieChanged(MovieChangedEvent event) {
+        if (event.isRemote()) {
+            evictLocal(event.getMovieId());
+        } else if (event.getType() == MovieChangedEvent.ChangeType.CREATED) {
+            // chưa có gì để xóa, chỉ báo các replica khác đưa phim vào index
+            broadcast(event.getMovieId());
+        } else {
+            evict(event.getMovieId());
+        }
+    }
+
+    /** Xóa phim khỏi cả hai tầng và báo các replica khác. */
+    public void evict(String id) {
+        evictLocal(id);
+        if (redis == null) {
+            return;
+        }
+        try {
+            redis.delete(ID_KEY + id);
+        } catch (RuntimeException ex) {
+            remoteErrors.increment();
+            log.warn("Movie cache entry {} not deleted from Redis: {}", id, ex.getMessage());
+        }
+        broadcast(id);
+        // Load đang chạy ở replica khác có thể ghi bản cũ vào Redis trước khi nhận broadcast
+        CompletableFuture.runAsync(() -> deleteRemote(id),
+                CompletableFuture.delayedExecutor(lookupTimeout.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    private void broadcast(String id) {
+        if (redis == null) {
+            return;
+        }
+        try {
+            redis.convertAndSend(CHANNEL, id);
+        } catch (RuntimeException ex) {
+            remoteErrors.increment();
+            log.warn("Movie cache invalidation for {} not broadcast: {}", id, ex.getMessage());
+        }
+    }
+
+    /**
+     * Ghi kết quả load vào cache nếu không có invalidate nào từ lúc bắt đầu load (unchanged); invalidate đến
+     * trong lúc ghi thì xóa lại phần vừa ghi.
+     */
+    private void store(Movie movie, boolean remote, BooleanSupplier unchanged) {
+        if (!unchanged.getAsBoolean()) {
+            staleLoads.increment();
+            return;
+        }
+        if (remote) {
+            writeRemote(movie);
+        }
+        putLocal(movie);
+        if (!unchanged.getAsBoolean()) {
+            staleLoads.increment();
+            evictLocal(movie.getId());
+            if (remote) {
+                deleteRemote(movie.getId());
+            }
+        }
+    }
+
+    private static int stripe(String id) {
+        return (id.hashCode() & 0x7fffffff) % GENERATION_STRIPES;
+    }
+
+    private void putLocal(Movie movie) {
+        byId.put(movie.getId(), movie);
+        if (movie.getSlug() != null) {
+            slugToId.put(movie.getSlug(), movie.getId());
+        }
+    }
+
+    private Movie readRemote(String id) {
+        String json = remoteGet(ID_KEY + id);
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, Movie.class);
+        } catch (JsonProcessingException ex) {
+            log.warn("Dropping unreadable cached movie {}: {}", id, ex.getMessage());
+            return null;
+        }
+    }
+
+    private String remoteGet(String key) {
+        if (redis == null) {
+            return null;
+        }
+        try {
+            String value = redis.opsForValue().get(key);
+            (value != null ? remoteHits : remoteMisses).increment();
+            return value;
+        } catch (RuntimeException ex) {
+            remoteErrors.increment();
+            log.debug("Redis read {} failed: {}", key, ex.getMessage());
+            return null;
+        }
+    }
+
+    private void deleteRemote(String id) {
+        if (redis == null) {
+            return;
+        }
+        try {
+            redis.delete(ID_KEY + id);
+        } catch (RuntimeException ex) {
+            remoteErrors.increment();
+            log.debug("Redis delete for movie {} failed: {}", id, ex.getMessage());
+        }
+    }
+
+    private void writeRemote(Movie movie) {
+        if (redis == null) {
+            return;
+        }
+        try {
+            String json = objectMapper.writeValueAsString(movie);
+            redis.opsForValue().set(ID_KEY + movie.getId(), json, remoteTtl);
+            if (movie.getSlug() != null) {
+                redis.opsForValue().set(SLUG_KEY + movie.getSlug(), movie.getId(), remoteTtl);
+            }
+        } catch (JsonProcessingException | RuntimeException ex) {
+            remoteErrors.increment();
+            log.debug("Redis write for movie {} failed: {}", movie.getId(), ex.getMessage());
+        }
+    }
+}
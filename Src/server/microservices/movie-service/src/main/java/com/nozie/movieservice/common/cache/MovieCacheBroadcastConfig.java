@@ -0,0 +1,51 @@
+package com.nozie.movieservice.common.cache;
+
+import com.nozie.movieservice.common.event.MovieChangedEvent;
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.repository.MovieRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Nhận broadcast thay đổi phim từ các replica khác qua Redis pub/sub: đọc lại phim từ Mongo và phát
+ * MovieChangedEvent remote (phim không còn = DELETED) để tầng 1 của MovieCache và mọi index trong bộ nhớ
+ * (lọc, tìm kiếm, gợi ý, phim tương tự, link phát) cập nhật như khi phim được sửa ở replica này.
+ */
+@Configuration
+@ConditionalOnProperty(name = "movie.cache.redis.enabled", havingValue = "true")
+@Slf4j
+public class MovieCacheBroadcastConfig {
+
+    @Bean
+    public RedisMessageListenerContainer movieCacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                        MovieRepository movieRepository,
+                                                                        MovieCache movieCache,
+                                                                        ApplicationEventPublisher eventPublisher) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> {
+                    String id = new String(message.getBody(), StandardCharsets.UTF_8);
+                    Movie movie;
+                    try {
+                        movie = movieRepository.findById(id).orElse(null);
+                    } catch (RuntimeException ex) {
+                        // index tự sửa ở lần dựng lại định kỳ; chi tiết phim không được phục vụ bản cũ
+                        log.warn("Could not reload movie {} after broadcast: {}", id, ex.getMessage());
+                        movieCache.evictLocal(id);
+                        return;
+                    }
+                    eventPublisher.publishEvent(MovieChangedEvent.remote(id, movie));
+                },
+                new ChannelTopic(MovieCache.CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,38 @@
+package com.nozie.movieservice.common.cache;
+
+import com.nozie.movieservice.common.repository.MovieRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Các truy vấn nhẹ theo id/slug của StreamingService (đếm lượt xem) đi qua {@link SingleFlight}:
+ * request trùng nhau trong lúc query đang chạy dùng chung kết quả. Chi tiết phim được gộp tương tự
+ * trong {@link MovieCache}.
+ */
+@Component
+public class MovieLookups {
+
+    private final MovieRepository movieRepository;
+    private final SingleFlight<String, Optional<String>> idBySlug;
+    private final SingleFlight<String, Boolean> existsById;
+
+    public MovieLookups(MovieRepository movieRepository, MeterRegistry meterRegistry,
+                        @Value("${movie.lookup.timeout-ms:5000}") long timeoutMs) {
+        this.movieRepository = movieRepository;
+        Duration timeout = Duration.ofMillis(timeoutMs);
+        this.idBySlug = new SingleFlight<>("findIdBySlug", timeout, meterRegistry);
+        this.existsById = new SingleFlight<>("existsById", timeout, meterRegistry);
+    }
+
+    public Optional<String> findIdBySlug(String slug) {
+        return idBySlug.load(slug, () -> movieRepository.findIdBySlug(slug));
+    }
+
+    public boolean existsById(String id) {
+        return existsById.load(id, () -> movieRepository.existsById(id));
+    }
+}
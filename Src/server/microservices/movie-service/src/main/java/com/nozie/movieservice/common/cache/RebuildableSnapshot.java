@@ -0,0 +1,76 @@
+package com.nozie.movieservice.common.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Giữ bản hiện tại của một index trong bộ nhớ được dựng lại nền (từ Mongo) và cập nhật tăng dần giữa các lần dựng.
+ * Thay đổi đến trong lúc dựng được ghi lại và áp lên bản mới trước khi swap, nên bản mới không mất thay đổi nào
+ * xảy ra trong lúc đọc collection.
+ *
+ * @param <T> kiểu index (chỉ được sửa qua {@link #apply} hoặc trước khi swap)
+ * @param <C> kiểu thay đổi
+ */
+public class RebuildableSnapshot<T, C> {
+
+    private final BiConsumer<T, C> applier;
+    private final Object lock = new Object();
+    private volatile T current;
+    /** Thay đổi nhận được trong lúc rebuild; null khi không dựng. Guarded by lock. */
+    private List<C> pendingDuringRebuild;
+
+    /** Chưa có bản nào cho tới lần dựng đầu tiên ({@link #get()} = null). */
+    public RebuildableSnapshot(BiConsumer<T, C> applier) {
+        this(null, applier);
+    }
+
+    public RebuildableSnapshot(T initial, BiConsumer<T, C> applier) {
+        this.current = initial;
+        this.applier = applier;
+    }
+
+    /** Bản hiện tại; null nếu chưa dựng lần nào (và không có bản khởi tạo). */
+    public T get() {
+        return current;
+    }
+
+    /** Áp thay đổi lên bản hiện tại, và ghi lại để áp lên bản đang dựng (nếu có). */
+    public void apply(C change) {
+        synchronized (lock) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+            T target = current;
+            if (target != null) {
+                applier.accept(target, change);
+            }
+        }
+    }
+
+    /**
+     * Dựng bản mới bằng builder (ngoài lock, các lần đọc vẫn dùng bản cũ), áp các thay đổi đến trong lúc dựng rồi
+     * swap. Builder ném lỗi thì giữ bản cũ và ném lại cho caller. Không gọi song song (lịch fixedDelay).
+     */
+    public T rebuild(Supplier<T> builder) {
+        synchronized (lock) {
+            pendingDuringRebuild = new ArrayList<>();
+        }
+        T fresh;
+        try {
+            fresh = builder.get();
+        } catch (RuntimeException ex) {
+            synchronized (lock) {
+                pendingDuringRebuild = null;
+            }
+            throw ex;
+        }
+        synchronized (lock) {
+            pendingDuringRebuild.forEach(change -> applier.accept(fresh, change));
+            pendingDuringRebuild = null;
+            current = fresh;
+        }
+        return fresh;
+    }
+}
@@ -0,0 +1,73 @@
+package com.nozie.movieservice.common.cache;
+
+import com.nozie.common.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Gộp các lần load đồng thời cùng key thành một: request đầu tiên chạy loader trên thread của nó,
+ * các request đến trong lúc đó dùng chung kết quả (hoặc exception) và chờ tối đa timeout.
+ * Không cache gì sau khi load xong.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final String name;
+    private final Duration timeout;
+    private final Counter coalesced;
+    private final Counter timeouts;
+
+    public SingleFlight(String name, Duration timeout, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.timeout = timeout;
+        this.coalesced = meterRegistry.counter("movie.lookup.coalesced", "op", name);
+        this.timeouts = meterRegistry.counter("movie.lookup.timeouts", "op", name);
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return await(key, existing);
+        }
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private V await(K key, CompletableFuture<V> future) {
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            timeouts.increment();
+            throw new ServiceUnavailableException("Timed out waiting for " + name + " lookup of '" + key + "'");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted waiting for " + name + " lookup of '" + key + "'", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            if (ex.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+}
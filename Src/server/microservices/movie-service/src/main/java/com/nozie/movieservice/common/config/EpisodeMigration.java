@@ -0,0 +1,96 @@
+package com.nozie.movieservice.common.config;
+
+import com.nozie.movieservice.common.event.MovieChangedEvent;
+import com.nozie.movieservice.common.model.Episode;
+import com.nozie.movieservice.common.model.EpisodeServer;
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.repository.MovieEpisodeRepository;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Chuyển episodes đang nhúng trong document phim (dữ liệu cũ / import.js bản trước) sang collection episodes:
+ * ghi từng tập thành {@link com.nozie.movieservice.common.model.MovieEpisode}, đặt Movie.servers và xóa
+ * trường episodes, rồi phát MovieChangedEvent cho phim đó. Chạy lúc khởi động sau MovieIndexInitializer;
+ * chỉ đụng các phim còn trường episodes nên chạy lại nhiều lần (hoặc trên nhiều replica) đều an toàn.
+ */
+@Component
+@Slf4j
+public class EpisodeMigration {
+
+    private final MongoTemplate mongoTemplate;
+    private final MovieEpisodeRepository movieEpisodeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+
+    public EpisodeMigration(MongoTemplate mongoTemplate, MovieEpisodeRepository movieEpisodeRepository,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${movie.episodes.migrate-on-startup:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.movieEpisodeRepository = movieEpisodeRepository;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+    }
+
+    @Order(100)
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!enabled) return;
+        long start = System.currentTimeMillis();
+        int movies = 0;
+        long episodes = 0;
+        Query q = Query.query(Criteria.where("episodes").exists(true));
+        q.fields().include("episodes");
+        try (Stream<LegacyEpisodes> legacy = mongoTemplate.stream(q, LegacyEpisodes.class,
+                mongoTemplate.getCollectionName(Movie.class))) {
+            for (LegacyEpisodes doc : (Iterable<LegacyEpisodes>) legacy::iterator) {
+                try {
+                    List<EpisodeServer> servers = movieEpisodeRepository.replaceAll(doc.getId(), doc.getEpisodes());
+                    mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(doc.getId())),
+                            new Update().set("servers", servers).unset("episodes"), Movie.class);
+                    // Cache chi tiết và các index trong bộ nhớ đang giữ bản chưa có servers
+                    Movie migrated = mongoTemplate.findById(doc.getId(), Movie.class);
+                    if (migrated != null) {
+                        eventPublisher.publishEvent(MovieChangedEvent.updated(migrated));
+                    }
+                    movies++;
+                    episodes += servers.stream().mapToInt(EpisodeServer::getEpisodeCount).sum();
+                } catch (RuntimeException ex) {
+                    log.warn("Episode migration failed for movie {}: {}", doc.getId(), ex.getMessage());
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Episode migration aborted: {}", ex.getMessage());
+        }
+        if (movies > 0) {
+            log.info("Migrated {} episodes of {} movies to the episodes collection in {} ms",
+                    episodes, movies, System.currentTimeMillis() - start);
+        }
+    }
+
+    /** Document phim dạng cũ, chỉ đọc _id + episodes. */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    static class LegacyEpisodes {
+        @Id
+        private String id;
+        private List<Episode> episodes;
+    }
+}
@@ -0,0 +1,52 @@
+package com.nozie.movieservice.common.config;
+
+import com.nozie.movieservice.common.model.Country;
+import com.nozie.movieservice.common.model.Genre;
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.model.MovieEpisode;
+import com.nozie.movieservice.common.model.MovieTombstone;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Tạo index khai báo trên các @Document (@Indexed, @CompoundIndex) lúc khởi động.
+ * Spring Boot tắt auto-index-creation mặc định nên không có bước này thì Mongo chỉ có index _id.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MovieIndexInitializer {
+
+    private static final List<Class<?>> DOCUMENTS = List.of(Movie.class, MovieEpisode.class, Genre.class, Country.class,
+            MovieTombstone.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> document : DOCUMENTS) {
+            IndexOperations ops = mongoTemplate.indexOps(document);
+            resolver.resolveIndexFor(document).forEach(index -> {
+                try {
+                    String name = ops.ensureIndex(index);
+                    log.debug("Ensured index {} on {}", name, document.getSimpleName());
+                } catch (RuntimeException ex) {
+                    log.warn("Could not create index {} on {}: {}", index.getIndexKeys(),
+                            document.getSimpleName(), ex.getMessage());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.nozie.movieservice.common.config;
+
+import com.nozie.movieservice.common.model.Movie;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GET /actuator/queryplans - chạy explain cho từng dạng query của CatalogController và trả về 503
+ * nếu có dạng nào rơi về COLLSCAN (dùng trong smoke test sau deploy / khi đổi index).
+ * <p>
+ * Tìm kiếm theo từ khóa được phục vụ bởi MovieSearchIndex trong bộ nhớ (regex chỉ còn là fallback lúc
+ * index chưa dựng xong) nên không nằm trong danh sách.
+ */
+@Component
+@WebEndpoint(id = "queryplans")
+@RequiredArgsConstructor
+public class QueryPlanEndpoint {
+
+    private static final Document SORT_UPDATED = new Document("updatedAt", -1).append("_id", -1);
+
+    private final MongoTemplate mongoTemplate;
+
+    @ReadOperation
+    public WebEndpointResponse<Map<String, Object>> queryPlans() {
+        Map<String, Object> plans = new LinkedHashMap<>();
+        boolean collscan = false;
+        for (Map.Entry<String, Document[]> shape : shapes().entrySet()) {
+            Document[] filterAndSort = shape.getValue();
+            List<String> stages = new ArrayList<>();
+            collectStages(explain(filterAndSort[0], filterAndSort[1]), stages);
+            boolean scan = stages.contains("COLLSCAN");
+            collscan |= scan;
+            plans.put(shape.getKey(), Map.of("collscan", scan, "stages", stages));
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", collscan ? "COLLSCAN" : "OK");
+        body.put("shapes", plans);
+        return new WebEndpointResponse<>(body, collscan ? WebEndpointResponse.STATUS_SERVICE_UNAVAILABLE
+                : WebEndpointResponse.STATUS_OK);
+    }
+
+    /** Tên shape -> {filter, sort}; giá trị mẫu chỉ để lấy plan, không cần khớp dữ liệu. */
+    private Map<String, Document[]> shapes() {
+        Date now = new Date();
+        Map<String, Document[]> shapes = new LinkedHashMap<>();
+        shapes.put("list", new Document[]{new Document(), SORT_UPDATED});
+        shapes.put("list.type", new Document[]{new Document("type", "series"), SORT_UPDATED});
+        shapes.put("list.genre", new Document[]{new Document("category.slug", "hanh-dong"), SORT_UPDATED});
+        shapes.put("list.country", new Document[]{new Document("country.slug", "han-quoc"), SORT_UPDATED});
+        shapes.put("list.year", new Document[]{new Document("year", 2024), SORT_UPDATED});
+        shapes.put("list.cursor", new Document[]{new Document("$or", List.of(
+                new Document("updatedAt", new Document("$lt", now)),
+                new Document("updatedAt", now).append("_id", new Document("$lt", new ObjectId())),
+                new Document("updatedAt", null))), SORT_UPDATED});
+        shapes.put("latest", new Document[]{new Document(), new Document("_id", -1)});
+        shapes.put("latest.cursor", new Document[]{new Document("_id", new Document("$lt", new ObjectId())),
+                new Document("_id", -1)});
+        shapes.put("trending", new Document[]{new Document(), new Document("view", -1)});
+        shapes.put("free", new Document[]{new Document("accessType", Movie.AccessType.FREE.name()), new Document()});
+        shapes.put("slug", new Document[]{new Document("slug", "sample"), new Document()});
+        return shapes;
+    }
+
+    private Document explain(Document filter, Document sort) {
+        Document find = new Document("find", mongoTemplate.getCollectionName(Movie.class))
+                .append("filter", filter)
+                .append("limit", 24);
+        if (!sort.isEmpty()) {
+            find.append("sort", sort);
+        }
+        Document result = mongoTemplate.getDb().runCommand(
+                new Document("explain", find).append("verbosity", "queryPlanner"));
+        Document planner = result.get("queryPlanner", Document.class);
+        return planner != null ? planner.get("winningPlan", Document.class) : new Document();
+    }
+
+    /** Duyệt cây plan (inputStage / inputStages / queryPlan) lấy tên các stage. */
+    private static void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document doc) {
+            Object stage = doc.get("stage");
+            if (stage instanceof String s) {
+                stages.add(s);
+            }
+            doc.values().forEach(v -> collectStages(v, stages));
+        } else if (node instanceof List<?> list) {
+            list.forEach(v -> collectStages(v, stages));
+        }
+    }
+}
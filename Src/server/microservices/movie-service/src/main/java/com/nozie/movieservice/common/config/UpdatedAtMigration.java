@@ -0,0 +1,66 @@
+package com.nozie.movieservice.common.config;
+
+import com.mongodb.client.result.UpdateResult;
+import com.nozie.movieservice.common.model.Movie;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+
+/**
+ * Điền updatedAt (và createdAt nếu thiếu) cho phim chưa có - dữ liệu từ import.js bản trước không ghi hai trường
+ * này nên không xuất hiện trong feed /changes và xếp cuối danh sách mới cập nhật. Giá trị lấy từ importedAt,
+ * createdAt, modifiedAt rồi tới thời điểm trong ObjectId _id. Một lệnh updateMulti dạng pipeline, chỉ đụng phim
+ * còn thiếu updatedAt nên chạy lại (hoặc trên nhiều replica) đều an toàn. Index trong bộ nhớ nhận giá trị mới ở
+ * lần rebuild định kỳ kế tiếp.
+ */
+@Component
+@Slf4j
+public class UpdatedAtMigration {
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+
+    public UpdatedAtMigration(MongoTemplate mongoTemplate,
+                              @Value("${movie.changes.backfill-on-startup:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+    }
+
+    @Order(110)
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!enabled) return;
+        long start = System.currentTimeMillis();
+        AggregationExpression idTime = ConvertOperators.Convert.convertValueOf("_id").to("date")
+                .onErrorReturn(new Date());
+        AggregationExpression stamp = ConditionalOperators.ifNull("importedAt")
+                .orIfNull("createdAt")
+                .orIfNull("modifiedAt")
+                .then(idTime);
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("updatedAt").toValue(stamp)
+                .set("createdAt").toValue(ConditionalOperators.ifNull("createdAt").thenValueOf(stamp));
+        try {
+            UpdateResult result = mongoTemplate.updateMulti(Query.query(Criteria.where("updatedAt").is(null)),
+                    update, mongoTemplate.getCollectionName(Movie.class));
+            if (result.getModifiedCount() > 0) {
+                log.info("Backfilled updatedAt of {} movies in {} ms",
+                        result.getModifiedCount(), System.currentTimeMillis() - start);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("updatedAt backfill failed: {}", ex.getMessage());
+        }
+    }
+}
@@ -10,6 +10,8 @@ import lombok.Data;
 @Builder
 public class EpisodePlayInfo {
 
+    /** episodeIndex (0-based) dùng cho /play?episode= */
+    private int index;
     private String name;
     private String slug;
     private String m3u8Url;
@@ -0,0 +1,22 @@
+package com.nozie.movieservice.common.dto;
+
+import com.nozie.movieservice.common.model.EpisodeServer;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Danh sách server phát và số tập của từng server, không kèm link tập (mở player).
+ */
+@Data
+@Builder
+public class EpisodesSummaryResponse {
+
+    private String movieId;
+    private String movieName;
+    /** Link HLS custom nếu có (ưu tiên phát) */
+    private String customHlsUrl;
+    /** Thứ tự trong danh sách = serverIndex dùng cho /play và /servers/{server}/episodes */
+    private List<EpisodeServer> servers;
+}
@@ -0,0 +1,21 @@
+package com.nozie.movieservice.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Tra cứu nhiều phim một lần theo id và/hoặc slug.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MovieBatchRequest {
+
+    private List<String> ids;
+    private List<String> slugs;
+}
@@ -0,0 +1,19 @@
+package com.nozie.movieservice.common.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kết quả tra cứu nhiều phim: list-item theo id (thứ tự như request) và các id/slug không tìm thấy.
+ */
+@Data
+@Builder
+public class MovieBatchResponse {
+
+    private Map<String, MovieListItemResponse> movies;
+    private List<String> missingIds;
+    private List<String> missingSlugs;
+}
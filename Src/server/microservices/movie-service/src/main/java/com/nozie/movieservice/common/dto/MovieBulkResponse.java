@@ -0,0 +1,37 @@
+package com.nozie.movieservice.common.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Kết quả POST /api/movies/bulk: số phim tạo / cập nhật / lỗi và kết quả từng phần tử theo thứ tự request.
+ */
+@Data
+@Builder
+public class MovieBulkResponse {
+
+    private int total;
+    private int created;
+    private int updated;
+    private int failed;
+    private List<ItemResult> results;
+
+    @Data
+    @Builder
+    public static class ItemResult {
+        /** Vị trí trong request (0-based; với NDJSON là số dòng không rỗng) */
+        private int index;
+        private String slug;
+        private Status status;
+        private String id;
+        private String error;
+    }
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        FAILED
+    }
+}
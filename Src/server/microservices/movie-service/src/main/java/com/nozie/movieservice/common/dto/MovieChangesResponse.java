@@ -0,0 +1,37 @@
+package com.nozie.movieservice.common.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Một trang của GET /api/movies/changes: thay đổi theo thứ tự token tăng dần. nextToken dùng làm since
+ * cho lần gọi sau; resync = token quá cũ, client bỏ cache và gọi lại không có since.
+ */
+@Data
+@Builder
+public class MovieChangesResponse {
+
+    private List<Change> changes;
+    private String nextToken;
+    private boolean hasMore;
+    private boolean resync;
+
+    @Data
+    @Builder
+    public static class Change {
+        private Type type;
+        private String id;
+        private LocalDateTime changedAt;
+        /** List-item của phim; null với DELETED */
+        private MovieListItemResponse movie;
+    }
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
@@ -0,0 +1,29 @@
+package com.nozie.movieservice.common.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Số phim theo từng lựa chọn của bộ lọc (type, genre, country, year) dưới filter hiện tại.
+ * Mỗi danh sách sắp xếp theo số phim giảm dần.
+ */
+@Data
+@Builder
+public class MovieFacetsResponse {
+
+    /** Số phim khớp toàn bộ filter */
+    private long total;
+    private List<FacetCount> types;
+    private List<FacetCount> genres;
+    private List<FacetCount> countries;
+    private List<FacetCount> years;
+
+    @Data
+    @Builder
+    public static class FacetCount {
+        private String value;
+        private long count;
+    }
+}
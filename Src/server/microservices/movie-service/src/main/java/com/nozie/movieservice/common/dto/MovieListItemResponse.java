@@ -5,6 +5,7 @@ import com.nozie.movieservice.common.model.CountryRef;
 import lombok.Builder;
 import lombok.Data;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Data
@@ -28,5 +29,6 @@ public class MovieListItemResponse {
     private Double imdbRating;
     private List<CategoryRef> category;
     private List<CountryRef> country;
+    private BigDecimal price;
     private String accessType;
 }
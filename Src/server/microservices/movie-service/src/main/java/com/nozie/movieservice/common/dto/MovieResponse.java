@@ -2,11 +2,12 @@ package com.nozie.movieservice.common.dto;
 
 import com.nozie.movieservice.common.model.CategoryRef;
 import com.nozie.movieservice.common.model.CountryRef;
-import com.nozie.movieservice.common.model.Episode;
+import com.nozie.movieservice.common.model.EpisodeServer;
 import lombok.Builder;
 import lombok.Data;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -40,7 +41,9 @@ public class MovieResponse {
     private List<String> alternativeNames;
     private List<String> actor;
     private List<String> director;
-    private List<Episode> episodes;
+    /** Tên server + số tập; danh sách tập lấy qua /api/movies/{id}/episodes. */
+    private List<EpisodeServer> servers;
     private String customHlsUrl;
     private String customHlsSource;
+    private LocalDateTime updatedAt;
 }
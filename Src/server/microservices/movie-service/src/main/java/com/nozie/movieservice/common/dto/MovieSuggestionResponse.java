@@ -0,0 +1,19 @@
+package com.nozie.movieservice.common.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Một gợi ý cho ô tìm kiếm (typeahead) - chỉ đủ để hiển thị dòng gợi ý và điều hướng theo slug.
+ */
+@Data
+@Builder
+public class MovieSuggestionResponse {
+
+    private String id;
+    private String name;
+    private String originName;
+    private String slug;
+    private String thumbUrl;
+    private Integer year;
+}
@@ -18,4 +18,7 @@ public class PageResponse<T> {
     private int size;
     private long totalItems;
     private int totalPages;
+    private boolean hasNext;
+    /** Chỉ có ở cursor mode: truyền lại qua ?cursor= để lấy trang tiếp theo */
+    private String nextCursor;
 }
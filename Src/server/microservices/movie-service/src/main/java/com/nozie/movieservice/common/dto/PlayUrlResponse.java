@@ -19,6 +19,8 @@ public class PlayUrlResponse {
     private String m3u8Url;
     /** Link embed - nhúng iframe */
     private String embedUrl;
+    /** Link m3u8 qua HLS proxy của movie-service (null nếu proxy tắt) */
+    private String proxyUrl;
     /** true nếu dùng custom HLS (R2/CDN), false nếu từ OPhim */
     private boolean customHls;
 }
@@ -0,0 +1,24 @@
+package com.nozie.movieservice.common.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Một đoạn [offset, offset + limit) danh sách tập của một server.
+ */
+@Data
+@Builder
+public class ServerEpisodesPageResponse {
+
+    private String movieId;
+    private int serverIndex;
+    private String serverName;
+    private Boolean isAi;
+    private int offset;
+    private int limit;
+    /** Tổng số tập của server */
+    private int total;
+    private List<EpisodePlayInfo> episodes;
+}
@@ -0,0 +1,46 @@
+package com.nozie.movieservice.common.event;
+
+import com.nozie.movieservice.common.model.Movie;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Sự kiện nội bộ (Spring ApplicationEvent) khi catalog thay đổi, để các index / cache trong bộ nhớ
+ * cập nhật tăng dần thay vì đọc lại cả collection.
+ */
+@Getter
+@AllArgsConstructor
+public class MovieChangedEvent {
+
+    private final ChangeType type;
+    private final String movieId;
+    /** Document sau khi ghi; null với DELETED */
+    private final Movie movie;
+    /** true nếu thay đổi đến từ broadcast của replica khác (không broadcast lại) */
+    private final boolean remote;
+
+    public static MovieChangedEvent created(Movie movie) {
+        return new MovieChangedEvent(ChangeType.CREATED, movie.getId(), movie, false);
+    }
+
+    public static MovieChangedEvent updated(Movie movie) {
+        return new MovieChangedEvent(ChangeType.UPDATED, movie.getId(), movie, false);
+    }
+
+    public static MovieChangedEvent deleted(String movieId) {
+        return new MovieChangedEvent(ChangeType.DELETED, movieId, null, false);
+    }
+
+    /** Phim đã đổi ở replica khác, đọc lại từ Mongo: movie null = đã xóa. */
+    public static MovieChangedEvent remote(String movieId, Movie movie) {
+        return movie == null
+                ? new MovieChangedEvent(ChangeType.DELETED, movieId, null, true)
+                : new MovieChangedEvent(ChangeType.UPDATED, movieId, movie, true);
+    }
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
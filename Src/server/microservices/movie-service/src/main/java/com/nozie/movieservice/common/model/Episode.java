@@ -5,8 +5,9 @@ import lombok.*;
 import java.util.List;
 
 /**
- * Một server phát (Vietsub #1, ...) chứa danh sách tập với link_embed + link_m3u8.
- * MongoDB: serverName, isAi, serverData (camelCase từ import).
+ * Một server phát (Vietsub #1, ...) chứa danh sách tập với link_embed + link_m3u8, đúng cấu trúc episodes
+ * của OPhim. Chỉ dùng khi nhận dữ liệu dạng cây (import, migration); lưu trữ tách thành
+ * {@link EpisodeServer} + {@link MovieEpisode}.
  */
 @Getter
 @Setter
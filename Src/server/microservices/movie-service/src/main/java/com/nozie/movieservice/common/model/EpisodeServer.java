@@ -0,0 +1,19 @@
+package com.nozie.movieservice.common.model;
+
+import lombok.*;
+
+/**
+ * Tóm tắt một server phát (embedded trong Movie): tên và số tập. Link từng tập nằm ở collection episodes
+ * ({@link MovieEpisode}) với serverIndex = vị trí trong Movie.servers.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EpisodeServer {
+
+    private String serverName;
+    private Boolean isAi;
+    private int episodeCount;
+}
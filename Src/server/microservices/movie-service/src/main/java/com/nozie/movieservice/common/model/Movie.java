@@ -2,6 +2,8 @@ package com.nozie.movieservice.common.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.IndexDirection;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import jakarta.validation.constraints.*;
@@ -10,9 +12,19 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 /**
- * Movie Document - metadata + episodes. MongoDB dùng camelCase (khớp với tools/import.js).
+ * Movie Document - metadata + tóm tắt server phát. MongoDB dùng camelCase (khớp với tools/import.js).
+ * Link từng tập nằm ở collection episodes ({@link MovieEpisode}), không nhúng trong document phim.
+ * <p>
+ * Index được tạo lúc khởi động bởi MovieIndexInitializer: mỗi filter của CatalogController
+ * (type, category.slug, country.slug, year) + sort (updatedAt desc, _id desc) đều có index riêng;
+ * category.slug / country.slug là multikey index.
  */
 @Document(collection = "movies")
+@CompoundIndex(name = "updatedAt_id", def = "{ 'updatedAt': -1, '_id': -1 }")
+@CompoundIndex(name = "type_updatedAt_id", def = "{ 'type': 1, 'updatedAt': -1, '_id': -1 }")
+@CompoundIndex(name = "category_updatedAt_id", def = "{ 'category.slug': 1, 'updatedAt': -1, '_id': -1 }")
+@CompoundIndex(name = "country_updatedAt_id", def = "{ 'country.slug': 1, 'updatedAt': -1, '_id': -1 }")
+@CompoundIndex(name = "year_updatedAt_id", def = "{ 'year': -1, 'updatedAt': -1, '_id': -1 }")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -22,6 +34,8 @@ public class Movie {
 
     @Id
     private String id;
+    /** _id bên OPhim - khóa đồng bộ của OphimSyncService */
+    @Indexed(sparse = true)
     private String externalId;
 
     @NotBlank(message = "Movie name is required")
@@ -45,6 +59,7 @@ public class Movie {
     private Integer year;
 
     @Builder.Default
+    @Indexed(name = "view_desc", direction = IndexDirection.DESCENDING)
     private Long view = 0L;
 
     private String time;
@@ -55,6 +70,7 @@ public class Movie {
     private BigDecimal price = BigDecimal.ZERO;
 
     @Builder.Default
+    @Indexed
     private AccessType accessType = AccessType.FREE;
 
     private Double tmdbRating;
@@ -69,7 +85,8 @@ public class Movie {
     private Boolean subDocquyen;
     private Boolean chieuRap;
 
-    private List<Episode> episodes;
+    /** Server phát theo thứ tự (serverIndex), chỉ tên + số tập. */
+    private List<EpisodeServer> servers;
 
     @Builder.Default
     private Source source = Source.OPHIM;
@@ -79,6 +96,8 @@ public class Movie {
     @Builder.Default
     private LocalDateTime createdAt = LocalDateTime.now();
     private LocalDateTime updatedAt;
+    /** modified.time bên OPhim lần đồng bộ gần nhất - so sánh để chỉ ghi phim đã đổi */
+    private LocalDateTime modifiedAt;
 
     public void onUpdate() {
         updatedAt = LocalDateTime.now();
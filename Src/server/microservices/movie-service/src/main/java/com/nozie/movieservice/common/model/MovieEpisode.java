@@ -0,0 +1,32 @@
+package com.nozie.movieservice.common.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Một tập của một server phát, tách khỏi document Movie để đọc/ghi phim không kéo theo toàn bộ cây tập.
+ * Khóa (movieId, serverIndex, episodeIndex), cả hai index 0-based như query param của /play.
+ */
+@Document(collection = "episodes")
+@CompoundIndex(name = "movie_server_episode", def = "{ 'movieId': 1, 'serverIndex': 1, 'episodeIndex': 1 }", unique = true)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MovieEpisode {
+
+    @Id
+    private String id;
+    private String movieId;
+    private int serverIndex;
+    private int episodeIndex;
+
+    private String name;
+    private String slug;
+    private String filename;
+    private String linkEmbed;
+    private String linkM3u8;
+}
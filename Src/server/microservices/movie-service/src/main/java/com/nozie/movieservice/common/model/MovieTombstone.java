@@ -0,0 +1,30 @@
+package com.nozie.movieservice.common.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Dấu vết phim đã xóa (id = id phim) cho GET /api/movies/changes, tự hết hạn sau {@link #RETENTION}.
+ * Client có token cũ hơn mốc này phải đồng bộ lại từ đầu.
+ */
+@Document(collection = "movie_tombstones")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieTombstone {
+
+    public static final Duration RETENTION = Duration.ofDays(30);
+
+    @Id
+    private String id;
+
+    /** TTL index, giữ khớp với RETENTION */
+    @Indexed(expireAfter = "30d")
+    private LocalDateTime deletedAt;
+}
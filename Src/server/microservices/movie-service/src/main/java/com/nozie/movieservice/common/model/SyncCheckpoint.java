@@ -0,0 +1,43 @@
+package com.nozie.movieservice.common.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Checkpoint của một nguồn đồng bộ (id = tên nguồn, vd "ophim"): watermark của lần chạy xong gần nhất và
+ * tiến độ lần chạy hiện tại để chạy tiếp từ trang kế sau khi restart.
+ */
+@Document(collection = "sync_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncCheckpoint {
+
+    @Id
+    private String id;
+
+    /** Mọi phim có modified.time trước mốc này đã được đồng bộ; null = chưa chạy xong lần nào */
+    private Instant watermark;
+
+    private Instant runStartedAt;
+    /** null khi lần chạy đang dở (sẽ được chạy tiếp) */
+    private Instant runFinishedAt;
+    private boolean runFull;
+    /** watermark dùng làm mốc dừng cho lần chạy này */
+    private Instant runCutoff;
+    /** Trang danh sách (1-based) chạy tiếp */
+    private int nextPage;
+    /** modified.time lớn nhất đã thấy trong lần chạy */
+    private Instant runMaxModified;
+    /** modified.time nhỏ nhất của phim ghi lỗi - watermark mới không vượt quá mốc này */
+    private Instant runMinFailed;
+
+    private long scanned;
+    private long changed;
+    private long failed;
+}
@@ -0,0 +1,26 @@
+package com.nozie.movieservice.common.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Lease của một job đồng bộ (id = tên nguồn): chỉ replica giữ lease chưa hết hạn mới được chạy. Replica chạy
+ * gia hạn sau mỗi checkpoint; replica chết giữa chừng thì lease tự hết hạn ở expiresAt.
+ */
+@Document(collection = "sync_leases")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncLease {
+
+    @Id
+    private String id;
+
+    private String owner;
+
+    private Instant expiresAt;
+}
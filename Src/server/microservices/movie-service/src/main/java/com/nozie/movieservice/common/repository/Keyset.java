@@ -0,0 +1,18 @@
+package com.nozie.movieservice.common.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vị trí của phần tử cuối trang trước trong thứ tự (updatedAt desc, _id desc); feed thay đổi dùng thứ tự tăng dần.
+ */
+@Getter
+@AllArgsConstructor
+public class Keyset {
+
+    /** null nếu phim chưa có updatedAt (các phim này đứng sau cùng) */
+    private final LocalDateTime updatedAt;
+    private final String id;
+}
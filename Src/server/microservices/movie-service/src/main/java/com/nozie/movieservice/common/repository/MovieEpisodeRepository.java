@@ -0,0 +1,18 @@
+package com.nozie.movieservice.common.repository;
+
+import com.nozie.movieservice.common.model.MovieEpisode;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MovieEpisodeRepository extends MongoRepository<MovieEpisode, String>, MovieEpisodeRepositoryCustom {
+
+    Optional<MovieEpisode> findByMovieIdAndServerIndexAndEpisodeIndex(String movieId, int serverIndex, int episodeIndex);
+
+    List<MovieEpisode> findByMovieIdOrderByServerIndexAscEpisodeIndexAsc(String movieId);
+
+    void deleteByMovieId(String movieId);
+}
@@ -0,0 +1,20 @@
+package com.nozie.movieservice.common.repository;
+
+import com.nozie.movieservice.common.model.Episode;
+import com.nozie.movieservice.common.model.EpisodeServer;
+import com.nozie.movieservice.common.model.MovieEpisode;
+
+import java.util.List;
+
+public interface MovieEpisodeRepositoryCustom {
+
+    /**
+     * Thay toàn bộ tập của phim bằng cây server → tập dạng OPhim: upsert từng tập theo (serverIndex, episodeIndex)
+     * rồi xóa các tập không còn, nên người đọc luôn thấy bản cũ hoặc bản mới của từng tập. Trả tóm tắt server
+     * để ghi vào Movie.servers.
+     */
+    List<EpisodeServer> replaceAll(String movieId, List<Episode> servers);
+
+    /** Tối đa limit tập của một server từ episodeIndex fromIndex, theo episodeIndex tăng dần (range trên index). */
+    List<MovieEpisode> findRange(String movieId, int serverIndex, int fromIndex, int limit);
+}
@@ -0,0 +1,89 @@
+package com.nozie.movieservice.common.repository;
+
+import com.nozie.movieservice.common.model.Episode;
+import com.nozie.movieservice.common.model.EpisodeServer;
+import com.nozie.movieservice.common.model.MovieEpisode;
+import com.nozie.movieservice.common.model.ServerDataItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class MovieEpisodeRepositoryImpl implements MovieEpisodeRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<EpisodeServer> replaceAll(String movieId, List<Episode> servers) {
+        List<EpisodeServer> summary = new ArrayList<>();
+        List<MovieEpisode> items = new ArrayList<>();
+        if (servers != null) {
+            for (int s = 0; s < servers.size(); s++) {
+                Episode server = servers.get(s);
+                List<ServerDataItem> data = server.getServerData() != null ? server.getServerData() : List.of();
+                for (int e = 0; e < data.size(); e++) {
+                    ServerDataItem sd = data.get(e);
+                    items.add(MovieEpisode.builder()
+                            .movieId(movieId)
+                            .serverIndex(s)
+                            .episodeIndex(e)
+                            .name(sd.getName())
+                            .slug(sd.getSlug())
+                            .filename(sd.getFilename())
+                            .linkEmbed(sd.getLinkEmbed())
+                            .linkM3u8(sd.getLinkM3u8())
+                            .build());
+                }
+                summary.add(EpisodeServer.builder()
+                        .serverName(server.getServerName())
+                        .isAi(server.getIsAi())
+                        .episodeCount(data.size())
+                        .build());
+            }
+        }
+
+        // Ghi đè từng tập theo khóa unique trước, xóa tập thừa sau: /episodes và /play không lúc nào thấy phim
+        // hết tập (không cần transaction, Mongo standalone cũng chạy được)
+        if (!items.isEmpty()) {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MovieEpisode.class);
+            for (MovieEpisode item : items) {
+                ops.upsert(Query.query(Criteria.where("movieId").is(movieId)
+                                .and("serverIndex").is(item.getServerIndex())
+                                .and("episodeIndex").is(item.getEpisodeIndex())),
+                        new Update()
+                                .set("name", item.getName())
+                                .set("slug", item.getSlug())
+                                .set("filename", item.getFilename())
+                                .set("linkEmbed", item.getLinkEmbed())
+                                .set("linkM3u8", item.getLinkM3u8()));
+            }
+            ops.execute();
+        }
+        List<Criteria> stale = new ArrayList<>();
+        stale.add(Criteria.where("serverIndex").gte(summary.size()));
+        for (int s = 0; s < summary.size(); s++) {
+            stale.add(Criteria.where("serverIndex").is(s).and("episodeIndex").gte(summary.get(s).getEpisodeCount()));
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("movieId").is(movieId).orOperator(stale)), MovieEpisode.class);
+        return summary;
+    }
+
+    @Override
+    public List<MovieEpisode> findRange(String movieId, int serverIndex, int fromIndex, int limit) {
+        Query q = Query.query(Criteria.where("movieId").is(movieId)
+                        .and("serverIndex").is(serverIndex)
+                        .and("episodeIndex").gte(fromIndex))
+                .with(Sort.by(Sort.Direction.ASC, "episodeIndex"))
+                .limit(limit);
+        return mongoTemplate.find(q, MovieEpisode.class);
+    }
+}
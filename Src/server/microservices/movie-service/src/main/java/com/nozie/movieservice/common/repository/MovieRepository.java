@@ -2,6 +2,7 @@ package com.nozie.movieservice.common.repository;
 
 import com.nozie.movieservice.common.model.Movie;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,11 +15,11 @@ public interface MovieRepository extends MongoRepository<Movie, String>, MovieRe
 
     List<Movie> findByType(String type);
 
+    @Query(fields = LIST_ITEM_PROJECTION)
     List<Movie> findByAccessType(Movie.AccessType accessType);
 
+    @Query(fields = LIST_ITEM_PROJECTION)
     List<Movie> findTop10ByOrderByViewDesc();
 
-    List<Movie> findByNameContainingIgnoreCaseOrOriginNameContainingIgnoreCase(String name, String originName);
-
     boolean existsBySlug(String slug);
 }
@@ -1,15 +1,99 @@
 package com.nozie.movieservice.common.repository;
 
 import com.nozie.movieservice.common.model.Movie;
-import org.springframework.data.domain.Page;
+import com.nozie.movieservice.common.model.MovieTombstone;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface MovieRepositoryCustom {
 
-    Page<Movie> findWithFilter(String type, String genreSlug, String countrySlug,
-                               Integer year, String keyword, Pageable pageable);
+    /** Các field cần cho MovieListItemResponse - danh sách không load episodes/content/actor. */
+    String[] LIST_ITEM_FIELDS = {
+            "name", "originName", "slug", "thumbUrl", "posterUrl", "type", "quality", "lang", "year",
+            "view", "time", "episodeCurrent", "tmdbRating", "imdbRating", "category", "country", "price", "accessType", "updatedAt"
+    };
+
+    /** Projection tương ứng LIST_ITEM_FIELDS cho @Query(fields = ...). */
+    String LIST_ITEM_PROJECTION = "{ 'name': 1, 'originName': 1, 'slug': 1, 'thumbUrl': 1, 'posterUrl': 1, "
+            + "'type': 1, 'quality': 1, 'lang': 1, 'year': 1, 'view': 1, 'time': 1, 'episodeCurrent': 1, "
+            + "'tmdbRating': 1, 'imdbRating': 1, 'category': 1, 'country': 1, 'price': 1, 'accessType': 1, 'updatedAt': 1 }";
+
+    /**
+     * Trang phim theo filter, chỉ load LIST_ITEM_FIELDS. Với EXACT/ESTIMATED trả về {@link org.springframework.data.domain.Page}
+     * (trang + tổng trong một query $facet), với NONE trả về Slice không có tổng.
+     */
+    Slice<Movie> findWithFilter(String type, String genreSlug, String countrySlug,
+                                Integer year, String keyword, Pageable pageable, TotalMode totalMode);
+
+    /**
+     * Keyset pagination theo (updatedAt desc, _id desc): trả về tối đa limit phim đứng sau vị trí after
+     * (null = trang đầu). Chi phí không phụ thuộc độ sâu trang.
+     */
+    List<Movie> findWithFilterAfter(String type, String genreSlug, String countrySlug,
+                                    Integer year, String keyword, Keyset after, int limit);
+
+    /** Keyset pagination theo _id desc (phim mới thêm). afterId null = trang đầu. */
+    List<Movie> findLatestAfter(String afterId, int limit);
+
+    /** List-item (LIST_ITEM_FIELDS) của các id, thứ tự không xác định. */
+    List<Movie> findListItemsByIds(Collection<String> ids);
+
+    /** Phim theo id / slug chỉ với các field trong fields (projection). */
+    Optional<Movie> findProjectedById(String id, Collection<String> fields);
+
+    Optional<Movie> findProjectedBySlug(String slug, Collection<String> fields);
+
+    /** List-item của các phim có id thuộc ids hoặc slug thuộc slugs, trong một query. */
+    List<Movie> findListItemsByIdsOrSlugs(Collection<String> ids, Collection<String> slugs);
+
+    /** Tập con của ids khớp các filter type/genre/country/year (null = bỏ qua). */
+    List<String> filterIds(Collection<String> ids, String type, String genreSlug, String countrySlug, Integer year);
 
     List<Integer> findDistinctYears();
+
+    /**
+     * Feed thay đổi: list-item (kèm createdAt) của phim có (updatedAt, _id) > after và updatedAt < before,
+     * xếp tăng dần. after null = từ đầu.
+     */
+    List<Movie> findChangedAfter(Keyset after, LocalDateTime before, int limit);
+
+    /** Như findChangedAfter cho tombstone của phim đã xóa, theo (deletedAt, _id). */
+    List<MovieTombstone> findDeletedAfter(Keyset after, LocalDateTime before, int limit);
+
+    /** Ghi tombstone sau khi xóa phim. */
+    void markDeleted(String id, LocalDateTime deletedAt);
+
+    /**
+     * Cursor (MongoTemplate.stream) qua toàn bộ catalog cho export: since != null chỉ lấy phim có
+     * updatedAt >= since, xếp (updatedAt, _id) tăng dần; ngược lại xếp theo _id. fields null = đủ field.
+     * Caller phải đóng Stream.
+     */
+    Stream<Movie> streamForExport(LocalDateTime since, Collection<String> fields, int batchSize);
+
+    /** Chỉ lấy _id theo slug (không load cả document). */
+    Optional<String> findIdBySlug(String slug);
+
+    /**
+     * Cộng dồn lượt xem: một bulk write unordered gồm các $inc theo _id. Trả về id của các lệnh bị lỗi (các lệnh
+     * còn lại đã được ghi); lỗi không gắn với lệnh nào (mất kết nối...) ném ra như bình thường.
+     */
+    Set<String> incrementViews(Map<String, Long> deltasById);
+
+    /** Cách tính totalItems cho danh sách phân trang. */
+    enum TotalMode {
+        /** Đếm chính xác */
+        EXACT,
+        /** Đếm tối đa movie.catalog.count-cap document (totalItems có thể là cận dưới) */
+        ESTIMATED,
+        /** Không đếm, chỉ trả về hasNext */
+        NONE
+    }
 }
@@ -1,17 +1,35 @@
 package com.nozie.movieservice.common.repository;
 
 import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.model.MovieTombstone;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Repository
 @RequiredArgsConstructor
@@ -19,37 +37,245 @@ public class MovieRepositoryImpl implements MovieRepositoryCustom {
 
     private final MongoTemplate mongoTemplate;
 
+    /** total=estimated: đếm tối đa bấy nhiêu document khớp filter */
+    @Value("${movie.catalog.count-cap:1000}")
+    private long countCap;
+
+    @Override
+    public Slice<Movie> findWithFilter(String type, String genreSlug, String countrySlug,
+                                       Integer year, String keyword, Pageable pageable, TotalMode totalMode) {
+        Criteria criteria = filterCriteria(type, genreSlug, countrySlug, year, keyword);
+
+        if (totalMode == TotalMode.NONE) {
+            // Không đếm: lấy dư 1 phần tử để biết còn trang sau hay không
+            Query q = new Query(criteria).with(pageable.getSort())
+                    .skip(pageable.getOffset()).limit(pageable.getPageSize() + 1);
+            q.fields().include(LIST_ITEM_FIELDS);
+            List<Movie> items = mongoTemplate.find(q, Movie.class);
+            boolean hasNext = items.size() > pageable.getPageSize();
+            return new SliceImpl<>(hasNext ? items.subList(0, pageable.getPageSize()) : items, pageable, hasNext);
+        }
+
+        if (criteria.getCriteriaObject().isEmpty()) {
+            // Không filter: tổng lấy từ metadata collection, không cần quét
+            Query q = new Query().with(pageable);
+            q.fields().include(LIST_ITEM_FIELDS);
+            List<Movie> items = mongoTemplate.find(q, Movie.class);
+            return new PageImpl<>(items, pageable, mongoTemplate.estimatedCount(Movie.class));
+        }
+
+        // Một round trip: $match (+ $sort) rồi $facet trả về cả trang và tổng
+        List<AggregationOperation> ops = new ArrayList<>();
+        ops.add(Aggregation.match(criteria));
+        if (pageable.getSort().isSorted()) {
+            ops.add(Aggregation.sort(pageable.getSort()));
+        }
+        ops.add(Aggregation.project(LIST_ITEM_FIELDS));
+        AggregationOperation[] totalPipeline = totalMode == TotalMode.ESTIMATED
+                ? new AggregationOperation[]{Aggregation.limit(countCap), Aggregation.count().as("total")}
+                : new AggregationOperation[]{Aggregation.count().as("total")};
+        ops.add(Aggregation.facet(Aggregation.skip(pageable.getOffset()), Aggregation.limit(pageable.getPageSize()))
+                .as("items")
+                .and(totalPipeline).as("total"));
+
+        Document result = mongoTemplate.aggregate(Aggregation.newAggregation(Movie.class, ops), Document.class)
+                .getUniqueMappedResult();
+        if (result == null) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+        List<Movie> items = result.getList("items", Document.class).stream()
+                .map(d -> mongoTemplate.getConverter().read(Movie.class, d))
+                .toList();
+        List<Document> totals = result.getList("total", Document.class);
+        long total = totals.isEmpty() ? 0 : ((Number) totals.get(0).get("total")).longValue();
+        return new PageImpl<>(items, pageable, total);
+    }
+
     @Override
-    public Page<Movie> findWithFilter(String type, String genreSlug, String countrySlug,
-                                      Integer year, String keyword, Pageable pageable) {
+    public List<Movie> findWithFilterAfter(String type, String genreSlug, String countrySlug,
+                                           Integer year, String keyword, Keyset after, int limit) {
+        Criteria criteria = filterCriteria(type, genreSlug, countrySlug, year, keyword);
+        if (after != null) {
+            criteria = new Criteria().andOperator(criteria, afterCriteria(after));
+        }
+        Query q = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "updatedAt", "_id"))
+                .limit(limit);
+        q.fields().include(LIST_ITEM_FIELDS);
+        return mongoTemplate.find(q, Movie.class);
+    }
+
+    @Override
+    public List<Movie> findLatestAfter(String afterId, int limit) {
         Query q = new Query();
+        if (afterId != null) {
+            q.addCriteria(Criteria.where("_id").lt(afterId));
+        }
+        q.with(Sort.by(Sort.Direction.DESC, "_id")).limit(limit);
+        q.fields().include(LIST_ITEM_FIELDS);
+        return mongoTemplate.find(q, Movie.class);
+    }
+
+    /** Các phim đứng sau (updatedAt, _id) khi sắp xếp desc; updatedAt null xếp cuối. */
+    private Criteria afterCriteria(Keyset after) {
+        if (after.getUpdatedAt() == null) {
+            return new Criteria().andOperator(
+                    Criteria.where("updatedAt").is(null),
+                    Criteria.where("_id").lt(after.getId()));
+        }
+        return new Criteria().orOperator(
+                Criteria.where("updatedAt").lt(after.getUpdatedAt()),
+                new Criteria().andOperator(
+                        Criteria.where("updatedAt").is(after.getUpdatedAt()),
+                        Criteria.where("_id").lt(after.getId())),
+                Criteria.where("updatedAt").is(null));
+    }
+
+    private Criteria filterCriteria(String type, String genreSlug, String countrySlug,
+                                    Integer year, String keyword) {
+        Criteria c = new Criteria();
         if (type != null && !type.isBlank()) {
-            q.addCriteria(Criteria.where("type").is(type));
+            c.and("type").is(type);
         }
         if (genreSlug != null && !genreSlug.isBlank()) {
-            q.addCriteria(Criteria.where("category.slug").is(genreSlug));
+            c.and("category.slug").is(genreSlug);
         }
         if (countrySlug != null && !countrySlug.isBlank()) {
-            q.addCriteria(Criteria.where("country.slug").is(countrySlug));
+            c.and("country.slug").is(countrySlug);
         }
         if (year != null) {
-            q.addCriteria(Criteria.where("year").is(year));
+            c.and("year").is(year);
         }
         if (keyword != null && !keyword.isBlank()) {
             Pattern p = Pattern.compile(Pattern.quote(keyword), Pattern.CASE_INSENSITIVE);
-            q.addCriteria(new Criteria().orOperator(
+            c.orOperator(
                     Criteria.where("name").regex(p),
                     Criteria.where("originName").regex(p)
-            ));
+            );
         }
-        long total = mongoTemplate.count(q, Movie.class);
-        q.with(pageable);
-        List<Movie> items = mongoTemplate.find(q, Movie.class);
-        return new PageImpl<>(items, pageable, total);
+        return c;
+    }
+
+    @Override
+    public List<Movie> findListItemsByIds(Collection<String> ids) {
+        if (ids.isEmpty()) return List.of();
+        Query q = Query.query(Criteria.where("_id").in(ids));
+        q.fields().include(LIST_ITEM_FIELDS);
+        return mongoTemplate.find(q, Movie.class);
+    }
+
+    @Override
+    public Optional<Movie> findProjectedById(String id, Collection<String> fields) {
+        Query q = Query.query(Criteria.where("_id").is(id));
+        q.fields().include(fields.toArray(String[]::new));
+        return Optional.ofNullable(mongoTemplate.findOne(q, Movie.class));
+    }
+
+    @Override
+    public Optional<Movie> findProjectedBySlug(String slug, Collection<String> fields) {
+        Query q = Query.query(Criteria.where("slug").is(slug));
+        q.fields().include(fields.toArray(String[]::new));
+        return Optional.ofNullable(mongoTemplate.findOne(q, Movie.class));
+    }
+
+    @Override
+    public List<Movie> findListItemsByIdsOrSlugs(Collection<String> ids, Collection<String> slugs) {
+        List<Criteria> any = new ArrayList<>(2);
+        if (!ids.isEmpty()) any.add(Criteria.where("_id").in(ids));
+        if (!slugs.isEmpty()) any.add(Criteria.where("slug").in(slugs));
+        if (any.isEmpty()) return List.of();
+        Query q = Query.query(any.size() == 1 ? any.get(0) : new Criteria().orOperator(any));
+        q.fields().include(LIST_ITEM_FIELDS);
+        return mongoTemplate.find(q, Movie.class);
+    }
+
+    @Override
+    public List<String> filterIds(Collection<String> ids, String type, String genreSlug,
+                                  String countrySlug, Integer year) {
+        if (ids.isEmpty()) return List.of();
+        Query q = new Query(filterCriteria(type, genreSlug, countrySlug, year, null).and("_id").in(ids));
+        q.fields().include("_id");
+        return mongoTemplate.find(q, Movie.class).stream().map(Movie::getId).toList();
     }
 
     @Override
     public List<Integer> findDistinctYears() {
         return mongoTemplate.findDistinct(new Query(), "year", Movie.class, Integer.class);
     }
+
+    @Override
+    public List<Movie> findChangedAfter(Keyset after, LocalDateTime before, int limit) {
+        Query q = Query.query(changedAfter("updatedAt", after, before))
+                .with(Sort.by(Sort.Order.asc("updatedAt"), Sort.Order.asc("_id"))).limit(limit);
+        q.fields().include(LIST_ITEM_FIELDS).include("createdAt");
+        return mongoTemplate.find(q, Movie.class);
+    }
+
+    @Override
+    public List<MovieTombstone> findDeletedAfter(Keyset after, LocalDateTime before, int limit) {
+        Query q = Query.query(changedAfter("deletedAt", after, before))
+                .with(Sort.by(Sort.Order.asc("deletedAt"), Sort.Order.asc("_id"))).limit(limit);
+        return mongoTemplate.find(q, MovieTombstone.class);
+    }
+
+    @Override
+    public void markDeleted(String id, LocalDateTime deletedAt) {
+        mongoTemplate.save(new MovieTombstone(id, deletedAt));
+    }
+
+    /** (field, _id) > after khi sắp xếp tăng dần (field >= after nếu token không có id), và field < before. */
+    private static Criteria changedAfter(String field, Keyset after, LocalDateTime before) {
+        if (after == null) {
+            return Criteria.where(field).lt(before);
+        }
+        if (after.getId().isEmpty()) {
+            return Criteria.where(field).gte(after.getUpdatedAt()).lt(before);
+        }
+        return new Criteria().andOperator(
+                Criteria.where(field).lt(before),
+                new Criteria().orOperator(
+                        Criteria.where(field).gt(after.getUpdatedAt()),
+                        new Criteria().andOperator(
+                                Criteria.where(field).is(after.getUpdatedAt()),
+                                Criteria.where("_id").gt(after.getId()))));
+    }
+
+    @Override
+    public Stream<Movie> streamForExport(LocalDateTime since, Collection<String> fields, int batchSize) {
+        Query q = since != null
+                ? Query.query(Criteria.where("updatedAt").gte(since))
+                        .with(Sort.by(Sort.Order.asc("updatedAt"), Sort.Order.asc("_id")))
+                : new Query().with(Sort.by(Sort.Order.asc("_id")));
+        if (fields != null) q.fields().include(fields.toArray(String[]::new));
+        q.cursorBatchSize(batchSize);
+        return mongoTemplate.stream(q, Movie.class);
+    }
+
+    @Override
+    public Optional<String> findIdBySlug(String slug) {
+        Query q = Query.query(Criteria.where("slug").is(slug));
+        q.fields().include("_id");
+        Movie movie = mongoTemplate.findOne(q, Movie.class);
+        return Optional.ofNullable(movie).map(Movie::getId);
+    }
+
+    @Override
+    public Set<String> incrementViews(Map<String, Long> deltasById) {
+        if (deltasById.isEmpty()) return Set.of();
+        List<String> ids = new ArrayList<>(deltasById.size());
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Movie.class);
+        deltasById.forEach((id, delta) -> {
+            ids.add(id);
+            ops.updateOne(Query.query(Criteria.where("_id").is(id)), new Update().inc("view", delta));
+        });
+        try {
+            ops.execute();
+            return Set.of();
+        } catch (BulkOperationException ex) {
+            // Unordered: chỉ các lệnh có trong getErrors() là chưa được ghi
+            Set<String> failed = new HashSet<>();
+            ex.getErrors().forEach(error -> failed.add(ids.get(error.getIndex())));
+            return failed;
+        }
+    }
 }
@@ -0,0 +1,43 @@
+package com.nozie.movieservice.common.repository;
+
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.model.SyncCheckpoint;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Dữ liệu của job đồng bộ catalog từ nguồn ngoài: checkpoint, lease giữa các replica và ghi phim theo externalId.
+ */
+public interface SyncRepository {
+
+    Optional<SyncCheckpoint> findCheckpoint(String source);
+
+    void saveCheckpoint(SyncCheckpoint checkpoint);
+
+    /** Giành hoặc gia hạn lease ttl; true nếu lease trống, đã hết hạn hoặc đang do owner giữ. */
+    boolean tryAcquireLease(String source, String owner, Duration ttl);
+
+    /** Trả lease nếu owner còn giữ. */
+    void releaseLease(String source, String owner);
+
+    /** (_id, modifiedAt) đã lưu theo externalId, một query $in. */
+    Map<String, StoredVersion> findStoredVersions(Collection<String> externalIds);
+
+    /**
+     * Upsert theo externalId (updates[i] cho externalIds[i]) bằng một bulkWrite unordered. Trả vị trí các lệnh bị
+     * từ chối kèm lý do; các lệnh còn lại đã được ghi.
+     */
+    Map<Integer, String> upsertByExternalId(List<String> externalIds, List<Update> updates);
+
+    List<Movie> findMoviesByIds(Collection<String> ids);
+
+    /** Phiên bản phim đã lưu. */
+    record StoredVersion(String id, LocalDateTime modifiedAt) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.nozie.movieservice.common.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.model.SyncCheckpoint;
+import com.nozie.movieservice.common.model.SyncLease;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class SyncRepositoryImpl implements SyncRepository {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<SyncCheckpoint> findCheckpoint(String source) {
+        return Optional.ofNullable(mongoTemplate.findById(source, SyncCheckpoint.class));
+    }
+
+    @Override
+    public void saveCheckpoint(SyncCheckpoint checkpoint) {
+        mongoTemplate.save(checkpoint);
+    }
+
+    @Override
+    public boolean tryAcquireLease(String source, String owner, Duration ttl) {
+        Instant now = Instant.now();
+        Query q = Query.query(Criteria.where("_id").is(source)
+                .orOperator(Criteria.where("expiresAt").lt(now), Criteria.where("owner").is(owner)));
+        try {
+            mongoTemplate.upsert(q, new Update().set("owner", owner).set("expiresAt", now.plus(ttl)), SyncLease.class);
+            return true;
+        } catch (DuplicateKeyException ex) {
+            // Document của source đã có và đang do replica khác giữ: upsert chèn trùng _id
+            return false;
+        }
+    }
+
+    @Override
+    public void releaseLease(String source, String owner) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(source).and("owner").is(owner)), SyncLease.class);
+    }
+
+    @Override
+    public Map<String, StoredVersion> findStoredVersions(Collection<String> externalIds) {
+        Query q = Query.query(Criteria.where("externalId").in(externalIds));
+        q.fields().include("externalId", "modifiedAt");
+        Map<String, StoredVersion> stored = new HashMap<>();
+        for (StoredDoc doc : mongoTemplate.find(q, StoredDoc.class, mongoTemplate.getCollectionName(Movie.class))) {
+            stored.put(doc.getExternalId(), new StoredVersion(doc.getId(), doc.getModifiedAt()));
+        }
+        return stored;
+    }
+
+    @Override
+    public Map<Integer, String> upsertByExternalId(List<String> externalIds, List<Update> updates) {
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Movie.class);
+        for (int i = 0; i < externalIds.size(); i++) {
+            ops.upsert(Query.query(Criteria.where("externalId").is(externalIds.get(i))), updates.get(i));
+        }
+        Map<Integer, String> rejected = new HashMap<>();
+        try {
+            ops.execute();
+        } catch (BulkOperationException ex) {
+            for (BulkWriteError error : ex.getErrors()) {
+                rejected.put(error.getIndex(), error.getMessage());
+            }
+        }
+        return rejected;
+    }
+
+    @Override
+    public List<Movie> findMoviesByIds(Collection<String> ids) {
+        return mongoTemplate.find(Query.query(Criteria.where("_id").in(ids)), Movie.class);
+    }
+
+    /** Document phim chỉ đọc _id + externalId + modifiedAt. */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    static class StoredDoc {
+        @Id
+        private String id;
+        private String externalId;
+        private LocalDateTime modifiedAt;
+    }
+}
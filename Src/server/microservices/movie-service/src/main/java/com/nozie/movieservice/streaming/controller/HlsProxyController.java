@@ -0,0 +1,36 @@
+package com.nozie.movieservice.streaming.controller;
+
+import com.nozie.movieservice.streaming.hls.HlsProxyService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HLS proxy API - playlist m3u8 của upstream qua cache của movie-service (movie.hls-proxy.enabled).
+ */
+@RestController
+@RequestMapping(HlsProxyService.PATH)
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@ConditionalOnProperty(name = "movie.hls-proxy.enabled", havingValue = "true")
+public class HlsProxyController {
+
+    private static final MediaType MPEGURL = MediaType.parseMediaType(HlsProxyService.CONTENT_TYPE);
+
+    private final HlsProxyService hlsProxyService;
+
+    /** GET /api/movies/hls?url= - Playlist đã viết lại (playlist con qua proxy, segment tải thẳng từ CDN) */
+    @GetMapping
+    public CompletableFuture<ResponseEntity<byte[]>> getPlaylist(@RequestParam String url) {
+        return hlsProxyService.get(url).thenApply(playlist -> ResponseEntity.ok()
+                .contentType(MPEGURL)
+                .cacheControl(CacheControl.maxAge(playlist.maxAgeSeconds(), TimeUnit.SECONDS).cachePublic())
+                .body(playlist.body()));
+    }
+}
@@ -2,7 +2,9 @@ package com.nozie.movieservice.streaming.controller;
 
 import com.nozie.common.dto.ApiResponse;
 import com.nozie.movieservice.common.dto.EpisodesResponse;
+import com.nozie.movieservice.common.dto.EpisodesSummaryResponse;
 import com.nozie.movieservice.common.dto.PlayUrlResponse;
+import com.nozie.movieservice.common.dto.ServerEpisodesPageResponse;
 import com.nozie.movieservice.streaming.service.StreamingService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -38,11 +40,14 @@ public class StreamingController {
         return ResponseEntity.ok(ApiResponse.success("View count incremented", null));
     }
 
-    /** GET /api/movies/{id}/play - URL phát mặc định (ưu tiên custom HLS, sau đó tập đầu) */
+    /**
+     * GET /api/movies/{id}/play - URL phát (ưu tiên custom HLS cho tập đầu); không truyền server thì chọn
+     * server có host phản hồi nhanh nhất
+     */
     @GetMapping("/{id}/play")
     public ResponseEntity<ApiResponse<PlayUrlResponse>> getPlayUrl(
             @PathVariable String id,
-            @RequestParam(required = false, defaultValue = "0") int server,
+            @RequestParam(required = false) Integer server,
             @RequestParam(required = false, defaultValue = "0") int episode) {
         log.info("GET /api/movies/{}/play?server={}&episode={}", id, server, episode);
         PlayUrlResponse play = streamingService.getPlayUrl(id, server, episode);
@@ -53,7 +58,7 @@ public class StreamingController {
     @GetMapping("/slug/{slug}/play")
     public ResponseEntity<ApiResponse<PlayUrlResponse>> getPlayUrlBySlug(
             @PathVariable String slug,
-            @RequestParam(required = false, defaultValue = "0") int server,
+            @RequestParam(required = false) Integer server,
             @RequestParam(required = false, defaultValue = "0") int episode) {
         log.info("GET /api/movies/slug/{}/play?server={}&episode={}", slug, server, episode);
         PlayUrlResponse play = streamingService.getPlayUrlBySlug(slug, server, episode);
@@ -68,6 +73,42 @@ public class StreamingController {
         return ResponseEntity.ok(ApiResponse.success(episodes));
     }
 
+    /** GET /api/movies/{id}/episodes/summary - Tên server + số tập, không kèm link */
+    @GetMapping("/{id}/episodes/summary")
+    public ResponseEntity<ApiResponse<EpisodesSummaryResponse>> getEpisodesSummary(@PathVariable String id) {
+        log.info("GET /api/movies/{}/episodes/summary", id);
+        return ResponseEntity.ok(ApiResponse.success(streamingService.getEpisodesSummary(id)));
+    }
+
+    /** GET /api/movies/slug/{slug}/episodes/summary - Tên server + số tập theo slug */
+    @GetMapping("/slug/{slug}/episodes/summary")
+    public ResponseEntity<ApiResponse<EpisodesSummaryResponse>> getEpisodesSummaryBySlug(@PathVariable String slug) {
+        log.info("GET /api/movies/slug/{}/episodes/summary", slug);
+        return ResponseEntity.ok(ApiResponse.success(streamingService.getEpisodesSummaryBySlug(slug)));
+    }
+
+    /** GET /api/movies/{id}/servers/{server}/episodes - Một trang tập của một server */
+    @GetMapping("/{id}/servers/{server}/episodes")
+    public ResponseEntity<ApiResponse<ServerEpisodesPageResponse>> getServerEpisodes(
+            @PathVariable String id,
+            @PathVariable int server,
+            @RequestParam(required = false, defaultValue = "0") int offset,
+            @RequestParam(required = false, defaultValue = "50") int limit) {
+        log.info("GET /api/movies/{}/servers/{}/episodes?offset={}&limit={}", id, server, offset, limit);
+        return ResponseEntity.ok(ApiResponse.success(streamingService.getServerEpisodes(id, server, offset, limit)));
+    }
+
+    /** GET /api/movies/slug/{slug}/servers/{server}/episodes - Một trang tập theo slug */
+    @GetMapping("/slug/{slug}/servers/{server}/episodes")
+    public ResponseEntity<ApiResponse<ServerEpisodesPageResponse>> getServerEpisodesBySlug(
+            @PathVariable String slug,
+            @PathVariable int server,
+            @RequestParam(required = false, defaultValue = "0") int offset,
+            @RequestParam(required = false, defaultValue = "50") int limit) {
+        log.info("GET /api/movies/slug/{}/servers/{}/episodes?offset={}&limit={}", slug, server, offset, limit);
+        return ResponseEntity.ok(ApiResponse.success(streamingService.getServerEpisodesBySlug(slug, server, offset, limit)));
+    }
+
     /** GET /api/movies/slug/{slug}/episodes - Danh sách episodes theo slug */
     @GetMapping("/slug/{slug}/episodes")
     public ResponseEntity<ApiResponse<EpisodesResponse>> getEpisodesBySlug(@PathVariable String slug) {
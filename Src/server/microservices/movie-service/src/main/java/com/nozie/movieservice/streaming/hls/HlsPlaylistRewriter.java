@@ -0,0 +1,87 @@
+package com.nozie.movieservice.streaming.hls;
+
+import java.net.URI;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Viết lại một playlist m3u8 để phục vụ từ proxy: playlist con (variant trong master, EXT-X-MEDIA,
+ * EXT-X-I-FRAME-STREAM-INF) trỏ về proxy, còn segment / key / map đổi thành URL tuyệt đối của upstream
+ * (player tải thẳng từ CDN). Đồng thời nhận biết playlist VOD hay live.
+ */
+final class HlsPlaylistRewriter {
+
+    private static final Pattern URI_ATTR = Pattern.compile("URI=\"([^\"]*)\"");
+
+    private HlsPlaylistRewriter() {
+    }
+
+    /**
+     * live = media playlist chưa có EXT-X-ENDLIST / PLAYLIST-TYPE:VOD (master luôn coi là VOD);
+     * targetDuration = EXT-X-TARGETDURATION (giây), 0 nếu không có.
+     */
+    record Result(String text, boolean live, int targetDuration) {
+    }
+
+    /** proxyLink nhận URL tuyệt đối của playlist con, trả URL qua proxy. */
+    static Result rewrite(String playlist, URI base, UnaryOperator<String> proxyLink) {
+        String[] lines = playlist.split("\r?\n", -1);
+        boolean master = false;
+        boolean ended = false;
+        boolean nextIsPlaylist = false;
+        int targetDuration = 0;
+
+        for (int i = 0; i < lines.length; i++) {
+            String trimmed = lines[i].strip();
+            if (trimmed.isEmpty()) continue;
+            if (trimmed.startsWith("#")) {
+                if (trimmed.startsWith("#EXT-X-STREAM-INF")) {
+                    master = true;
+                    nextIsPlaylist = true;
+                } else if (trimmed.startsWith("#EXT-X-ENDLIST") || trimmed.equals("#EXT-X-PLAYLIST-TYPE:VOD")) {
+                    ended = true;
+                } else if (trimmed.startsWith("#EXT-X-TARGETDURATION:")) {
+                    targetDuration = parseInt(trimmed.substring("#EXT-X-TARGETDURATION:".length()));
+                }
+                boolean playlistAttr = trimmed.startsWith("#EXT-X-MEDIA:") || trimmed.startsWith("#EXT-X-I-FRAME-STREAM-INF:");
+                if (playlistAttr) master = true;
+                if (trimmed.contains("URI=\"")) lines[i] = rewriteAttr(trimmed, base, playlistAttr, proxyLink);
+                continue;
+            }
+            String absolute = resolve(base, trimmed);
+            if (absolute != null) lines[i] = nextIsPlaylist ? proxyLink.apply(absolute) : absolute;
+            nextIsPlaylist = false;
+        }
+        return new Result(String.join("\n", lines), !master && !ended, targetDuration);
+    }
+
+    private static String rewriteAttr(String tag, URI base, boolean playlist, UnaryOperator<String> proxyLink) {
+        Matcher m = URI_ATTR.matcher(tag);
+        StringBuilder sb = new StringBuilder(tag.length() + 64);
+        while (m.find()) {
+            String absolute = resolve(base, m.group(1));
+            String replaced = absolute == null ? m.group(1) : (playlist ? proxyLink.apply(absolute) : absolute);
+            m.appendReplacement(sb, Matcher.quoteReplacement("URI=\"" + replaced + "\""));
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    /** URL tuyệt đối của ref so với playlist; null nếu ref không hợp lệ. */
+    private static String resolve(URI base, String ref) {
+        try {
+            return base.resolve(ref).toString();
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return (int) Math.ceil(Double.parseDouble(value.strip()));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.nozie.movieservice.streaming.hls;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nozie.common.exception.BadRequestException;
+import com.nozie.common.exception.ServiceUnavailableException;
+import com.nozie.movieservice.streaming.play.PlayUrlIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Proxy cache cho playlist m3u8 của upstream (link OPhim / custom HLS) - bật bằng movie.hls-proxy.enabled.
+ * <p>
+ * Playlist được tải một lần rồi giữ trong Caffeine (giới hạn theo byte) với TTL khác nhau: VOD / master giữ
+ * lâu (movie.hls-proxy.vod-ttl-ms), live giữ tối đa nửa EXT-X-TARGETDURATION. Các request đồng thời cho cùng
+ * playlist dùng chung một lần tải (AsyncCache giữ future đang chạy). Playlist con được viết lại để đi qua proxy,
+ * segment đổi sang URL tuyệt đối nên player vẫn tải segment thẳng từ CDN.
+ * <p>
+ * Chỉ proxy host có trong catalog ({@link PlayUrlIndex#isKnownHost}) hoặc movie.hls-proxy.allowed-hosts - không
+ * phải open proxy: redirect được tự theo và kiểm tra lại từng bước, host phân giải ra địa chỉ nội bộ (loopback,
+ * link-local, private) bị từ chối, playlist con ở host không được phép giữ nguyên URL (player tải thẳng).
+ * Địa chỉ được kiểm tra ngay trong DnsResolver của HttpClient nên kết nối luôn đi tới đúng địa chỉ đã kiểm tra
+ * (DNS trả địa chỉ khác ở lần phân giải thứ hai - DNS rebinding - không lách được).
+ */
+@Service
+@ConditionalOnProperty(name = "movie.hls-proxy.enabled", havingValue = "true")
+@Slf4j
+public class HlsProxyService {
+
+    public static final String PATH = "/api/movies/hls";
+    public static final String CONTENT_TYPE = "application/vnd.apple.mpegurl";
+
+    private static final int MAX_REDIRECTS = 3;
+
+    private final PlayUrlIndex playUrlIndex;
+    private final CloseableHttpClient httpClient;
+    private final ExecutorService fetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AsyncCache<String, Playlist> playlists;
+    private final Set<String> allowedHosts;
+    private final boolean allowPrivateAddresses;
+    private final Duration timeout;
+    private final long vodTtlNanos;
+    private final long liveTtlNanos;
+    private final int maxPlaylistBytes;
+    private final Counter fetched;
+    private final Counter failed;
+
+    public HlsProxyService(PlayUrlIndex playUrlIndex,
+                           MeterRegistry meterRegistry,
+                           @Value("${movie.hls-proxy.allowed-hosts:}") List<String> allowedHosts,
+                           @Value("${movie.hls-proxy.allow-private-addresses:false}") boolean allowPrivateAddresses,
+                           @Value("${movie.hls-proxy.timeout-ms:5000}") long timeoutMs,
+                           @Value("${movie.hls-proxy.vod-ttl-ms:3600000}") long vodTtlMs,
+                           @Value("${movie.hls-proxy.live-ttl-ms:2000}") long liveTtlMs,
+                           @Value("${movie.hls-proxy.max-playlist-bytes:2097152}") int maxPlaylistBytes,
+                           @Value("${movie.hls-proxy.cache-max-bytes:67108864}") long cacheMaxBytes) {
+        this.playUrlIndex = playUrlIndex;
+        this.allowedHosts = allowedHosts.stream().map(String::strip).filter(h -> !h.isEmpty())
+                .map(String::toLowerCase).collect(Collectors.toUnmodifiableSet());
+        this.allowPrivateAddresses = allowPrivateAddresses;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.vodTtlNanos = Duration.ofMillis(vodTtlMs).toNanos();
+        this.liveTtlNanos = Duration.ofMillis(liveTtlMs).toNanos();
+        this.maxPlaylistBytes = maxPlaylistBytes;
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setDnsResolver(new CheckedDnsResolver())
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(Timeout.of(timeout))
+                                .setSocketTimeout(Timeout.of(timeout))
+                                .build())
+                        .setMaxConnTotal(200)
+                        .setMaxConnPerRoute(50)
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(timeout))
+                        .setResponseTimeout(Timeout.of(timeout))
+                        .build())
+                .disableRedirectHandling()
+                .disableAutomaticRetries()
+                .build();
+        this.playlists = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .weigher((String url, Playlist p) -> p.body().length)
+                .expireAfter(new Expiry<String, Playlist>() {
+                    @Override
+                    public long expireAfterCreate(String url, Playlist p, long currentTime) {
+                        return p.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String url, Playlist p, long currentTime, long currentDuration) {
+                        return p.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String url, Playlist p, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, playlists.synchronous(), "movie.hls.playlist");
+        this.fetched = meterRegistry.counter("movie.hls.upstream", "result", "ok");
+        this.failed = meterRegistry.counter("movie.hls.upstream", "result", "error");
+    }
+
+    /** Playlist đã viết lại (UTF-8, bất biến, phục vụ nguyên mảng cho mọi request) và TTL của nó. */
+    public record Playlist(byte[] body, long ttlNanos, boolean live) {
+
+        public long maxAgeSeconds() {
+            return Math.max(1, Duration.ofNanos(ttlNanos).toSeconds());
+        }
+    }
+
+    /** Link qua proxy cho một playlist upstream (tương đối so với gốc của movie-service). */
+    public static String link(String upstreamUrl) {
+        return PATH + "?url=" + URLEncoder.encode(upstreamUrl, StandardCharsets.UTF_8);
+    }
+
+    public CompletableFuture<Playlist> get(String url) {
+        CompletableFuture<Playlist> cached = playlists.getIfPresent(url);
+        if (cached != null) return cached;
+        URI uri = parse(url);
+        if (!isAllowed(uri)) {
+            throw new BadRequestException("Host of '" + url + "' is not a known streaming upstream");
+        }
+        return playlists.get(url, (key, executor) -> CompletableFuture.supplyAsync(() -> fetch(uri), fetchExecutor));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fetchExecutor.shutdownNow();
+        try {
+            httpClient.close();
+        } catch (IOException ex) {
+            log.debug("Closing HLS proxy client failed: {}", ex.getMessage());
+        }
+    }
+
+    private Playlist fetch(URI uri) {
+        try {
+            Fetched response = send(uri);
+            // Sau redirect, URI tương đối trong playlist tính theo URL cuối cùng
+            HlsPlaylistRewriter.Result rewritten = HlsPlaylistRewriter.rewrite(
+                    new String(response.body(), StandardCharsets.UTF_8), response.uri(), this::proxyLink);
+            long ttl = rewritten.live() ? liveTtl(rewritten.targetDuration()) : vodTtlNanos;
+            fetched.increment();
+            return new Playlist(rewritten.text().getBytes(StandardCharsets.UTF_8), ttl, rewritten.live());
+        } catch (InternalAddressException ex) {
+            failed.increment();
+            throw new BadRequestException("Host of '" + uri + "' resolves to an internal address");
+        } catch (IOException ex) {
+            failed.increment();
+            throw new ServiceUnavailableException("Cannot fetch upstream playlist " + uri, ex);
+        } catch (RuntimeException ex) {
+            failed.increment();
+            throw ex;
+        }
+    }
+
+    /** Playlist đã tải và URL cuối cùng sau redirect. */
+    private record Fetched(URI uri, byte[] body) {
+    }
+
+    /** GET theo redirect (tối đa MAX_REDIRECTS), kiểm tra host trước mỗi bước (địa chỉ: {@link CheckedDnsResolver}). */
+    private Fetched send(URI uri) throws IOException {
+        URI current = uri;
+        for (int hop = 0; ; hop++) {
+            if (!isAllowed(current)) {
+                throw new BadRequestException("Host of '" + current + "' is not a known streaming upstream");
+            }
+            String location;
+            // Đóng response chưa đọc hết thì HttpClient bỏ kết nối thay vì đọc nốt body
+            try (CloseableHttpResponse response = httpClient.execute(new HttpGet(current))) {
+                int status = response.getCode();
+                if (status != 301 && status != 302 && status != 303 && status != 307 && status != 308) {
+                    if (status >= 300) {
+                        throw new ServiceUnavailableException("Upstream playlist " + current + " returned " + status);
+                    }
+                    HttpEntity entity = response.getEntity();
+                    byte[] raw;
+                    try (InputStream body = entity != null ? entity.getContent() : InputStream.nullInputStream()) {
+                        raw = body.readNBytes(maxPlaylistBytes + 1);
+                    }
+                    if (raw.length > maxPlaylistBytes) {
+                        throw new ServiceUnavailableException("Upstream playlist " + current + " exceeds "
+                                + maxPlaylistBytes + " bytes");
+                    }
+                    return new Fetched(current, raw);
+                }
+                Header header = response.getFirstHeader("Location");
+                location = header != null ? header.getValue() : null;
+            }
+            if (location == null || hop == MAX_REDIRECTS) {
+                throw new ServiceUnavailableException("Upstream playlist " + uri + " redirected "
+                        + (location == null ? "without Location" : "more than " + MAX_REDIRECTS + " times"));
+            }
+            current = parse(current.resolve(location).toString());
+        }
+    }
+
+    /**
+     * Phân giải host cho HttpClient và (trừ khi allow-private-addresses) từ chối nếu có địa chỉ nội bộ. HttpClient
+     * chỉ kết nối tới các địa chỉ resolver này trả về, nên không có lần phân giải thứ hai chưa kiểm tra.
+     */
+    private class CheckedDnsResolver extends SystemDefaultDnsResolver {
+
+        @Override
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            InetAddress[] addresses = super.resolve(host);
+            if (!allowPrivateAddresses) {
+                for (InetAddress address : addresses) {
+                    if (isInternal(address)) throw new InternalAddressException(host);
+                }
+            }
+            return addresses;
+        }
+    }
+
+    /** Host phân giải ra địa chỉ nội bộ (DnsResolver chỉ được ném UnknownHostException). */
+    private static class InternalAddressException extends UnknownHostException {
+
+        InternalAddressException(String host) {
+            super(host + " resolves to an internal address");
+        }
+    }
+
+    /** Loopback, link-local (gồm 169.254.169.254 metadata), private, CGNAT 100.64/10, IPv6 ULA fc00::/7. */
+    static boolean isInternal(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return true;
+        }
+        byte[] b = address.getAddress();
+        if (b.length == 4) {
+            return (b[0] & 0xff) == 100 && (b[1] & 0xc0) == 64;
+        }
+        return (b[0] & 0xfe) == 0xfc;
+    }
+
+    private long liveTtl(int targetDurationSeconds) {
+        if (targetDurationSeconds <= 0) return liveTtlNanos;
+        return Math.min(liveTtlNanos, Duration.ofSeconds(targetDurationSeconds).toNanos() / 2);
+    }
+
+    /** Playlist con qua proxy nếu host được phép, ngược lại giữ URL tuyệt đối để player tải thẳng. */
+    private String proxyLink(String absoluteUrl) {
+        try {
+            return isAllowed(URI.create(absoluteUrl)) ? link(absoluteUrl) : absoluteUrl;
+        } catch (IllegalArgumentException ex) {
+            return absoluteUrl;
+        }
+    }
+
+    private boolean isAllowed(URI uri) {
+        String prefix = prefix(uri);
+        if (prefix == null || uri.getHost() == null) return false;
+        return allowedHosts.contains(uri.getHost().toLowerCase())
+                || playUrlIndex.isKnownHost(prefix);
+    }
+
+    private static URI parse(String url) {
+        try {
+            URI uri = URI.create(url);
+            if (("http".equals(uri.getScheme()) || "https".equals(uri.getScheme())) && uri.getHost() != null) {
+                return uri;
+            }
+        } catch (IllegalArgumentException ignored) {
+            // trả lỗi bên dưới
+        }
+        throw new BadRequestException("Invalid playlist URL '" + url + "'");
+    }
+
+    /** scheme://host[:port]/ như tiền tố trong PlayUrlIndex. */
+    private static String prefix(URI uri) {
+        return uri.getScheme() == null || uri.getRawAuthority() == null ? null
+                : uri.getScheme() + "://" + uri.getRawAuthority() + "/";
+    }
+}
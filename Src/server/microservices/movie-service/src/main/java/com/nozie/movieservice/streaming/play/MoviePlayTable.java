@@ -0,0 +1,53 @@
+package com.nozie.movieservice.streaming.play;
+
+import java.util.BitSet;
+
+/**
+ * Bảng link phát bất biến của một phim: các tập của mọi server nằm liên tiếp trong mảng song song,
+ * tập (s, e) ở vị trí serverStart[s] + e. Link lưu dạng id tiền tố ({@link UrlPrefixes}) + phần còn lại.
+ */
+final class MoviePlayTable {
+
+    final String movieId;
+    final String name;
+    final String slug;
+    final String customHlsUrl;
+    final String[] serverNames;
+    /** serverStart[s] = vị trí tập đầu của server s; serverStart[servers] = tổng số slot. */
+    final int[] serverStart;
+    /** Slot có tập trong collection episodes. */
+    final BitSet present;
+    final String[] episodeNames;
+    final String[] episodeSlugs;
+    final int[] m3u8Prefix;
+    final String[] m3u8Rest;
+    final int[] embedPrefix;
+    final String[] embedRest;
+
+    MoviePlayTable(String movieId, String name, String slug, String customHlsUrl,
+                   String[] serverNames, int[] serverStart, BitSet present,
+                   String[] episodeNames, String[] episodeSlugs,
+                   int[] m3u8Prefix, String[] m3u8Rest, int[] embedPrefix, String[] embedRest) {
+        this.movieId = movieId;
+        this.name = name;
+        this.slug = slug;
+        this.customHlsUrl = customHlsUrl;
+        this.serverNames = serverNames;
+        this.serverStart = serverStart;
+        this.present = present;
+        this.episodeNames = episodeNames;
+        this.episodeSlugs = episodeSlugs;
+        this.m3u8Prefix = m3u8Prefix;
+        this.m3u8Rest = m3u8Rest;
+        this.embedPrefix = embedPrefix;
+        this.embedRest = embedRest;
+    }
+
+    int servers() {
+        return serverNames.length;
+    }
+
+    int episodes(int server) {
+        return serverStart[server + 1] - serverStart[server];
+    }
+}
@@ -0,0 +1,198 @@
+package com.nozie.movieservice.streaming.play;
+
+import com.nozie.movieservice.common.dto.PlayUrlResponse;
+import com.nozie.movieservice.common.model.EpisodeServer;
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.model.MovieEpisode;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Một thế hệ của index link phát: bảng theo movieId, slug → id, từ điển tiền tố URL và tên/slug tập dùng chung.
+ * Đọc không khóa (ConcurrentHashMap + bảng bất biến); ghi thay nguyên bảng của một phim.
+ */
+final class PlayCatalog {
+
+    private final Map<String, MoviePlayTable> byId = new ConcurrentHashMap<>();
+    private final Map<String, String> slugToId = new ConcurrentHashMap<>();
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+    private final UrlPrefixes prefixes = new UrlPrefixes();
+
+    /**
+     * Thêm hoặc thay bảng của phim. episodes: các tập của phim (thứ tự bất kỳ); số slot mỗi server theo
+     * Movie.servers, tập ngoài phạm vi bị bỏ qua.
+     */
+    void put(Movie movie, List<MovieEpisode> episodes) {
+        List<EpisodeServer> servers = movie.getServers() != null ? movie.getServers() : List.of();
+        String[] serverNames = new String[servers.size()];
+        int[] serverStart = new int[servers.size() + 1];
+        for (int s = 0; s < servers.size(); s++) {
+            serverNames[s] = intern(servers.get(s).getServerName());
+            serverStart[s + 1] = serverStart[s] + Math.max(0, servers.get(s).getEpisodeCount());
+        }
+
+        int slots = serverStart[servers.size()];
+        BitSet present = new BitSet(slots);
+        String[] episodeNames = new String[slots];
+        String[] episodeSlugs = new String[slots];
+        int[] m3u8Prefix = new int[slots];
+        String[] m3u8Rest = new String[slots];
+        int[] embedPrefix = new int[slots];
+        String[] embedRest = new String[slots];
+        for (MovieEpisode ep : episodes) {
+            int s = ep.getServerIndex();
+            if (s < 0 || s >= servers.size() || ep.getEpisodeIndex() < 0) continue;
+            int slot = serverStart[s] + ep.getEpisodeIndex();
+            if (slot >= serverStart[s + 1]) continue;
+            present.set(slot);
+            episodeNames[slot] = intern(ep.getName());
+            episodeSlugs[slot] = intern(ep.getSlug());
+            m3u8Prefix[slot] = prefixId(ep.getLinkM3u8());
+            m3u8Rest[slot] = rest(ep.getLinkM3u8());
+            embedPrefix[slot] = prefixId(ep.getLinkEmbed());
+            embedRest[slot] = rest(ep.getLinkEmbed());
+        }
+
+        // Host của custom HLS cũng là upstream hợp lệ (xem hasHost)
+        prefixId(movie.getCustomHlsUrl());
+
+        MoviePlayTable table = new MoviePlayTable(movie.getId(), movie.getName(), movie.getSlug(),
+                movie.getCustomHlsUrl(), serverNames, serverStart, present, episodeNames, episodeSlugs,
+                m3u8Prefix, m3u8Rest, embedPrefix, embedRest);
+        MoviePlayTable old = byId.put(movie.getId(), table);
+        if (old != null && old.slug != null && !old.slug.equals(movie.getSlug())) {
+            slugToId.remove(old.slug, old.movieId);
+        }
+        if (movie.getSlug() != null) {
+            slugToId.put(movie.getSlug(), movie.getId());
+        }
+    }
+
+    void remove(String movieId) {
+        MoviePlayTable old = byId.remove(movieId);
+        if (old != null && old.slug != null) {
+            slugToId.remove(old.slug, movieId);
+        }
+    }
+
+    String idForSlug(String slug) {
+        return slugToId.get(slug);
+    }
+
+    /** true nếu scheme://host/ là host của một link phát trong index. */
+    boolean hasHost(String prefix) {
+        return prefixes.contains(prefix);
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    int prefixCount() {
+        return prefixes.size();
+    }
+
+    /**
+     * Cùng quy tắc với StreamingService: custom HLS khi (0, 0) và phim có customHlsUrl; index ngoài phạm vi
+     * quay về 0. null nếu phim không có trong index.
+     */
+    PlayUrlResponse resolve(String movieId, int serverIndex, int episodeIndex) {
+        MoviePlayTable t = byId.get(movieId);
+        if (t == null) return null;
+
+        if (serverIndex == 0 && episodeIndex == 0 && t.customHlsUrl != null && !t.customHlsUrl.isBlank()) {
+            return PlayUrlResponse.builder()
+                    .movieId(t.movieId)
+                    .movieName(t.name)
+                    .serverName("Custom")
+                    .episodeName("Full")
+                    .episodeSlug("full")
+                    .m3u8Url(t.customHlsUrl)
+                    .customHls(true)
+                    .build();
+        }
+        if (t.servers() == 0) {
+            return noEpisode(t, null);
+        }
+        if (serverIndex < 0 || serverIndex >= t.servers()) {
+            serverIndex = 0;
+        }
+        int count = t.episodes(serverIndex);
+        if (count == 0) {
+            return noEpisode(t, t.serverNames[serverIndex]);
+        }
+        if (episodeIndex < 0 || episodeIndex >= count) {
+            episodeIndex = 0;
+        }
+        int slot = t.serverStart[serverIndex] + episodeIndex;
+        if (!t.present.get(slot)) {
+            return noEpisode(t, t.serverNames[serverIndex]);
+        }
+        return PlayUrlResponse.builder()
+                .movieId(t.movieId)
+                .movieName(t.name)
+                .serverName(t.serverNames[serverIndex])
+                .episodeName(t.episodeNames[slot])
+                .episodeSlug(t.episodeSlugs[slot])
+                .m3u8Url(url(t.m3u8Prefix[slot], t.m3u8Rest[slot]))
+                .embedUrl(url(t.embedPrefix[slot], t.embedRest[slot]))
+                .customHls(false)
+                .build();
+    }
+
+    /**
+     * Như {@link #resolve} nhưng server do chooser chọn trong các server có tập episodeIndex (mảng link m3u8
+     * theo serverIndex, null = không có tập). Custom HLS vẫn được ưu tiên cho tập 0.
+     */
+    PlayUrlResponse resolveBest(String movieId, int episodeIndex, ToIntFunction<String[]> chooser) {
+        MoviePlayTable t = byId.get(movieId);
+        if (t == null) return null;
+        boolean custom = episodeIndex == 0 && t.customHlsUrl != null && !t.customHlsUrl.isBlank();
+        if (custom || t.servers() < 2) {
+            return resolve(movieId, 0, episodeIndex);
+        }
+        String[] candidates = new String[t.servers()];
+        for (int s = 0; s < candidates.length; s++) {
+            int slot = t.serverStart[s] + episodeIndex;
+            if (episodeIndex >= 0 && episodeIndex < t.episodes(s) && t.present.get(slot)) {
+                candidates[s] = url(t.m3u8Prefix[slot], t.m3u8Rest[slot]);
+            }
+        }
+        int server = chooser.applyAsInt(candidates);
+        return resolve(movieId, Math.max(0, server), episodeIndex);
+    }
+
+    private static PlayUrlResponse noEpisode(MoviePlayTable t, String serverName) {
+        return PlayUrlResponse.builder()
+                .movieId(t.movieId)
+                .movieName(t.name)
+                .serverName(serverName)
+                .customHls(false)
+                .build();
+    }
+
+    private String url(int prefix, String rest) {
+        if (rest == null) return null;
+        return prefix == UrlPrefixes.NONE ? rest : prefixes.get(prefix).concat(rest);
+    }
+
+    private int prefixId(String url) {
+        if (url == null) return UrlPrefixes.NONE;
+        int len = UrlPrefixes.prefixLength(url);
+        return len == 0 ? UrlPrefixes.NONE : prefixes.id(url.substring(0, len));
+    }
+
+    private static String rest(String url) {
+        return url == null ? null : url.substring(UrlPrefixes.prefixLength(url));
+    }
+
+    private String intern(String value) {
+        if (value == null) return null;
+        String existing = names.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+}
@@ -0,0 +1,159 @@
+package com.nozie.movieservice.streaming.play;
+
+import com.nozie.movieservice.common.cache.RebuildableSnapshot;
+import com.nozie.movieservice.common.dto.PlayUrlResponse;
+import com.nozie.movieservice.common.event.MovieChangedEvent;
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.model.MovieEpisode;
+import com.nozie.movieservice.common.repository.MovieEpisodeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Index link phát (movieId, serverIndex, episodeIndex) → m3u8/embed trong bộ nhớ cho /play: mỗi lần mở
+ * player hay đổi tập chỉ là một lần đọc map, không đọc Mongo (xem {@link PlayCatalog}).
+ * <p>
+ * Dựng nền từ collection movies + episodes lúc khởi động và định kỳ (movie.play.rebuild-interval-ms),
+ * cập nhật qua MovieChangedEvent (cả sự kiện remote khi phim đổi ở replica khác).
+ * Phim chưa có trong index (chưa dựng xong, vừa tạo ở replica khác) được StreamingService đọc từ Mongo như cũ.
+ */
+@Component
+@Slf4j
+public class PlayUrlIndex {
+
+    static final String[] MOVIE_FIELDS = {"name", "slug", "customHlsUrl", "servers"};
+
+    private final MongoTemplate mongoTemplate;
+    private final MovieEpisodeRepository movieEpisodeRepository;
+    private final UpstreamHealth upstreamHealth;
+    private final RebuildableSnapshot<PlayCatalog, Change> catalog = new RebuildableSnapshot<>(PlayUrlIndex::apply);
+
+    public PlayUrlIndex(MongoTemplate mongoTemplate, MovieEpisodeRepository movieEpisodeRepository,
+                        UpstreamHealth upstreamHealth) {
+        this.mongoTemplate = mongoTemplate;
+        this.movieEpisodeRepository = movieEpisodeRepository;
+        this.upstreamHealth = upstreamHealth;
+    }
+
+    public boolean isReady() {
+        return catalog.get() != null;
+    }
+
+    /** Link phát của tập; empty nếu phim không có trong index. */
+    public Optional<PlayUrlResponse> resolve(String movieId, int serverIndex, int episodeIndex) {
+        PlayCatalog current = catalog.get();
+        return current == null ? Optional.empty()
+                : Optional.ofNullable(current.resolve(movieId, serverIndex, episodeIndex));
+    }
+
+    /** Link phát của tập trên server có host nhanh nhất (xem {@link UpstreamHealth}); empty nếu phim không có trong index. */
+    public Optional<PlayUrlResponse> resolveFastest(String movieId, int episodeIndex) {
+        PlayCatalog current = catalog.get();
+        return current == null ? Optional.empty()
+                : Optional.ofNullable(current.resolveBest(movieId, episodeIndex, upstreamHealth::choose));
+    }
+
+    public Optional<String> idForSlug(String slug) {
+        PlayCatalog current = catalog.get();
+        return current == null ? Optional.empty() : Optional.ofNullable(current.idForSlug(slug));
+    }
+
+    /** true nếu scheme://host/ là host của một link phát (m3u8, embed, custom HLS) trong catalog. */
+    public boolean isKnownHost(String prefix) {
+        PlayCatalog current = catalog.get();
+        return current != null && current.hasHost(prefix);
+    }
+
+    /** Thay đổi của một phim: movie null = xóa. */
+    private record Change(String movieId, Movie movie, List<MovieEpisode> episodes) {
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${movie.play.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        PlayCatalog fresh;
+        try {
+            fresh = catalog.rebuild(this::load);
+        } catch (RuntimeException ex) {
+            log.warn("Play URL index rebuild failed: {}", ex.getMessage());
+            return;
+        }
+        log.info("Play URL index rebuilt: {} movies, {} URL prefixes in {} ms",
+                fresh.size(), fresh.prefixCount(), System.currentTimeMillis() - start);
+    }
+
+    private PlayCatalog load() {
+        PlayCatalog fresh = new PlayCatalog();
+        Query mq = new Query();
+        mq.fields().include(MOVIE_FIELDS);
+        Map<String, Movie> movies = new HashMap<>();
+        try (Stream<Movie> stream = mongoTemplate.stream(mq, Movie.class)) {
+            stream.forEach(m -> movies.put(m.getId(), m));
+        }
+
+        // Theo thứ tự của unique index (movieId, serverIndex, episodeIndex): tập của một phim liền nhau
+        Query eq = new Query().with(Sort.by("movieId", "serverIndex", "episodeIndex"));
+        eq.fields().exclude("_id", "filename");
+        List<MovieEpisode> group = new ArrayList<>();
+        try (Stream<MovieEpisode> stream = mongoTemplate.stream(eq, MovieEpisode.class)) {
+            stream.forEach(ep -> {
+                if (!group.isEmpty() && !group.get(0).getMovieId().equals(ep.getMovieId())) {
+                    putGroup(fresh, movies, group);
+                }
+                group.add(ep);
+            });
+        }
+        putGroup(fresh, movies, group);
+        movies.values().forEach(m -> fresh.put(m, List.of()));
+        return fresh;
+    }
+
+    @EventListener
+    public void onMovieChanged(MovieChangedEvent event) {
+        if (event.getType() == MovieChangedEvent.ChangeType.DELETED) {
+            catalog.apply(new Change(event.getMovieId(), null, null));
+        } else {
+            catalog.apply(load(event.getMovieId(), event.getMovie()));
+        }
+    }
+
+    private Change load(String movieId, Movie movie) {
+        if (movie == null) return new Change(movieId, null, null);
+        try {
+            return new Change(movieId, movie, movieEpisodeRepository.findByMovieIdOrderByServerIndexAscEpisodeIndexAsc(movieId));
+        } catch (RuntimeException ex) {
+            // Không đọc được tập: bỏ phim khỏi index để /play đọc Mongo thay vì trả link cũ
+            log.warn("Play URL index update for {} failed: {}", movieId, ex.getMessage());
+            return new Change(movieId, null, null);
+        }
+    }
+
+    private static void apply(PlayCatalog target, Change change) {
+        if (change.movie() == null) {
+            target.remove(change.movieId());
+        } else {
+            target.put(change.movie(), change.episodes());
+        }
+    }
+
+    private static void putGroup(PlayCatalog target, Map<String, Movie> movies, List<MovieEpisode> group) {
+        if (group.isEmpty()) return;
+        Movie movie = movies.remove(group.get(0).getMovieId());
+        if (movie != null) {
+            target.put(movie, group);
+        }
+        group.clear();
+    }
+}
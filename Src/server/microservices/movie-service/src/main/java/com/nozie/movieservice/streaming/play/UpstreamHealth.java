@@ -0,0 +1,186 @@
+package com.nozie.movieservice.streaming.play;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Độ trễ và tình trạng của các host CDN phát m3u8 (scheme://host/), để /play chọn server nhanh nhất khi
+ * client không chỉ định server.
+ * <p>
+ * Host được biết qua {@link #observe(String)} (link m3u8 của các server ứng viên); định kỳ
+ * (movie.probe.interval-ms) mỗi host được GET lại link mẫu và đo time-to-first-byte. Độ trễ là trung bình
+ * trượt (EWMA); host lỗi liên tiếp movie.probe.failure-threshold lần bị coi là hỏng cho tới lần probe thành công.
+ * Host đang lỗi lấy link mới nhất được observe làm link mẫu (link cũ có thể đã bị gỡ); host không được observe
+ * trong movie.probe.host-ttl-ms bị bỏ khỏi danh sách.
+ */
+@Component
+@Slf4j
+public class UpstreamHealth {
+
+    private static final double EWMA_ALPHA = 0.3;
+    /** Host chưa đo: xếp sau host khỏe đã đo, trước host hỏng. */
+    private static final double UNKNOWN_SCORE = Double.MAX_VALUE / 2;
+    /** Độ mịn khi cập nhật lastSeen, để observe trên đường /play không tạo bản ghi mới mỗi request. */
+    private static final long SEEN_RESOLUTION_MILLIS = 1000;
+
+    private final Map<String, HostStats> hosts = new ConcurrentHashMap<>();
+    private final HttpClient httpClient;
+    private final MeterRegistry meterRegistry;
+    private final Duration timeout;
+    private final int failureThreshold;
+    private final int maxHosts;
+    private final long hostTtlMillis;
+
+    public UpstreamHealth(MeterRegistry meterRegistry,
+                          @Value("${movie.probe.timeout-ms:3000}") long timeoutMs,
+                          @Value("${movie.probe.failure-threshold:3}") int failureThreshold,
+                          @Value("${movie.probe.max-hosts:500}") int maxHosts,
+                          @Value("${movie.probe.host-ttl-ms:3600000}") long hostTtlMs) {
+        this.meterRegistry = meterRegistry;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.failureThreshold = failureThreshold;
+        this.maxHosts = maxHosts;
+        this.hostTtlMillis = hostTtlMs;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Trạng thái của một host: link mẫu để probe, EWMA TTFB (NaN nếu chưa đo), số lần lỗi liên tiếp và lần
+     * cuối được observe (epoch millis).
+     */
+    public record HostStats(String sampleUrl, double latencyMillis, int consecutiveFailures, long lastSeenMillis) {
+    }
+
+    /** Ghi nhận link m3u8 của một host: làm link mẫu nếu host chưa được theo dõi hoặc đang lỗi. */
+    public void observe(String m3u8Url) {
+        String host = host(m3u8Url);
+        if (host == null) return;
+        long now = System.currentTimeMillis();
+        HostStats current = hosts.get(host);
+        if (current == null) {
+            if (hosts.size() < maxHosts) hosts.putIfAbsent(host, new HostStats(m3u8Url, Double.NaN, 0, now));
+            return;
+        }
+        boolean replaceSample = current.consecutiveFailures() > 0 && !m3u8Url.equals(current.sampleUrl());
+        if (replaceSample || now - current.lastSeenMillis() >= SEEN_RESOLUTION_MILLIS) {
+            hosts.computeIfPresent(host, (h, s) -> new HostStats(
+                    s.consecutiveFailures() > 0 ? m3u8Url : s.sampleUrl(),
+                    s.latencyMillis(), s.consecutiveFailures(), now));
+        }
+    }
+
+    /**
+     * Vị trí của link nhanh nhất trong urls (null = server không có tập này): host khỏe có EWMA nhỏ nhất,
+     * rồi host chưa đo, cuối cùng host hỏng; bằng nhau thì lấy vị trí nhỏ hơn. -1 nếu mọi phần tử null.
+     */
+    public int choose(String[] urls) {
+        int best = -1;
+        double bestScore = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < urls.length; i++) {
+            if (urls[i] == null) continue;
+            observe(urls[i]);
+            double score = score(hosts.get(host(urls[i])));
+            if (best < 0 || score < bestScore) {
+                best = i;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    public HostStats stats(String host) {
+        return hosts.get(host);
+    }
+
+    @Scheduled(initialDelayString = "${movie.probe.interval-ms:15000}", fixedDelayString = "${movie.probe.interval-ms:15000}")
+    public void probeAll() {
+        long expiredBefore = System.currentTimeMillis() - hostTtlMillis;
+        hosts.values().removeIf(s -> s.lastSeenMillis() < expiredBefore);
+        if (hosts.isEmpty()) return;
+        List<String> targets = new ArrayList<>(hosts.keySet());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> probes = new ArrayList<>(targets.size());
+            for (String host : targets) {
+                probes.add(executor.submit(() -> probe(host)));
+            }
+            for (Future<?> probe : probes) {
+                try {
+                    probe.get(timeout.toMillis() * 2, TimeUnit.MILLISECONDS);
+                } catch (Exception ex) {
+                    probe.cancel(true);
+                }
+            }
+        }
+    }
+
+    /** GET link mẫu của host và cập nhật thống kê với thời gian tới byte đầu tiên. */
+    void probe(String host) {
+        HostStats current = hosts.get(host);
+        if (current == null) return;
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(current.sampleUrl()))
+                    .timeout(timeout)
+                    .GET()
+                    .build();
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                ok = response.statusCode() < 400 && body.read() >= 0;
+            }
+        } catch (Exception ex) {
+            if (ex instanceof InterruptedException) Thread.currentThread().interrupt();
+            log.debug("Probe of {} failed: {}", host, ex.getMessage());
+            ok = false;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        if (ok) {
+            Timer.builder("movie.upstream.ttfb").tag("host", host).register(meterRegistry)
+                    .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        } else {
+            meterRegistry.counter("movie.upstream.probe.failures", "host", host).increment();
+        }
+        double millis = elapsedNanos / 1_000_000.0;
+        boolean success = ok;
+        hosts.computeIfPresent(host, (h, s) -> success
+                ? new HostStats(s.sampleUrl(),
+                        Double.isNaN(s.latencyMillis()) ? millis : EWMA_ALPHA * millis + (1 - EWMA_ALPHA) * s.latencyMillis(), 0,
+                        s.lastSeenMillis())
+                : new HostStats(s.sampleUrl(), s.latencyMillis(), s.consecutiveFailures() + 1, s.lastSeenMillis()));
+    }
+
+    private double score(HostStats stats) {
+        if (stats == null) return UNKNOWN_SCORE;
+        if (stats.consecutiveFailures() >= failureThreshold) return Double.POSITIVE_INFINITY;
+        return Double.isNaN(stats.latencyMillis()) ? UNKNOWN_SCORE : stats.latencyMillis();
+    }
+
+    /** scheme://host/ của url, null nếu không tách được. */
+    static String host(String url) {
+        if (url == null) return null;
+        int len = UrlPrefixes.prefixLength(url);
+        return len == 0 ? null : url.substring(0, len);
+    }
+}
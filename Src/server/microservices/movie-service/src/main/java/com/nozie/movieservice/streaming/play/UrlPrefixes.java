@@ -0,0 +1,54 @@
+package com.nozie.movieservice.streaming.play;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Từ điển tiền tố URL (scheme://host/): mỗi link chỉ lưu id tiền tố + phần còn lại, vài host CDN được
+ * chia sẻ bởi hàng trăm nghìn tập. Ghi có khóa, đọc {@link #get(int)} không khóa: id chỉ được công bố
+ * (qua MoviePlayTable) sau khi đã nằm trong mảng.
+ */
+final class UrlPrefixes {
+
+    /** id cho URL không tách được tiền tố (phần còn lại là cả URL). */
+    static final int NONE = -1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private volatile String[] prefixes = new String[16];
+    private int size;
+
+    /** Id của tiền tố (thêm mới nếu chưa có). */
+    synchronized int id(String prefix) {
+        Integer id = ids.get(prefix);
+        if (id != null) return id;
+        String[] current = prefixes;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = prefix;
+        prefixes = current;
+        ids.put(prefix, size);
+        return size++;
+    }
+
+    String get(int id) {
+        return prefixes[id];
+    }
+
+    synchronized boolean contains(String prefix) {
+        return ids.containsKey(prefix);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /** Độ dài tiền tố scheme://host/ của url, 0 nếu không có. */
+    static int prefixLength(String url) {
+        int scheme = url.indexOf("://");
+        if (scheme < 0) return 0;
+        int slash = url.indexOf('/', scheme + 3);
+        return slash < 0 ? 0 : slash + 1;
+    }
+}
@@ -1,16 +1,23 @@
 package com.nozie.movieservice.streaming.service;
 
 import com.nozie.common.exception.ResourceNotFoundException;
+import com.nozie.movieservice.catalog.service.TrendingService;
+import com.nozie.movieservice.common.cache.MovieCache;
+import com.nozie.movieservice.common.cache.MovieLookups;
 import com.nozie.movieservice.common.dto.*;
 import com.nozie.movieservice.common.model.*;
-import com.nozie.movieservice.common.repository.MovieRepository;
+import com.nozie.movieservice.common.repository.MovieEpisodeRepository;
+import com.nozie.movieservice.streaming.hls.HlsProxyService;
+import com.nozie.movieservice.streaming.play.PlayUrlIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @Transactional
@@ -18,71 +25,138 @@ import java.util.List;
 @RequiredArgsConstructor
 public class StreamingService {
 
-    private final MovieRepository movieRepository;
+    private final MovieCache movieCache;
+    private final MovieLookups movieLookups;
+    private final MovieEpisodeRepository movieEpisodeRepository;
+    private final PlayUrlIndex playUrlIndex;
+    private final ViewCountAggregator viewCountAggregator;
+    private final TrendingService trendingService;
 
+    @Value("${movie.episodes.max-page-size:100}")
+    private int maxEpisodePageSize;
+
+    @Value("${movie.hls-proxy.enabled:false}")
+    private boolean hlsProxyEnabled;
+
+    /**
+     * Ghi nhận lượt xem vào bộ đếm trong bộ nhớ; ViewCountAggregator flush xuống Mongo theo lô.
+     * Chỉ kiểm tra movie tồn tại ở lần đầu gặp id.
+     */
     public void incrementViewCount(String id) {
-        log.info("Incrementing view count for movie: {}", id);
-        Movie movie = movieRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Movie", "id", id));
-        movie.setView(movie.getView() != null ? movie.getView() + 1 : 1L);
-        movieRepository.save(movie);
+        log.debug("Incrementing view count for movie: {}", id);
+        if (!viewCountAggregator.isTracked(id) && !movieLookups.existsById(id)) {
+            throw new ResourceNotFoundException("Movie", "id", id);
+        }
+        viewCountAggregator.record(id);
+        trendingService.record(id);
     }
 
     public void incrementViewCountBySlug(String slug) {
-        Movie movie = movieRepository.findBySlug(slug)
-                .orElseThrow(() -> new ResourceNotFoundException("Movie", "slug", slug));
-        movie.setView(movie.getView() != null ? movie.getView() + 1 : 1L);
-        movieRepository.save(movie);
+        String id = viewCountAggregator.idForSlug(slug, s -> movieLookups.findIdBySlug(s)
+                .orElseThrow(() -> new ResourceNotFoundException("Movie", "slug", s)));
+        viewCountAggregator.record(id);
+        trendingService.record(id);
     }
 
     /**
      * Lấy URL phát mặc định (ưu tiên custom HLS, sau đó tập đầu tiên).
      */
     public PlayUrlResponse getPlayUrl(String movieId) {
-        Movie movie = movieRepository.findById(movieId)
-                .orElseThrow(() -> new ResourceNotFoundException("Movie", "id", movieId));
-        return buildPlayUrl(movie, 0, 0);
+        return getPlayUrl(movieId, 0, 0);
     }
 
     /**
      * Lấy URL phát theo slug.
      */
     public PlayUrlResponse getPlayUrlBySlug(String slug) {
-        Movie movie = movieRepository.findBySlug(slug)
-                .orElseThrow(() -> new ResourceNotFoundException("Movie", "slug", slug));
-        return buildPlayUrl(movie, 0, 0);
+        return getPlayUrlBySlug(slug, 0, 0);
     }
 
     /**
-     * Lấy URL phát tập cụ thể: serverIndex (0-based), episodeIndex (0-based).
+     * Lấy URL phát tập cụ thể: serverIndex (0-based, null = server có host nhanh nhất), episodeIndex (0-based).
+     * Trả từ PlayUrlIndex trong bộ nhớ; phim chưa có trong index mới đọc Mongo (server mặc định 0).
      */
-    public PlayUrlResponse getPlayUrl(String movieId, int serverIndex, int episodeIndex) {
-        Movie movie = movieRepository.findById(movieId)
-                .orElseThrow(() -> new ResourceNotFoundException("Movie", "id", movieId));
-        return buildPlayUrl(movie, serverIndex, episodeIndex);
+    public PlayUrlResponse getPlayUrl(String movieId, Integer serverIndex, int episodeIndex) {
+        return withProxy(resolveIndexed(movieId, serverIndex, episodeIndex).orElseGet(() -> {
+            Movie movie = movieCache.findById(movieId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Movie", "id", movieId));
+            return buildPlayUrl(movie, serverIndex != null ? serverIndex : 0, episodeIndex);
+        }));
     }
 
-    public PlayUrlResponse getPlayUrlBySlug(String slug, int serverIndex, int episodeIndex) {
-        Movie movie = movieRepository.findBySlug(slug)
-                .orElseThrow(() -> new ResourceNotFoundException("Movie", "slug", slug));
-        return buildPlayUrl(movie, serverIndex, episodeIndex);
+    public PlayUrlResponse getPlayUrlBySlug(String slug, Integer serverIndex, int episodeIndex) {
+        return withProxy(playUrlIndex.idForSlug(slug)
+                .flatMap(id -> resolveIndexed(id, serverIndex, episodeIndex))
+                .orElseGet(() -> {
+                    Movie movie = movieCache.findBySlug(slug)
+                            .orElseThrow(() -> new ResourceNotFoundException("Movie", "slug", slug));
+                    return buildPlayUrl(movie, serverIndex != null ? serverIndex : 0, episodeIndex);
+                }));
+    }
+
+    /** Gắn link qua HLS proxy (movie.hls-proxy.enabled) cho m3u8. */
+    private PlayUrlResponse withProxy(PlayUrlResponse play) {
+        if (hlsProxyEnabled && play.getM3u8Url() != null) {
+            play.setProxyUrl(HlsProxyService.link(play.getM3u8Url()));
+        }
+        return play;
+    }
+
+    private Optional<PlayUrlResponse> resolveIndexed(String movieId, Integer serverIndex, int episodeIndex) {
+        return serverIndex == null
+                ? playUrlIndex.resolveFastest(movieId, episodeIndex)
+                : playUrlIndex.resolve(movieId, serverIndex, episodeIndex);
     }
 
     /**
      * Danh sách episodes theo server (để chọn tập phát).
      */
     public EpisodesResponse getEpisodes(String movieId) {
-        Movie movie = movieRepository.findById(movieId)
+        Movie movie = movieCache.findById(movieId)
                 .orElseThrow(() -> new ResourceNotFoundException("Movie", "id", movieId));
         return buildEpisodesResponse(movie);
     }
 
     public EpisodesResponse getEpisodesBySlug(String slug) {
-        Movie movie = movieRepository.findBySlug(slug)
+        Movie movie = movieCache.findBySlug(slug)
                 .orElseThrow(() -> new ResourceNotFoundException("Movie", "slug", slug));
         return buildEpisodesResponse(movie);
     }
 
+    /**
+     * Tên server + số tập (đọc từ Movie.servers, không đụng collection episodes).
+     */
+    public EpisodesSummaryResponse getEpisodesSummary(String movieId) {
+        Movie movie = movieCache.findById(movieId)
+                .orElseThrow(() -> new ResourceNotFoundException("Movie", "id", movieId));
+        return buildEpisodesSummary(movie);
+    }
+
+    public EpisodesSummaryResponse getEpisodesSummaryBySlug(String slug) {
+        Movie movie = movieCache.findBySlug(slug)
+                .orElseThrow(() -> new ResourceNotFoundException("Movie", "slug", slug));
+        return buildEpisodesSummary(movie);
+    }
+
+    /**
+     * Một trang tập của server serverIndex: offset >= 0, limit trong [1, movie.episodes.max-page-size].
+     */
+    public ServerEpisodesPageResponse getServerEpisodes(String movieId, int serverIndex, int offset, int limit) {
+        Movie movie = movieCache.findById(movieId)
+                .orElseThrow(() -> new ResourceNotFoundException("Movie", "id", movieId));
+        return buildServerEpisodes(movie, serverIndex, offset, limit);
+    }
+
+    public ServerEpisodesPageResponse getServerEpisodesBySlug(String slug, int serverIndex, int offset, int limit) {
+        Movie movie = movieCache.findBySlug(slug)
+                .orElseThrow(() -> new ResourceNotFoundException("Movie", "slug", slug));
+        return buildServerEpisodes(movie, serverIndex, offset, limit);
+    }
+
+    /**
+     * Custom HLS khi không chỉ định tập, ngược lại đọc đúng một tập (movieId, serverIndex, episodeIndex) từ
+     * collection episodes; index ngoài phạm vi quay về 0 như trước.
+     */
     private PlayUrlResponse buildPlayUrl(Movie movie, int serverIndex, int episodeIndex) {
         // Ưu tiên custom HLS khi không chỉ định server/episode cụ thể
         if (serverIndex == 0 && episodeIndex == 0 && movie.getCustomHlsUrl() != null && !movie.getCustomHlsUrl().isBlank()) {
@@ -98,48 +172,34 @@ public class StreamingService {
                     .build();
         }
 
-        List<Episode> episodes = movie.getEpisodes();
-        if (episodes == null || episodes.isEmpty()) {
-            return PlayUrlResponse.builder()
-                    .movieId(movie.getId())
-                    .movieName(movie.getName())
-                    .serverName(null)
-                    .episodeName(null)
-                    .episodeSlug(null)
-                    .m3u8Url(null)
-                    .embedUrl(null)
-                    .customHls(false)
-                    .build();
+        List<EpisodeServer> servers = movie.getServers();
+        if (servers == null || servers.isEmpty()) {
+            return noEpisode(movie, null);
         }
 
-        if (serverIndex < 0 || serverIndex >= episodes.size()) {
+        if (serverIndex < 0 || serverIndex >= servers.size()) {
             serverIndex = 0;
         }
 
-        Episode ep = episodes.get(serverIndex);
-        List<ServerDataItem> serverData = ep.getServerData();
-        if (serverData == null || serverData.isEmpty()) {
-            return PlayUrlResponse.builder()
-                    .movieId(movie.getId())
-                    .movieName(movie.getName())
-                    .serverName(ep.getServerName())
-                    .episodeName(null)
-                    .episodeSlug(null)
-                    .m3u8Url(null)
-                    .embedUrl(null)
-                    .customHls(false)
-                    .build();
+        EpisodeServer server = servers.get(serverIndex);
+        if (server.getEpisodeCount() <= 0) {
+            return noEpisode(movie, server.getServerName());
         }
 
-        if (episodeIndex < 0 || episodeIndex >= serverData.size()) {
+        if (episodeIndex < 0 || episodeIndex >= server.getEpisodeCount()) {
             episodeIndex = 0;
         }
 
-        ServerDataItem item = serverData.get(episodeIndex);
+        MovieEpisode item = movieEpisodeRepository
+                .findByMovieIdAndServerIndexAndEpisodeIndex(movie.getId(), serverIndex, episodeIndex)
+                .orElse(null);
+        if (item == null) {
+            return noEpisode(movie, server.getServerName());
+        }
         return PlayUrlResponse.builder()
                 .movieId(movie.getId())
                 .movieName(movie.getName())
-                .serverName(ep.getServerName())
+                .serverName(server.getServerName())
                 .episodeName(item.getName())
                 .episodeSlug(item.getSlug())
                 .m3u8Url(item.getLinkM3u8())
@@ -148,26 +208,37 @@ public class StreamingService {
                 .build();
     }
 
+    private PlayUrlResponse noEpisode(Movie movie, String serverName) {
+        return PlayUrlResponse.builder()
+                .movieId(movie.getId())
+                .movieName(movie.getName())
+                .serverName(serverName)
+                .episodeName(null)
+                .episodeSlug(null)
+                .m3u8Url(null)
+                .embedUrl(null)
+                .customHls(false)
+                .build();
+    }
+
     private EpisodesResponse buildEpisodesResponse(Movie movie) {
         List<ServerEpisodesResponse> servers = new ArrayList<>();
 
-        if (movie.getEpisodes() != null) {
-            for (Episode ep : movie.getEpisodes()) {
-                List<EpisodePlayInfo> episodeInfos = new ArrayList<>();
-                if (ep.getServerData() != null) {
-                    for (ServerDataItem sd : ep.getServerData()) {
-                        episodeInfos.add(EpisodePlayInfo.builder()
-                                .name(sd.getName())
-                                .slug(sd.getSlug())
-                                .m3u8Url(sd.getLinkM3u8())
-                                .embedUrl(sd.getLinkEmbed())
-                                .build());
-                    }
-                }
+        if (movie.getServers() != null && !movie.getServers().isEmpty()) {
+            List<List<EpisodePlayInfo>> byServer = new ArrayList<>();
+            for (EpisodeServer server : movie.getServers()) {
+                byServer.add(new ArrayList<>(server.getEpisodeCount()));
+            }
+            for (MovieEpisode ep : movieEpisodeRepository.findByMovieIdOrderByServerIndexAscEpisodeIndexAsc(movie.getId())) {
+                if (ep.getServerIndex() < 0 || ep.getServerIndex() >= byServer.size()) continue;
+                byServer.get(ep.getServerIndex()).add(toPlayInfo(ep));
+            }
+            for (int i = 0; i < byServer.size(); i++) {
+                EpisodeServer server = movie.getServers().get(i);
                 servers.add(ServerEpisodesResponse.builder()
-                        .serverName(ep.getServerName())
-                        .isAi(ep.getIsAi() != null && ep.getIsAi())
-                        .episodes(episodeInfos)
+                        .serverName(server.getServerName())
+                        .isAi(server.getIsAi() != null && server.getIsAi())
+                        .episodes(byServer.get(i))
                         .build());
             }
         }
@@ -179,4 +250,51 @@ public class StreamingService {
                 .servers(servers)
                 .build();
     }
+
+    private EpisodesSummaryResponse buildEpisodesSummary(Movie movie) {
+        return EpisodesSummaryResponse.builder()
+                .movieId(movie.getId())
+                .movieName(movie.getName())
+                .customHlsUrl(movie.getCustomHlsUrl())
+                .servers(movie.getServers() != null ? movie.getServers() : List.of())
+                .build();
+    }
+
+    private ServerEpisodesPageResponse buildServerEpisodes(Movie movie, int serverIndex, int offset, int limit) {
+        List<EpisodeServer> servers = movie.getServers();
+        if (servers == null || serverIndex < 0 || serverIndex >= servers.size()) {
+            throw new ResourceNotFoundException("Server", "index", serverIndex);
+        }
+        EpisodeServer server = servers.get(serverIndex);
+        int from = Math.max(0, offset);
+        int size = Math.min(maxEpisodePageSize, Math.max(1, limit));
+
+        List<EpisodePlayInfo> page = new ArrayList<>();
+        if (from < server.getEpisodeCount()) {
+            for (MovieEpisode ep : movieEpisodeRepository.findRange(movie.getId(), serverIndex, from, size)) {
+                page.add(toPlayInfo(ep));
+            }
+        }
+
+        return ServerEpisodesPageResponse.builder()
+                .movieId(movie.getId())
+                .serverIndex(serverIndex)
+                .serverName(server.getServerName())
+                .isAi(Boolean.TRUE.equals(server.getIsAi()))
+                .offset(from)
+                .limit(size)
+                .total(server.getEpisodeCount())
+                .episodes(page)
+                .build();
+    }
+
+    private static EpisodePlayInfo toPlayInfo(MovieEpisode ep) {
+        return EpisodePlayInfo.builder()
+                .index(ep.getEpisodeIndex())
+                .name(ep.getName())
+                .slug(ep.getSlug())
+                .m3u8Url(ep.getLinkM3u8())
+                .embedUrl(ep.getLinkEmbed())
+                .build();
+    }
 }
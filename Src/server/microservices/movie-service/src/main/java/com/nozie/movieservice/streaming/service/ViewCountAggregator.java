@@ -0,0 +1,185 @@
+package com.nozie.movieservice.streaming.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nozie.movieservice.common.repository.MovieRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Gom lượt xem trong bộ nhớ (LongAdder theo movie id) rồi ghi xuống Mongo định kỳ
+ * bằng bulk $inc, thay vì load + save cả document Movie cho mỗi lượt xem.
+ * <p>
+ * Mỗi counter chỉ tăng; flusher ghi phần chênh lệch {@code total - flushed}, nên
+ * lượt xem đến trong lúc flush không bị mất và flush lỗi (kể cả từng lệnh lỗi trong bulk) sẽ được thử lại lần sau.
+ * Counter không có lượt xem mới quá movie.views.idle-evict-ms bị loại; slug -> id cũng hết hạn sau chừng đó.
+ */
+@Component
+@Slf4j
+public class ViewCountAggregator {
+
+    private final MovieRepository movieRepository;
+    private final Map<String, ViewCounter> counters = new ConcurrentHashMap<>();
+    private final Cache<String, String> slugIds;
+    private final long idleEvictMs;
+    private final Counter flushedViews;
+    private final Counter flushFailures;
+    private final Timer flushTimer;
+
+    @Value("${movie.views.flush-batch-size:1000}")
+    private int flushBatchSize;
+
+    public ViewCountAggregator(MovieRepository movieRepository, MeterRegistry meterRegistry,
+                               @Value("${movie.views.idle-evict-ms:600000}") long idleEvictMs) {
+        this.movieRepository = movieRepository;
+        this.idleEvictMs = idleEvictMs;
+        this.slugIds = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(idleEvictMs))
+                .build();
+        this.flushedViews = meterRegistry.counter("movie.views.flushed");
+        this.flushFailures = meterRegistry.counter("movie.views.flush.failures");
+        this.flushTimer = meterRegistry.timer("movie.views.flush");
+        Gauge.builder("movie.views.pending", this, ViewCountAggregator::pendingViews)
+                .description("Lượt xem đã ghi nhận nhưng chưa flush xuống Mongo")
+                .register(meterRegistry);
+        Gauge.builder("movie.views.pending.movies", this, ViewCountAggregator::pendingMovies)
+                .register(meterRegistry);
+    }
+
+    /** Movie id đã từng được ghi nhận (đã kiểm tra tồn tại lúc thấy lần đầu). */
+    public boolean isTracked(String movieId) {
+        return counters.containsKey(movieId);
+    }
+
+    public void record(String movieId) {
+        while (true) {
+            ViewCounter c = counters.computeIfAbsent(movieId, id -> new ViewCounter());
+            c.total.increment();
+            if (!c.retired) return;
+            // Flusher đang loại counter này: rút lại lượt xem rồi ghi vào counter còn trong map
+            c.total.decrement();
+            Thread.onSpinWait();
+        }
+    }
+
+    /** Slug -> id, chỉ gọi resolver khi slug chưa có hoặc đã hết hạn (phim đổi slug). */
+    public String idForSlug(String slug, Function<String, String> resolver) {
+        return slugIds.get(slug, resolver);
+    }
+
+    public long pendingViews() {
+        long pending = 0;
+        for (ViewCounter c : counters.values()) {
+            pending += c.pending();
+        }
+        return pending;
+    }
+
+    public long pendingMovies() {
+        return counters.values().stream().filter(c -> c.pending() > 0).count();
+    }
+
+    @Scheduled(fixedDelayString = "${movie.views.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing {} pending views before shutdown", pendingViews());
+        flush();
+    }
+
+    public synchronized void flush() {
+        Map<String, Long> batch = new HashMap<>();
+        Map<String, Long> snapshot = new HashMap<>();
+        for (Map.Entry<String, ViewCounter> e : counters.entrySet()) {
+            ViewCounter c = e.getValue();
+            long total = c.total.sum();
+            long delta = total - c.flushed;
+            if (delta <= 0) {
+                evictIfIdle(e.getKey(), c);
+                continue;
+            }
+            batch.put(e.getKey(), delta);
+            snapshot.put(e.getKey(), total);
+            if (batch.size() >= flushBatchSize) {
+                writeBatch(batch, snapshot);
+                batch = new HashMap<>();
+                snapshot = new HashMap<>();
+            }
+        }
+        writeBatch(batch, snapshot);
+    }
+
+    private void writeBatch(Map<String, Long> deltas, Map<String, Long> totals) {
+        if (deltas.isEmpty()) return;
+        Set<String> failed;
+        try {
+            failed = flushTimer.record(() -> movieRepository.incrementViews(deltas));
+        } catch (RuntimeException ex) {
+            flushFailures.increment();
+            log.warn("View flush of {} movies failed, will retry: {}", deltas.size(), ex.getMessage());
+            return;
+        }
+        if (!failed.isEmpty()) {
+            flushFailures.increment();
+            log.warn("View flush failed for {} of {} movies, will retry", failed.size(), deltas.size());
+        }
+        long now = System.currentTimeMillis();
+        long written = 0;
+        for (Map.Entry<String, Long> e : totals.entrySet()) {
+            if (failed.contains(e.getKey())) continue;
+            ViewCounter c = counters.get(e.getKey());
+            if (c != null) {
+                c.flushed = e.getValue();
+                c.lastFlushAt = now;
+            }
+            written += deltas.get(e.getKey());
+        }
+        flushedViews.increment(written);
+    }
+
+    /**
+     * Loại counter đã flush hết và không có lượt xem mới quá idleEvictMs. record() thấy retired thì ghi lại vào
+     * counter mới; total được đọc sau khi đặt retired nên lượt xem chen vào giữa chừng sẽ giữ counter lại.
+     */
+    private void evictIfIdle(String id, ViewCounter c) {
+        if (System.currentTimeMillis() - c.lastFlushAt < idleEvictMs) return;
+        c.retired = true;
+        if (c.total.sum() == c.flushed) {
+            counters.remove(id, c);
+        } else {
+            c.retired = false;
+        }
+    }
+
+    private static final class ViewCounter {
+        final LongAdder total = new LongAdder();
+        /** Chỉ flusher (synchronized) ghi. */
+        volatile long flushed;
+        /** Lần cuối flush có lượt xem mới (lúc tạo nếu chưa flush), chỉ flusher ghi. */
+        volatile long lastFlushAt = System.currentTimeMillis();
+        volatile boolean retired;
+
+        long pending() {
+            return total.sum() - flushed;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.nozie.movieservice.sync;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nozie.common.exception.ServiceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Client OPhim API (SOURCE_FILM.md). Số request đồng thời tới OPhim bị chặn bởi movie.sync.max-concurrency
+ * dù gọi từ bao nhiêu thread; lỗi mạng / 429 / 5xx được thử lại movie.sync.retries lần với backoff.
+ */
+@Component
+@Slf4j
+public class OphimClient {
+
+    private static final long BACKOFF_MILLIS = 500;
+
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final Duration timeout;
+    private final Semaphore permits;
+    private final int retries;
+
+    public OphimClient(ObjectMapper objectMapper,
+                       @Value("${movie.sync.base-url:https://ophim1.com/v1/api}") String baseUrl,
+                       @Value("${movie.sync.timeout-ms:10000}") long timeoutMs,
+                       @Value("${movie.sync.max-concurrency:8}") int maxConcurrency,
+                       @Value("${movie.sync.retries:2}") int retries) {
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.permits = new Semaphore(Math.max(1, maxConcurrency));
+        this.retries = Math.max(0, retries);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /** Một trang danh sách phim; totalPages = 0 nếu response không có params.pagination. */
+    public record ListPage(int page, List<JsonNode> items, int totalPages) {
+    }
+
+    /** Trang page (1-based) của danh sách phim mới cập nhật, sắp theo modified.time giảm dần. */
+    public ListPage listPage(int page, int limit) {
+        JsonNode data = get("/danh-sach/phim-moi-cap-nhat?page=" + page + "&limit=" + limit
+                + "&sortField=modified.time&sortType=desc");
+        List<JsonNode> items = new ArrayList<>();
+        data.path("items").forEach(items::add);
+        JsonNode pagination = data.path("params").path("pagination");
+        int perPage = pagination.path("totalItemsPerPage").asInt(limit);
+        long total = pagination.path("totalItems").asLong(0);
+        int totalPages = perPage > 0 ? (int) ((total + perPage - 1) / perPage) : 0;
+        return new ListPage(page, items, totalPages);
+    }
+
+    /** Chi tiết phim (kèm episodes); empty nếu OPhim không có item cho slug. */
+    public Optional<JsonNode> detail(String slug) {
+        JsonNode item = get("/phim/" + URLEncoder.encode(slug, StandardCharsets.UTF_8)).path("item");
+        return item.isObject() ? Optional.of(item) : Optional.empty();
+    }
+
+    /** data của response; status khác success hoặc hết lượt thử → ServiceUnavailableException. */
+    private JsonNode get(String path) {
+        URI uri = URI.create(baseUrl + path);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        for (int attempt = 0; ; attempt++) {
+            String failure;
+            try {
+                permits.acquire();
+                HttpResponse<byte[]> response;
+                try {
+                    response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                } finally {
+                    permits.release();
+                }
+                int status = response.statusCode();
+                if (status < 300) {
+                    JsonNode root = objectMapper.readTree(response.body());
+                    if (!"success".equals(root.path("status").asText())) {
+                        throw new ServiceUnavailableException("OPhim " + path + " returned status '"
+                                + root.path("status").asText() + "': " + root.path("message").asText());
+                    }
+                    return root.path("data");
+                }
+                if (status != 429 && status < 500) {
+                    throw new ServiceUnavailableException("OPhim " + path + " returned HTTP " + status);
+                }
+                failure = "HTTP " + status;
+            } catch (IOException ex) {
+                failure = ex.getMessage();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new ServiceUnavailableException("Interrupted calling OPhim " + path, ex);
+            }
+            if (attempt >= retries) {
+                throw new ServiceUnavailableException("OPhim " + path + " failed after " + (attempt + 1)
+                        + " attempts: " + failure);
+            }
+            log.debug("OPhim {} failed ({}), retrying", path, failure);
+            sleep(BACKOFF_MILLIS << attempt);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted calling OPhim");
+        }
+    }
+}
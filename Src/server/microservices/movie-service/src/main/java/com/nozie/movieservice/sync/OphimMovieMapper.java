@@ -0,0 +1,164 @@
+package com.nozie.movieservice.sync;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.nozie.movieservice.common.model.CategoryRef;
+import com.nozie.movieservice.common.model.CountryRef;
+import com.nozie.movieservice.common.model.Episode;
+import com.nozie.movieservice.common.model.EpisodeServer;
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.model.ServerDataItem;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Chuyển item OPhim (snake_case) sang document Movie (camelCase) - cùng quy tắc với mapMovieFromOPhim
+ * trong tools/import.js.
+ */
+final class OphimMovieMapper {
+
+    private OphimMovieMapper() {
+    }
+
+    /** modified.time của item; null nếu không có / sai định dạng. */
+    static Instant modified(JsonNode item) {
+        String time = item.path("modified").path("time").asText(null);
+        if (time == null || time.isBlank()) return null;
+        try {
+            return Instant.parse(time);
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
+    }
+
+    /** modifiedAt như Spring Data đọc ra (LocalDateTime theo múi giờ hệ thống). */
+    static LocalDateTime toLocal(Instant instant) {
+        return instant == null ? null : LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    /**
+     * true nếu phim cần ghi: chưa có trong DB, DB chưa có modifiedAt, OPhim không có modified.time, hoặc
+     * bản OPhim mới hơn.
+     */
+    static boolean isChanged(Instant upstreamModified, boolean stored, LocalDateTime storedModified) {
+        if (!stored || storedModified == null || upstreamModified == null) return true;
+        return toLocal(upstreamModified).isAfter(storedModified);
+    }
+
+    /** Các server phát của item chi tiết. */
+    static List<Episode> episodes(JsonNode item) {
+        List<Episode> servers = new ArrayList<>();
+        for (JsonNode server : item.path("episodes")) {
+            List<ServerDataItem> data = new ArrayList<>();
+            for (JsonNode sd : server.path("server_data")) {
+                data.add(ServerDataItem.builder()
+                        .name(text(sd, "name"))
+                        .slug(text(sd, "slug"))
+                        .filename(text(sd, "filename"))
+                        .linkEmbed(text(sd, "link_embed"))
+                        .linkM3u8(text(sd, "link_m3u8"))
+                        .build());
+            }
+            servers.add(Episode.builder()
+                    .serverName(text(server, "server_name"))
+                    .isAi(server.path("is_ai").asBoolean(false))
+                    .serverData(data)
+                    .build());
+        }
+        return servers;
+    }
+
+    /** Tóm tắt Movie.servers - giống kết quả của MovieEpisodeRepository.replaceAll. */
+    static List<EpisodeServer> servers(List<Episode> episodes) {
+        List<EpisodeServer> servers = new ArrayList<>(episodes.size());
+        for (Episode ep : episodes) {
+            servers.add(EpisodeServer.builder()
+                    .serverName(ep.getServerName())
+                    .isAi(ep.getIsAi())
+                    .episodeCount(ep.getServerData() != null ? ep.getServerData().size() : 0)
+                    .build());
+        }
+        return servers;
+    }
+
+    /**
+     * Upsert của phim từ item chi tiết. Lượt xem và accessType chỉ đặt khi chèn mới (không ghi đè view đếm bởi
+     * movie-service hay accessType chỉnh tay). updatedAt lấy giờ Mongo lúc lệnh được ghi ($currentDate) để feed
+     * /changes không bỏ sót phim ghi muộn hơn lúc dựng lệnh; createdAt do caller đặt cho phim mới.
+     */
+    static Update toUpdate(JsonNode item, List<EpisodeServer> servers, String imageCdn) {
+        Update update = new Update()
+                .set("externalId", text(item, "_id"))
+                .set("name", text(item, "name"))
+                .set("slug", text(item, "slug"))
+                .set("originName", text(item, "origin_name"))
+                .set("type", text(item, "type"))
+                .set("status", text(item, "status"))
+                .set("content", text(item, "content"))
+                .set("thumbUrl", imageUrl(imageCdn, text(item, "thumb_url")))
+                .set("posterUrl", imageUrl(imageCdn, text(item, "poster_url")))
+                .set("trailerUrl", text(item, "trailer_url"))
+                .set("year", item.path("year").isNumber() ? item.path("year").asInt() : null)
+                .set("quality", text(item, "quality"))
+                .set("lang", text(item, "lang"))
+                .set("langKey", strings(item.path("lang_key")))
+                .set("time", text(item, "time"))
+                .set("episodeCurrent", text(item, "episode_current"))
+                .set("episodeTotal", text(item, "episode_total"))
+                .set("subDocquyen", item.path("sub_docquyen").asBoolean(false))
+                .set("chieuRap", item.path("chieurap").asBoolean(false))
+                .set("category", refs(item.path("category"), n -> new CategoryRef(text(n, "id"), text(n, "name"), text(n, "slug"))))
+                .set("country", refs(item.path("country"), n -> new CountryRef(text(n, "id"), text(n, "name"), text(n, "slug"))))
+                .set("alternativeNames", strings(item.path("alternative_names")))
+                .set("actor", strings(item.path("actor")))
+                .set("director", strings(item.path("director")))
+                .set("tmdbRating", rating(item.path("tmdb")))
+                .set("imdbRating", rating(item.path("imdb")))
+                .set("servers", servers)
+                .set("source", Movie.Source.OPHIM)
+                .set("modifiedAt", toLocal(modified(item)))
+                .currentDate("updatedAt")
+                .unset("episodes")
+                .setOnInsert("view", item.path("view").asLong(0))
+                .setOnInsert("accessType", Movie.AccessType.FREE);
+        return update;
+    }
+
+    static String imageUrl(String cdn, String path) {
+        if (path == null || path.isBlank()) return null;
+        if (path.startsWith("http")) return path;
+        return cdn + "/uploads/movies/" + path;
+    }
+
+    private static Double rating(JsonNode node) {
+        JsonNode vote = node.path("vote_average");
+        return vote.isNumber() ? vote.asDouble() : null;
+    }
+
+    private static <T> List<T> refs(JsonNode array, Function<JsonNode, T> mapper) {
+        List<T> refs = new ArrayList<>();
+        array.forEach(n -> refs.add(mapper.apply(n)));
+        return refs;
+    }
+
+    /** Mảng chuỗi, bỏ phần tử rỗng (OPhim trả actor: [""] khi chưa có). */
+    private static List<String> strings(JsonNode array) {
+        List<String> values = new ArrayList<>();
+        for (JsonNode n : array) {
+            String v = n.asText("");
+            if (!v.isBlank()) values.add(v);
+        }
+        return values;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.path(field);
+        return value.isValueNode() && !value.isNull() ? value.asText() : null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.nozie.movieservice.sync;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * GET /actuator/ophimsync - trạng thái + checkpoint của đồng bộ OPhim.
+ * POST /actuator/ophimsync {"full": true|false} - chạy đồng bộ ngay (nền); 429 nếu đang chạy (ở replica này hoặc replica khác).
+ */
+@Component
+@WebEndpoint(id = "ophimsync")
+@RequiredArgsConstructor
+public class OphimSyncEndpoint {
+
+    private final OphimSyncService ophimSyncService;
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("running", ophimSyncService.isRunning());
+        body.put("checkpoint", ophimSyncService.checkpoint().orElse(null));
+        return body;
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> sync(@Nullable Boolean full) {
+        boolean started = ophimSyncService.trigger(Boolean.TRUE.equals(full));
+        return new WebEndpointResponse<>(Map.of("started", started),
+                started ? 202 : WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+    }
+}
@@ -0,0 +1,372 @@
+package com.nozie.movieservice.sync;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.nozie.movieservice.common.event.MovieChangedEvent;
+import com.nozie.movieservice.common.model.Episode;
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.model.SyncCheckpoint;
+import com.nozie.movieservice.common.repository.MovieEpisodeRepository;
+import com.nozie.movieservice.common.repository.SyncRepository;
+import com.nozie.movieservice.common.repository.SyncRepository.StoredVersion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Đồng bộ catalog từ OPhim vào collection movies / episodes.
+ * <p>
+ * Danh sách phim (sắp theo modified.time giảm dần) được tải theo cửa sổ movie.sync.page-parallelism trang
+ * song song. Mỗi cửa sổ: một query $in lấy (externalId, modifiedAt) đã lưu, chỉ phim mới hoặc có
+ * modified.time mới hơn mới được tải chi tiết (song song), ghi bằng bulkWrite unordered upsert theo
+ * externalId (lô movie.sync.batch-size) rồi thay tập qua {@link MovieEpisodeRepository#replaceAll}.
+ * <p>
+ * Sau mỗi cửa sổ tiến độ được lưu vào {@link SyncCheckpoint}: lần chạy bị ngắt sẽ chạy tiếp từ trang kế.
+ * Lần chạy tăng dần dừng ở trang đầu tiên mà mọi phim đều cũ hơn watermark của lần chạy trước.
+ * <p>
+ * Cờ running chỉ chặn trong một replica; giữa các replica job phải giữ lease Mongo (sync_leases, hạn
+ * movie.sync.lease-ttl-ms, gia hạn ở mỗi checkpoint) nên cron chỉ chạy ở một replica.
+ */
+@Service
+@Slf4j
+public class OphimSyncService {
+
+    static final String SOURCE = "ophim";
+
+    private final SyncRepository syncRepository;
+    private final MovieEpisodeRepository movieEpisodeRepository;
+    private final OphimClient ophimClient;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final String owner = UUID.randomUUID().toString();
+    private final Counter unchanged;
+    private final Counter written;
+    private final Counter failures;
+
+    @Value("${movie.sync.image-cdn:https://img.ophim.live}")
+    private String imageCdn;
+
+    @Value("${movie.sync.page-size:24}")
+    private int pageSize;
+
+    @Value("${movie.sync.page-parallelism:4}")
+    private int pageParallelism;
+
+    @Value("${movie.sync.batch-size:200}")
+    private int batchSize;
+
+    /** Số trang tối đa mỗi lần chạy (0 = không giới hạn) */
+    @Value("${movie.sync.max-pages:0}")
+    private int maxPages;
+
+    /** Hạn lease giữa các replica; phải dài hơn thời gian xử lý một cửa sổ trang */
+    @Value("${movie.sync.lease-ttl-ms:600000}")
+    private long leaseTtlMs;
+
+    public OphimSyncService(SyncRepository syncRepository, MovieEpisodeRepository movieEpisodeRepository,
+                            OphimClient ophimClient, ApplicationEventPublisher eventPublisher,
+                            MeterRegistry meterRegistry) {
+        this.syncRepository = syncRepository;
+        this.movieEpisodeRepository = movieEpisodeRepository;
+        this.ophimClient = ophimClient;
+        this.eventPublisher = eventPublisher;
+        this.unchanged = meterRegistry.counter("movie.sync.movies", "result", "unchanged");
+        this.written = meterRegistry.counter("movie.sync.movies", "result", "written");
+        this.failures = meterRegistry.counter("movie.sync.movies", "result", "failed");
+    }
+
+    /** Lịch đồng bộ tăng dần (movie.sync.cron, mặc định tắt). */
+    @Scheduled(cron = "${movie.sync.cron:-}")
+    public void scheduledSync() {
+        if (!tryStart()) {
+            log.info("Skipping scheduled OPhim sync: a sync is already running");
+            return;
+        }
+        runExclusive(false);
+    }
+
+    /** Chạy đồng bộ ở virtual thread riêng; false nếu đang có lần chạy khác (ở replica này hoặc replica khác). */
+    public boolean trigger(boolean full) {
+        if (!tryStart()) return false;
+        Thread.ofVirtual().name("ophim-sync").start(() -> runExclusive(full));
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public Optional<SyncCheckpoint> checkpoint() {
+        return syncRepository.findCheckpoint(SOURCE);
+    }
+
+    /** Giữ cờ running rồi lease; true nếu được chạy. */
+    private boolean tryStart() {
+        if (!running.compareAndSet(false, true)) return false;
+        try {
+            if (syncRepository.tryAcquireLease(SOURCE, owner, Duration.ofMillis(leaseTtlMs))) return true;
+            log.info("OPhim sync lease is held by another replica");
+        } catch (RuntimeException ex) {
+            log.warn("Could not acquire OPhim sync lease: {}", ex.getMessage());
+        }
+        running.set(false);
+        return false;
+    }
+
+    /** Gọi khi đã giữ cờ running và lease. */
+    private void runExclusive(boolean full) {
+        try {
+            SyncCheckpoint cp = sync(full);
+            log.info("OPhim sync finished: scanned {}, written {}, failed {}, watermark {}",
+                    cp.getScanned(), cp.getChanged(), cp.getFailed(), cp.getWatermark());
+        } catch (RuntimeException ex) {
+            log.warn("OPhim sync aborted, will resume from checkpoint: {}", ex.getMessage());
+        } finally {
+            try {
+                syncRepository.releaseLease(SOURCE, owner);
+            } catch (RuntimeException ex) {
+                log.warn("Could not release OPhim sync lease, it expires on its own: {}", ex.getMessage());
+            }
+            running.set(false);
+        }
+    }
+
+    private SyncCheckpoint sync(boolean full) {
+        SyncCheckpoint cp = checkpoint().orElseGet(() -> SyncCheckpoint.builder().id(SOURCE).build());
+        boolean resume = cp.getRunStartedAt() != null && cp.getRunFinishedAt() == null && (cp.isRunFull() || !full);
+        if (resume) {
+            log.info("Resuming OPhim sync started at {} from page {}", cp.getRunStartedAt(), cp.getNextPage());
+        } else {
+            cp.setRunStartedAt(Instant.now());
+            cp.setRunFinishedAt(null);
+            cp.setRunFull(full);
+            cp.setRunCutoff(full ? null : cp.getWatermark());
+            cp.setNextPage(1);
+            cp.setRunMaxModified(null);
+            cp.setRunMinFailed(null);
+            cp.setScanned(0);
+            cp.setChanged(0);
+            cp.setFailed(0);
+            save(cp);
+        }
+
+        Instant cutoff = cp.getRunCutoff();
+        int totalPages = Integer.MAX_VALUE;
+        boolean complete = false;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (!complete) {
+                int first = cp.getNextPage();
+                int last = Math.min(first + Math.max(1, pageParallelism) - 1, totalPages);
+                if (maxPages > 0) last = Math.min(last, maxPages);
+                if (first > last) {
+                    complete = first > totalPages;
+                    break;
+                }
+
+                List<JsonNode> items = new ArrayList<>();
+                for (OphimClient.ListPage page : fetchPages(executor, first, last)) {
+                    if (page.totalPages() > 0) totalPages = page.totalPages();
+                    if (page.items().isEmpty() || page.page() > totalPages) {
+                        complete = true;
+                        break;
+                    }
+                    items.addAll(page.items());
+                    if (cutoff != null && allOlderThan(page.items(), cutoff)) {
+                        complete = true;
+                        break;
+                    }
+                }
+                syncItems(executor, items, cp);
+                cp.setNextPage(last + 1);
+                if (last >= totalPages) complete = true;
+                save(cp);
+            }
+        }
+
+        // Chỉ đẩy watermark khi đã quét hết phần mới hơn mốc cũ; phim ghi lỗi sẽ được xét lại lần sau
+        if (complete) {
+            Instant watermark = cp.getRunMaxModified() != null ? cp.getRunMaxModified() : cp.getWatermark();
+            if (cp.getRunMinFailed() != null && watermark != null && cp.getRunMinFailed().isBefore(watermark)) {
+                watermark = cp.getRunMinFailed();
+            }
+            cp.setWatermark(watermark);
+        }
+        cp.setRunFinishedAt(Instant.now());
+        save(cp);
+        return cp;
+    }
+
+    /** Gia hạn lease rồi lưu checkpoint; mất lease (hết hạn, replica khác đã giành) thì dừng lần chạy. */
+    private void save(SyncCheckpoint cp) {
+        if (!syncRepository.tryAcquireLease(SOURCE, owner, Duration.ofMillis(leaseTtlMs))) {
+            throw new IllegalStateException("OPhim sync lease was taken over by another replica");
+        }
+        syncRepository.saveCheckpoint(cp);
+    }
+
+    private List<OphimClient.ListPage> fetchPages(ExecutorService executor, int first, int last) {
+        List<Future<OphimClient.ListPage>> futures = new ArrayList<>();
+        for (int page = first; page <= last; page++) {
+            int p = page;
+            futures.add(executor.submit(() -> ophimClient.listPage(p, pageSize)));
+        }
+        List<OphimClient.ListPage> pages = new ArrayList<>(futures.size());
+        for (Future<OphimClient.ListPage> future : futures) {
+            pages.add(await(future));
+        }
+        return pages;
+    }
+
+    /** Diff một cửa sổ với DB, tải chi tiết phim đã đổi và ghi. */
+    private void syncItems(ExecutorService executor, List<JsonNode> items, SyncCheckpoint cp) {
+        Map<String, JsonNode> byExternalId = new LinkedHashMap<>();
+        for (JsonNode item : items) {
+            String externalId = item.path("_id").asText("");
+            String slug = item.path("slug").asText("");
+            if (externalId.isEmpty() || slug.isEmpty()) continue;
+            byExternalId.putIfAbsent(externalId, item);
+            Instant modified = OphimMovieMapper.modified(item);
+            if (modified != null && (cp.getRunMaxModified() == null || modified.isAfter(cp.getRunMaxModified()))) {
+                cp.setRunMaxModified(modified);
+            }
+        }
+        cp.setScanned(cp.getScanned() + byExternalId.size());
+        if (byExternalId.isEmpty()) return;
+
+        Map<String, StoredVersion> stored = syncRepository.findStoredVersions(byExternalId.keySet());
+        Map<String, Future<Optional<JsonNode>>> details = new LinkedHashMap<>();
+        byExternalId.forEach((externalId, item) -> {
+            StoredVersion s = stored.get(externalId);
+            if (OphimMovieMapper.isChanged(OphimMovieMapper.modified(item), s != null, s != null ? s.modifiedAt() : null)) {
+                String slug = item.path("slug").asText();
+                details.put(externalId, executor.submit(() -> ophimClient.detail(slug)));
+            } else {
+                unchanged.increment();
+            }
+        });
+
+        List<PendingWrite> writes = new ArrayList<>();
+        details.forEach((externalId, future) -> {
+            JsonNode listItem = byExternalId.get(externalId);
+            try {
+                Optional<JsonNode> detail = await(future);
+                if (detail.isEmpty()) {
+                    markFailed(cp, listItem, "no detail item");
+                    return;
+                }
+                StoredVersion s = stored.get(externalId);
+                List<Episode> episodes = OphimMovieMapper.episodes(detail.get());
+                Update update = OphimMovieMapper.toUpdate(detail.get(), OphimMovieMapper.servers(episodes), imageCdn);
+                update.set("externalId", externalId);
+                String id;
+                if (s != null) {
+                    id = s.id();
+                } else {
+                    ObjectId objectId = new ObjectId();
+                    update.setOnInsert("_id", objectId);
+                    // $setOnInsert không nhận $currentDate; phim chưa có trong DB nên lệnh này là lệnh chèn
+                    update.currentDate("createdAt");
+                    id = objectId.toHexString();
+                }
+                writes.add(new PendingWrite(externalId, id, s == null, listItem, update, episodes));
+            } catch (RuntimeException ex) {
+                markFailed(cp, listItem, ex.getMessage());
+            }
+        });
+
+        for (int from = 0; from < writes.size(); from += Math.max(1, batchSize)) {
+            List<PendingWrite> batch = writes.subList(from, Math.min(writes.size(), from + Math.max(1, batchSize)));
+            writeBatch(executor, batch, cp);
+        }
+    }
+
+    /** Upsert một lô phim (unordered), rồi thay tập của các phim ghi thành công và phát MovieChangedEvent. */
+    private void writeBatch(ExecutorService executor, List<PendingWrite> batch, SyncCheckpoint cp) {
+        Map<Integer, String> rejected = syncRepository.upsertByExternalId(
+                batch.stream().map(PendingWrite::externalId).toList(),
+                batch.stream().map(PendingWrite::update).toList());
+        rejected.forEach((index, reason) -> markFailed(cp, batch.get(index).listItem(), reason));
+
+        List<PendingWrite> accepted = new ArrayList<>(batch.size());
+        List<Future<?>> episodeWrites = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (rejected.containsKey(i)) continue;
+            PendingWrite w = batch.get(i);
+            accepted.add(w);
+            episodeWrites.add(executor.submit(() -> movieEpisodeRepository.replaceAll(w.movieId(), w.episodes())));
+        }
+        Map<String, PendingWrite> byId = new HashMap<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            try {
+                await(episodeWrites.get(i));
+                byId.put(accepted.get(i).movieId(), accepted.get(i));
+            } catch (RuntimeException ex) {
+                markFailed(cp, accepted.get(i).listItem(), ex.getMessage());
+            }
+        }
+        if (byId.isEmpty()) return;
+
+        // Cache chi tiết và các index trong bộ nhớ cập nhật qua MovieChangedEvent như khi sửa phim qua API
+        for (Movie movie : syncRepository.findMoviesByIds(byId.keySet())) {
+            eventPublisher.publishEvent(byId.get(movie.getId()).created()
+                    ? MovieChangedEvent.created(movie) : MovieChangedEvent.updated(movie));
+        }
+        written.increment(byId.size());
+        cp.setChanged(cp.getChanged() + byId.size());
+    }
+
+    private void markFailed(SyncCheckpoint cp, JsonNode listItem, String reason) {
+        log.warn("OPhim sync failed for {}: {}", listItem.path("slug").asText(), reason);
+        failures.increment();
+        cp.setFailed(cp.getFailed() + 1);
+        Instant modified = OphimMovieMapper.modified(listItem);
+        if (modified != null && (cp.getRunMinFailed() == null || modified.isBefore(cp.getRunMinFailed()))) {
+            cp.setRunMinFailed(modified);
+        }
+    }
+
+    /** true nếu mọi phim của trang có modified.time trước cutoff (danh sách sắp giảm dần nên các trang sau cũng vậy). */
+    static boolean allOlderThan(List<JsonNode> items, Instant cutoff) {
+        for (JsonNode item : items) {
+            Instant modified = OphimMovieMapper.modified(item);
+            if (modified == null || !modified.isBefore(cutoff)) return false;
+        }
+        return true;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during OPhim sync", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private record PendingWrite(String externalId, String movieId, boolean created, JsonNode listItem,
+                                Update update, List<Episode> episodes) {
+    }
+}
@@ -0,0 +1,146 @@
+package com.nozie.movieservice.catalog.filter;
+
+import com.nozie.movieservice.common.model.CategoryRef;
+import com.nozie.movieservice.common.model.CountryRef;
+import com.nozie.movieservice.common.model.Movie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetIndexTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private FacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FacetIndex();
+        put("a1", "series", "hanh-dong", "han-quoc", 2024, 5);
+        put("a2", "single", "hanh-dong", "my", 2023, 4);
+        put("a3", "series", "tinh-cam", "han-quoc", 2024, 3);
+        put("a4", "series", "hanh-dong", "han-quoc", 2022, null);
+        put("a5", "single", "tinh-cam", "my", 2024, 3);
+    }
+
+    @Test
+    void query_NoFilterOrdersByUpdatedAtThenId() {
+        CatalogFilterIndex.Page page = index.query(CatalogFilter.NONE, FacetIndex.Order.UPDATED, 0, 10);
+
+        assertEquals(List.of("a1", "a2", "a5", "a3", "a4"), ids(page.items()));
+        assertEquals(5, page.total());
+    }
+
+    @Test
+    void query_AndsFacets() {
+        CatalogFilter filter = CatalogFilter.of("series", "hanh-dong", "han-quoc", null);
+
+        CatalogFilterIndex.Page page = index.query(filter, FacetIndex.Order.UPDATED, 0, 10);
+
+        assertEquals(List.of("a1", "a4"), ids(page.items()));
+        assertEquals(2, page.total());
+    }
+
+    @Test
+    void query_UnknownValueMatchesNothing() {
+        CatalogFilterIndex.Page page = index.query(CatalogFilter.of(null, "kinh-di", null, null),
+                FacetIndex.Order.UPDATED, 0, 10);
+
+        assertTrue(page.items().isEmpty());
+        assertEquals(0, page.total());
+    }
+
+    @Test
+    void query_PagesWithOffset() {
+        CatalogFilter filter = CatalogFilter.of(null, null, null, 2024);
+
+        assertEquals(List.of("a1"), ids(index.query(filter, FacetIndex.Order.UPDATED, 0, 1).items()));
+        assertEquals(List.of("a5", "a3"), ids(index.query(filter, FacetIndex.Order.UPDATED, 1, 5).items()));
+        assertTrue(index.query(filter, FacetIndex.Order.UPDATED, 3, 5).items().isEmpty());
+    }
+
+    @Test
+    void after_ContinuesFromKeyset() {
+        Movie probe = Movie.builder().updatedAt(T0.plusHours(3)).id("a5").build();
+
+        List<Movie> next = index.after(CatalogFilter.NONE, FacetIndex.Order.UPDATED, probe, 10);
+
+        assertEquals(List.of("a3", "a4"), ids(next));
+    }
+
+    @Test
+    void after_LatestOrdersById() {
+        Movie probe = Movie.builder().id("a4").build();
+
+        assertEquals(List.of("a3", "a2", "a1"), ids(index.after(CatalogFilter.NONE, FacetIndex.Order.LATEST, probe, 10)));
+    }
+
+    @Test
+    void put_MovesMovieBetweenFacetsAndPosition() {
+        put("a4", "single", "tinh-cam", "my", 2022, 9);
+
+        assertEquals(List.of("a4", "a1", "a2", "a5", "a3"),
+                ids(index.query(CatalogFilter.NONE, FacetIndex.Order.UPDATED, 0, 10).items()));
+        assertEquals(List.of("a1"),
+                ids(index.query(CatalogFilter.of("series", "hanh-dong", null, null), FacetIndex.Order.UPDATED, 0, 10).items()));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void remove_ReusesOrdinal() {
+        index.remove("a2");
+        put("b1", "single", "hanh-dong", "my", 2021, 1);
+
+        assertEquals(List.of("b1"),
+                ids(index.query(CatalogFilter.of("single", "hanh-dong", null, null), FacetIndex.Order.UPDATED, 0, 10).items()));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void retain_KeepsRankingOrder() {
+        List<Movie> kept = index.retain(List.of("a5", "missing", "a2", "a1"), CatalogFilter.of(null, null, "my", null));
+
+        assertEquals(List.of("a5", "a2"), ids(kept));
+    }
+
+    @Test
+    void counts_IgnoreOwnFacetCondition() {
+        CatalogFilterIndex.FacetCounts counts = index.counts(CatalogFilter.of("series", "hanh-dong", null, null));
+
+        assertEquals(2, counts.total());
+        assertEquals(Map.of("series", 2, "single", 1), counts.counts().get(Facet.TYPE));
+        assertEquals(Map.of("hanh-dong", 2, "tinh-cam", 1), counts.counts().get(Facet.GENRE));
+        assertEquals(Map.of("han-quoc", 2), counts.counts().get(Facet.COUNTRY));
+        assertEquals(Map.of("2024", 1, "2022", 1), counts.counts().get(Facet.YEAR));
+    }
+
+    @Test
+    void counts_VersionChangesOnWrite() {
+        long before = index.counts(CatalogFilter.NONE).version();
+        index.remove("a1");
+
+        CatalogFilterIndex.FacetCounts after = index.counts(CatalogFilter.NONE);
+        assertNotEquals(before, after.version());
+        assertEquals(4, after.total());
+    }
+
+    private void put(String id, String type, String genre, String country, int year, Integer hoursAfterT0) {
+        index.put(Movie.builder()
+                .id(id)
+                .type(type)
+                .category(List.of(CategoryRef.builder().slug(genre).build()))
+                .country(List.of(CountryRef.builder().slug(country).build()))
+                .year(year)
+                .updatedAt(hoursAfterT0 != null ? T0.plusHours(hoursAfterT0) : null)
+                .build());
+    }
+
+    private static List<String> ids(List<Movie> movies) {
+        return movies.stream().map(Movie::getId).toList();
+    }
+}
@@ -0,0 +1,115 @@
+package com.nozie.movieservice.catalog.search;
+
+import com.nozie.movieservice.common.cache.RebuildableSnapshot;
+import com.nozie.movieservice.common.model.Movie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+        put("m1", "Phim Hành Động Hay", "Action Movie", List.of("Lý Liên Kiệt"));
+        put("m2", "Đội Điều Tra Đặc Biệt", "Special Unit", List.of("Ma Đông Tích"));
+        put("m3", "Hành Trình Kỳ Thú", "Amazing Journey", List.of());
+    }
+
+    @Test
+    void fold_RemovesVietnameseDiacritics() {
+        assertEquals("phim hanh dong", TextAnalyzer.fold("Phim Hành Động"));
+        assertEquals(List.of("doi", "dieu", "tra"), TextAnalyzer.tokenize("Đội-Điều Tra"));
+    }
+
+    @Test
+    void search_MatchesWithoutDiacritics() {
+        assertEquals(List.of("m1"), search("phim hanh dong"));
+    }
+
+    @Test
+    void search_LastTermIsPrefix() {
+        assertEquals(List.of("m1", "m3"), sorted(search("han")));
+        assertEquals(List.of("m2"), search("dieu t"));
+    }
+
+    @Test
+    void search_RequiresAllTerms() {
+        assertTrue(search("hanh dieu").isEmpty());
+    }
+
+    @Test
+    void search_MatchesPeople() {
+        assertEquals(List.of("m2"), search("ma dong tich"));
+    }
+
+    @Test
+    void put_ReplacesPreviousVersion() {
+        put("m3", "Chuyến Đi", "The Trip", List.of());
+
+        assertEquals(List.of("m1"), search("hanh"));
+        assertEquals(List.of("m3"), search("chuyen di"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void remove_HidesDocument() {
+        index.remove("m1");
+
+        assertEquals(List.of("m3"), search("hanh"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void search_RanksNameMatchAboveActorMatch() {
+        put("m4", "Tình Yêu", "Love", List.of("Kiệt"));
+        put("m5", "Kiệt Tác", "Masterpiece", List.of());
+
+        assertEquals(List.of("m5", "m4", "m1"), search("kiet"));
+    }
+
+    @Test
+    void compaction_KeepsLiveDocuments() {
+        for (int round = 0; round < 300; round++) {
+            put("m2", "Đội Điều Tra Đặc Biệt " + round, "Special Unit", List.of());
+        }
+
+        assertEquals(List.of("m2"), search("doi dieu tra"));
+        assertEquals(List.of("m1"), search("phim"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void searchWithFilter_FiltersBeforeTruncatingToMaxResults() {
+        put("m4", "Hành Động Phần 2", "Action 2", List.of());
+        MovieSearchIndex searchIndex = new MovieSearchIndex(null);
+        ((RebuildableSnapshot<InvertedIndex, ?>) ReflectionTestUtils.getField(searchIndex, "index")).rebuild(() -> index);
+        ReflectionTestUtils.setField(searchIndex, "maxResults", 1);
+
+        List<String> ranked = index.search(TextAnalyzer.tokenize("hanh"), true, 10);
+        String lowest = ranked.get(ranked.size() - 1);
+
+        assertEquals(1, searchIndex.search("hanh").size());
+        assertEquals(List.of(lowest), searchIndex.search("hanh",
+                ids -> ids.stream().filter(lowest::equals).toList()));
+    }
+
+    private void put(String id, String name, String originName, List<String> actors) {
+        Movie movie = Movie.builder().id(id).name(name).originName(originName).actor(actors).build();
+        index.put(id, MovieSearchIndex.termWeights(movie));
+    }
+
+    private List<String> search(String keyword) {
+        return index.search(TextAnalyzer.tokenize(keyword), true, 10);
+    }
+
+    private static List<String> sorted(List<String> ids) {
+        return ids.stream().sorted().toList();
+    }
+}
@@ -0,0 +1,67 @@
+package com.nozie.movieservice.catalog.search;
+
+import com.nozie.movieservice.common.dto.MovieSuggestionResponse;
+import com.nozie.movieservice.common.model.Movie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionSnapshotTest {
+
+    private SuggestionSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = SuggestionSnapshot.build(List.of(
+                candidate("m1", "Phim Hành Động", List.of("Action Film"), 10),
+                candidate("m2", "Hành Trình Kỳ Thú", List.of(), 500),
+                candidate("m3", "Hạnh Phúc Gia Đình", List.of("Happy Family"), 50)
+        ), 5);
+    }
+
+    @Test
+    void suggest_OrdersByViews() {
+        assertEquals(List.of("m2", "m3", "m1"), ids(snapshot.suggest("hanh", 5)));
+    }
+
+    @Test
+    void suggest_MatchesWordStartsAndAlternativeNames() {
+        assertEquals(List.of("m1"), ids(snapshot.suggest("hanh dong", 5)));
+        assertEquals(List.of("m3"), ids(snapshot.suggest("happy f", 5)));
+        assertEquals(List.of("m3"), ids(snapshot.suggest("Gia Đình", 5)));
+    }
+
+    @Test
+    void suggest_ShortPrefixUsesPrecomputedTop() {
+        assertEquals(List.of("m2", "m3"), ids(snapshot.suggest("h", 2)));
+    }
+
+    @Test
+    void suggest_ReturnsEachMovieOnce() {
+        List<SuggestionSnapshot.Candidate> many = IntStream.range(0, 30)
+                .mapToObj(i -> candidate("m" + i, "Naruto tập " + i, List.of("Naruto Shippuden " + i), i))
+                .toList();
+        SuggestionSnapshot big = SuggestionSnapshot.build(many, 5);
+
+        assertEquals(List.of("m29", "m28", "m27", "m26", "m25"), ids(big.suggest("naruto", 5)));
+    }
+
+    @Test
+    void suggest_UnknownPrefixIsEmpty() {
+        assertTrue(snapshot.suggest("xyz", 5).isEmpty());
+        assertTrue(snapshot.suggest("  ", 5).isEmpty());
+    }
+
+    private static SuggestionSnapshot.Candidate candidate(String id, String name, List<String> alt, long view) {
+        Movie movie = Movie.builder().id(id).name(name).slug(id).alternativeNames(alt).view(view).build();
+        return MovieSuggestIndex.candidate(movie);
+    }
+
+    private static List<String> ids(List<MovieSuggestionResponse> suggestions) {
+        return suggestions.stream().map(MovieSuggestionResponse::getId).toList();
+    }
+}
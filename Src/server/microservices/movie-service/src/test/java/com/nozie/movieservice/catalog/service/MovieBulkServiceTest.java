@@ -0,0 +1,77 @@
+package com.nozie.movieservice.catalog.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nozie.common.exception.BadRequestException;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieBulkServiceTest {
+
+    private final ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
+    private final MovieBulkService service = new MovieBulkService(null, new MovieMapper(),
+            validatorFactory.getValidator(), new ObjectMapper(), null, 3);
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void read_JsonArray() throws IOException {
+        List<MovieBulkService.Item> items = service.read(body("""
+                [{"name":"A","slug":"a"},{"name":"B","slug":"b","year":2020}]"""), false);
+
+        assertEquals(2, items.size());
+        assertEquals("b", items.get(1).request().getSlug());
+        assertEquals(1, items.get(1).index());
+    }
+
+    @Test
+    void read_NdjsonKeepsGoingPastBadLines() throws IOException {
+        List<MovieBulkService.Item> items = service.read(body("""
+                {"name":"A","slug":"a"}
+
+                {"name":"B",
+                {"name":"C","slug":"c"}
+                """), true);
+
+        assertEquals(3, items.size());
+        assertNull(items.get(0).error());
+        assertTrue(items.get(1).error().startsWith("Invalid JSON"));
+        assertEquals("c", items.get(2).request().getSlug());
+    }
+
+    @Test
+    void read_RejectsBodiesOverTheLimit() {
+        assertThrows(BadRequestException.class, () -> service.read(body("""
+                {"name":"A","slug":"a"}
+                {"name":"B","slug":"b"}
+                {"name":"C","slug":"c"}
+                {"name":"D","slug":"d"}
+                """), true));
+    }
+
+    @Test
+    void validate_ReportsViolationsAndDuplicateSlugs() throws IOException {
+        List<MovieBulkService.Item> items = MovieBulkService.rejectDuplicateSlugs(service.validate(service.read(body("""
+                [{"name":"A","slug":"a"},{"slug":"b","year":1800},{"name":"A again","slug":"a"}]"""), false)));
+
+        assertNull(items.get(0).error());
+        assertTrue(items.get(1).error().startsWith("name: Movie name is required; year: "));
+        assertTrue(items.get(2).error().contains("Duplicate slug 'a'"));
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,79 @@
+package com.nozie.movieservice.catalog.service;
+
+import com.nozie.common.exception.BadRequestException;
+import com.nozie.movieservice.common.dto.MovieChangesResponse;
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.model.MovieTombstone;
+import com.nozie.movieservice.common.repository.Keyset;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieChangesServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 1, 10, 0);
+
+    private final MovieChangesService service = new MovieChangesService(null, new MovieMapper(), 2000, 500);
+
+    @Test
+    void merge_InterleavesUpdatesAndDeletesInTokenOrder() {
+        Keyset after = new Keyset(T0, "a0");
+        List<Movie> changed = List.of(movie("a1", T0.minusDays(3), T0.plusSeconds(1)),
+                movie("a3", T0.plusSeconds(2), T0.plusSeconds(2)));
+        List<MovieTombstone> deleted = List.of(new MovieTombstone("a2", T0.plusSeconds(2)));
+
+        MovieChangesResponse page = service.merge(changed, deleted, after, T0.plusMinutes(1), 10);
+
+        assertEquals(List.of("a1", "a2", "a3"), page.getChanges().stream().map(MovieChangesResponse.Change::getId).toList());
+        assertEquals(MovieChangesResponse.Type.UPDATED, page.getChanges().get(0).getType());
+        assertEquals(MovieChangesResponse.Type.DELETED, page.getChanges().get(1).getType());
+        assertNull(page.getChanges().get(1).getMovie());
+        assertEquals(MovieChangesResponse.Type.CREATED, page.getChanges().get(2).getType());
+        assertEquals("a3", page.getChanges().get(2).getMovie().getId());
+        assertFalse(page.isHasMore());
+
+        Keyset next = CatalogCursor.decodeChange(page.getNextToken());
+        assertEquals(T0.plusSeconds(2), next.getUpdatedAt());
+        assertEquals("a3", next.getId());
+    }
+
+    @Test
+    void merge_StopsAtLimitAndResumesFromLastToken() {
+        List<Movie> changed = List.of(movie("a1", T0, T0), movie("a2", T0, T0.plusSeconds(1)));
+        List<MovieTombstone> deleted = List.of(new MovieTombstone("a9", T0.plusSeconds(5)));
+
+        MovieChangesResponse page = service.merge(changed, deleted, null, T0.plusMinutes(1), 2);
+
+        assertEquals(2, page.getChanges().size());
+        assertTrue(page.isHasMore());
+        assertEquals("a2", CatalogCursor.decodeChange(page.getNextToken()).getId());
+    }
+
+    @Test
+    void merge_EmptyPageAdvancesTokenToCutoff() {
+        Keyset after = new Keyset(T0, "a0");
+        LocalDateTime before = T0.plusDays(40).plusNanos(1_500_000);
+
+        MovieChangesResponse page = service.merge(List.of(), List.of(), after, before, 10);
+
+        assertTrue(page.getChanges().isEmpty());
+        assertFalse(page.isHasMore());
+        Keyset next = CatalogCursor.decodeChange(page.getNextToken());
+        assertEquals(T0.plusDays(40).plusNanos(1_000_000), next.getUpdatedAt());
+        assertEquals("", next.getId());
+        assertThrows(BadRequestException.class, () -> CatalogCursor.decodeChange("bm90LWEtdG9rZW4"));
+    }
+
+    private static Movie movie(String id, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        movie.setName("Phim " + id);
+        movie.setSlug("phim-" + id);
+        movie.setCreatedAt(createdAt);
+        movie.setUpdatedAt(updatedAt);
+        return movie;
+    }
+}
@@ -0,0 +1,81 @@
+package com.nozie.movieservice.catalog.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.nozie.common.exception.BadRequestException;
+import com.nozie.movieservice.common.model.Movie;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieExportServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final MovieExportService service = new MovieExportService(null, new MovieMapper(), objectMapper, 100);
+
+    @Test
+    void write_OneMoviePerLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = service.write(Stream.of(movie("1", "phim-a"), movie("2", "phim-b")), out, null);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(2, count);
+        assertEquals(3, lines.length);
+        assertEquals("", lines[2]);
+        assertTrue(lines[0].startsWith("{\"id\":\"1\","), lines[0]);
+        assertTrue(lines[1].startsWith("{\"id\":\"2\","), lines[1]);
+        assertTrue(lines[1].endsWith("}"), lines[1]);
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals("phim-b", second.get("slug").asText());
+        assertEquals("2024-05-01T10:00:00", second.get("updatedAt").asText());
+    }
+
+    @Test
+    void write_ProjectsSelectedFields() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.write(Stream.of(movie("1", "phim-a")), out, MovieFields.parse("slug", null));
+
+        JsonNode line = objectMapper.readTree(out.toString(StandardCharsets.UTF_8).trim());
+        assertEquals(Set.of("id", "slug"), Set.copyOf(fieldNames(line)));
+    }
+
+    @Test
+    void parseSince_AcceptsDatesAndTimestamps() {
+        assertNull(MovieExportService.parseSince(" "));
+        assertEquals(LocalDateTime.of(2024, 5, 1, 0, 0), MovieExportService.parseSince("2024-05-01"));
+        assertEquals(LocalDateTime.of(2024, 5, 1, 7, 30), MovieExportService.parseSince("2024-05-01T07:30:00"));
+        assertEquals(ZonedDateTime.parse("2024-05-01T00:00:00Z").withZoneSameInstant(ZoneId.systemDefault())
+                .toLocalDateTime(), MovieExportService.parseSince("2024-05-01T00:00:00Z"));
+        assertThrows(BadRequestException.class, () -> MovieExportService.parseSince("yesterday"));
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    private static Movie movie(String id, String slug) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        movie.setName("Phim " + id);
+        movie.setSlug(slug);
+        movie.setUpdatedAt(LocalDateTime.of(2024, 5, 1, 10, 0));
+        return movie;
+    }
+}
@@ -0,0 +1,84 @@
+package com.nozie.movieservice.catalog.similar;
+
+import com.nozie.movieservice.common.model.Movie;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark dựng + cập nhật SimilarityModel trên catalog giả 25k / 50k / 100k phim. Không nằm trong bộ test
+ * mặc định (tên không khớp *Test); chạy riêng:
+ * <pre>
+ * mvn -pl movie-service test -Dtest=SimilarityModelBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+ * </pre>
+ */
+class SimilarityModelBenchmark {
+
+    private static final int TOP_K = 20;
+    private static final int MAX_POSTING = 1000;
+    private static final int BUCKET_CANDIDATES = 200;
+
+    @Test
+    void scalesLinearlyTo100kTitles() {
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            run(pool, 25_000); // warm-up JIT
+            Result small = run(pool, 25_000);
+            Result medium = run(pool, 50_000);
+            Result large = run(pool, 100_000);
+            System.out.printf("parallelism=%d%n%s%n%s%n%s%n", pool.getParallelism(), small, medium, large);
+
+            // chi phí mỗi phim không tăng theo kích thước catalog (cho phép nhiễu / GC)
+            assertTrue(large.microsPerTitle() < small.microsPerTitle() * 3,
+                    "per-title build cost grew from " + small.microsPerTitle() + " to " + large.microsPerTitle() + " us");
+            assertTrue(large.avgNeighbours() > TOP_K / 2.0);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Result run(ForkJoinPool pool, int size) {
+        SyntheticCatalog catalog = new SyntheticCatalog(size, size);
+        List<Movie> movies = catalog.movies(size);
+
+        long start = System.nanoTime();
+        SimilarityModel model = new SimilarityModel(TOP_K, MAX_POSTING, BUCKET_CANDIDATES);
+        movies.forEach(model::put);
+        long loaded = System.nanoTime();
+        model.computeAll(pool);
+        long built = System.nanoTime();
+
+        long neighbours = 0;
+        for (Movie m : movies) neighbours += model.neighbours(m.getId()).orElseThrow().size();
+
+        // 100 phim sửa + 100 phim mới + 100 phim xóa trong một lần refresh
+        List<Movie> upserts = new ArrayList<>();
+        List<String> deletes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            upserts.add(catalog.movie(movies.get(i * 3).getId()));
+            upserts.add(catalog.movie("new" + i));
+            deletes.add(movies.get(i * 3 + 1).getId());
+        }
+        long updateStart = System.nanoTime();
+        model.update(upserts, deletes);
+        long updated = System.nanoTime();
+
+        return new Result(size, (loaded - start) / 1_000_000, (built - loaded) / 1_000_000,
+                (built - start) / 1000.0 / size, (double) neighbours / size, (updated - updateStart) / 1_000_000.0);
+    }
+
+    private record Result(int titles, long loadMs, long computeMs, double microsPerTitle, double avgNeighbours,
+                          double update300Ms) {
+
+        @Override
+        public String toString() {
+            return String.format("%,7d titles: load %,5d ms, compute %,6d ms (%.1f us/title), %.1f neighbours/title,"
+                    + " incremental update of 300 changes %.1f ms", titles, loadMs, computeMs, microsPerTitle,
+                    avgNeighbours, update300Ms);
+        }
+    }
+}
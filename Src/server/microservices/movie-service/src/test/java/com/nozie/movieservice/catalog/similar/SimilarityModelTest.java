@@ -0,0 +1,92 @@
+package com.nozie.movieservice.catalog.similar;
+
+import com.nozie.movieservice.common.model.CategoryRef;
+import com.nozie.movieservice.common.model.CountryRef;
+import com.nozie.movieservice.common.model.Movie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarityModelTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void neighbours_RankByWeightedOverlap() {
+        SimilarityModel model = new SimilarityModel(5, 1000, 200);
+        model.put(movie("a", "series", 2020, List.of("hanh-dong", "vien-tuong"), "han-quoc", List.of("Lee Min Ho"), "Kim Eun Sook"));
+        model.put(movie("b", "series", 2021, List.of("hanh-dong", "vien-tuong"), "han-quoc", List.of("Lee Min Ho"), "Kim Eun Sook"));
+        model.put(movie("c", "series", 2020, List.of("hanh-dong"), "han-quoc", List.of(), "Someone"));
+        model.put(movie("d", "single", 1995, List.of("tinh-cam"), "my", List.of("Tom Hanks"), "Đang cập nhật"));
+        model.put(movie("e", "single", 1996, List.of("hai-huoc"), "phap", List.of(), "Đang cập nhật"));
+        model.computeAll(pool);
+
+        assertEquals(List.of("b", "c"), model.neighbours("a").orElseThrow());
+        assertTrue(model.similarity("a", "b") > model.similarity("a", "c"));
+        // chỉ chung loại + năm gần, đạo diễn "Đang cập nhật" không tính
+        assertEquals(List.of("e"), model.neighbours("d").orElseThrow());
+        assertTrue(model.neighbours("missing").isEmpty());
+    }
+
+    @Test
+    void update_MatchesFullRebuild() {
+        SyntheticCatalog catalog = new SyntheticCatalog(7, 600);
+        List<Movie> movies = new ArrayList<>(catalog.movies(600));
+        SimilarityModel incremental = new SimilarityModel(10, 10_000, 10_000);
+        movies.forEach(incremental::put);
+        incremental.computeAll(pool);
+
+        List<Movie> upserts = new ArrayList<>();
+        List<String> deletes = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            deletes.add(movies.remove(i * 7).getId());
+            Movie changed = catalog.movie(movies.get(i * 11).getId());
+            movies.set(i * 11, changed);
+            upserts.add(changed);
+            Movie added = catalog.movie("new" + i);
+            movies.add(added);
+            upserts.add(added);
+        }
+        incremental.update(upserts, deletes);
+
+        SimilarityModel full = new SimilarityModel(10, 10_000, 10_000);
+        movies.forEach(full::put);
+        full.computeAll(pool);
+
+        assertEquals(full.size(), incremental.size());
+        for (Movie m : movies) {
+            assertEquals(scores(full, m.getId()), scores(incremental, m.getId()), m.getId());
+        }
+        deletes.forEach(id -> assertTrue(incremental.neighbours(id).isEmpty()));
+    }
+
+    /** Điểm (làm tròn) của danh sách neighbour: so sánh không phụ thuộc thứ tự khi hòa điểm do sai số float. */
+    private static List<Long> scores(SimilarityModel model, String id) {
+        return model.neighbours(id).orElseThrow().stream()
+                .map(other -> Math.round(model.similarity(id, other) * 10_000.0))
+                .toList();
+    }
+
+    private static Movie movie(String id, String type, int year, List<String> categories, String country,
+                               List<String> actors, String director) {
+        return Movie.builder()
+                .id(id)
+                .type(type)
+                .year(year)
+                .category(categories.stream().map(s -> CategoryRef.builder().slug(s).build()).toList())
+                .country(List.of(CountryRef.builder().slug(country).build()))
+                .actor(actors)
+                .director(List.of(director))
+                .build();
+    }
+}
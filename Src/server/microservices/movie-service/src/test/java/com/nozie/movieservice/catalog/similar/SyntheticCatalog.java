@@ -0,0 +1,63 @@
+package com.nozie.movieservice.catalog.similar;
+
+import com.nozie.movieservice.common.model.CategoryRef;
+import com.nozie.movieservice.common.model.CountryRef;
+import com.nozie.movieservice.common.model.Movie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** Catalog giả có phân bố lệch như dữ liệu thật: vài thể loại / quốc gia / diễn viên rất phổ biến, đa số hiếm. */
+final class SyntheticCatalog {
+
+    private static final String[] TYPES = {"series", "single", "hoathinh", "tvshows"};
+
+    private final Random random;
+    private final int actors;
+    private final int directors;
+    private final int categories;
+    private final int countries;
+
+    SyntheticCatalog(long seed, int size) {
+        this.random = new Random(seed);
+        this.actors = Math.max(50, size * 2);
+        this.directors = Math.max(20, size / 3);
+        this.categories = 25;
+        this.countries = 30;
+    }
+
+    List<Movie> movies(int count) {
+        List<Movie> movies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) movies.add(movie("m" + i));
+        return movies;
+    }
+
+    Movie movie(String id) {
+        List<CategoryRef> category = new ArrayList<>();
+        for (int i = 1 + random.nextInt(3); i > 0; i--) {
+            String slug = "the-loai-" + skewed(categories, 2);
+            if (category.stream().noneMatch(c -> c.getSlug().equals(slug))) {
+                category.add(CategoryRef.builder().slug(slug).name(slug).build());
+            }
+        }
+        List<String> cast = new ArrayList<>();
+        for (int i = 3 + random.nextInt(8); i > 0; i--) cast.add("Actor " + skewed(actors, 3));
+        String director = random.nextInt(10) == 0 ? "Đang cập nhật" : "Director " + skewed(directors, 2);
+        return Movie.builder()
+                .id(id)
+                .type(TYPES[skewed(TYPES.length, 2)])
+                .year(2025 - skewed(35, 2))
+                .view((long) random.nextInt(100_000))
+                .category(category)
+                .country(List.of(CountryRef.builder().slug("quoc-gia-" + skewed(countries, 2)).build()))
+                .actor(cast)
+                .director(List.of(director))
+                .build();
+    }
+
+    /** Chỉ số trong [0, n), giá trị nhỏ phổ biến hơn (lũy thừa càng lớn càng lệch). */
+    private int skewed(int n, int power) {
+        return Math.min(n - 1, (int) (n * Math.pow(random.nextDouble(), power)));
+    }
+}
@@ -0,0 +1,64 @@
+package com.nozie.movieservice.common.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.repository.MovieRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieCacheTest {
+
+    private final CountDownLatch loading = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private volatile boolean blockLoads;
+
+    private final MovieRepository repository = (MovieRepository) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[]{MovieRepository.class}, (proxy, method, args) -> {
+                if (!"findById".equals(method.getName())) throw new UnsupportedOperationException(method.getName());
+                if (blockLoads) {
+                    loading.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                return Optional.of(Movie.builder().id((String) args[0]).slug("phim-a").name("Phim A").build());
+            });
+    private final MovieCache cache = new MovieCache(repository, null, new ObjectMapper(), new SimpleMeterRegistry(),
+            false, 100, 600_000, 3_600_000, 5000);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void findById_CachesLoadedMovie() {
+        assertTrue(cache.findById("a").isPresent());
+        assertTrue(cache.peekById("a").isPresent());
+        assertTrue(cache.peekBySlug("phim-a").isPresent());
+    }
+
+    @Test
+    void findById_LoadOverlappingInvalidationIsNotCached() throws Exception {
+        blockLoads = true;
+        Future<Optional<Movie>> load = executor.submit(() -> cache.findById("a"));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        cache.evict("a");
+        release.countDown();
+
+        assertTrue(load.get(5, TimeUnit.SECONDS).isPresent());
+        assertTrue(cache.peekById("a").isEmpty());
+        assertTrue(cache.peekBySlug("phim-a").isEmpty());
+    }
+}
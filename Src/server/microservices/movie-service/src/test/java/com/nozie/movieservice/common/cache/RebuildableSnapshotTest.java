@@ -0,0 +1,50 @@
+package com.nozie.movieservice.common.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RebuildableSnapshotTest {
+
+    private final RebuildableSnapshot<List<String>, String> snapshot = new RebuildableSnapshot<>(List::add);
+
+    @Test
+    void rebuild_ReplaysChangesReceivedWhileBuilding() {
+        assertNull(snapshot.get());
+        snapshot.apply("dropped"); // chưa có bản nào, cũng không đang dựng
+
+        List<String> first = snapshot.rebuild(() -> {
+            snapshot.apply("during-first");
+            return new ArrayList<>(List.of("a"));
+        });
+        assertEquals(List.of("a", "during-first"), first);
+
+        snapshot.apply("b");
+        List<String> second = snapshot.rebuild(() -> {
+            snapshot.apply("during-second");
+            return new ArrayList<>(List.of("a", "b"));
+        });
+
+        assertSame(second, snapshot.get());
+        assertEquals(List.of("a", "b", "during-second"), second);
+        assertEquals(List.of("a", "during-first", "b", "during-second"), first, "old copy kept serving reads");
+    }
+
+    @Test
+    void rebuild_FailureKeepsCurrentAndStopsRecording() {
+        List<String> initial = snapshot.rebuild(() -> new ArrayList<>(List.of("a")));
+
+        assertThrows(IllegalStateException.class, () -> snapshot.rebuild(() -> {
+            snapshot.apply("b");
+            throw new IllegalStateException("mongo down");
+        }));
+        snapshot.apply("c");
+        List<String> next = snapshot.rebuild(() -> new ArrayList<>(List.of("x")));
+
+        assertEquals(List.of("a", "b", "c"), initial);
+        assertEquals(List.of("x"), next, "changes before the failed build are not replayed");
+    }
+}
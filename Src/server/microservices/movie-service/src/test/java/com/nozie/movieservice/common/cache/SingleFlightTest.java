@@ -0,0 +1,131 @@
+package com.nozie.movieservice.common.cache;
+
+import com.nozie.common.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int FOLLOWERS = 8;
+
+    private SimpleMeterRegistry registry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(FOLLOWERS + 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void load_ConcurrentCallsShareOneLoad() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", Duration.ofSeconds(5), registry);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> flight.load("k", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "movie";
+        }));
+        waitUntil(() -> flight.inFlight() == 1);
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            followers.add(executor.submit(() -> flight.load("k", () -> {
+                loads.incrementAndGet();
+                return "other";
+            })));
+        }
+        waitUntil(() -> coalesced() == FOLLOWERS);
+        release.countDown();
+
+        assertEquals("movie", leader.get(5, TimeUnit.SECONDS));
+        for (Future<String> f : followers) {
+            assertEquals("movie", f.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, flight.inFlight());
+    }
+
+    @Test
+    void load_FollowersReceiveLeaderException() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", Duration.ofSeconds(5), registry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> flight.load("k", () -> {
+            await(release);
+            throw new IllegalStateException("mongo down");
+        }));
+        waitUntil(() -> flight.inFlight() == 1);
+        Future<String> follower = executor.submit(() -> flight.load("k", () -> "unused"));
+        waitUntil(() -> coalesced() == 1);
+        release.countDown();
+
+        assertCause(IllegalStateException.class, leader);
+        assertCause(IllegalStateException.class, follower);
+        assertEquals("fresh", flight.load("k", () -> "fresh"));
+    }
+
+    @Test
+    void load_FollowerTimesOut() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", Duration.ofMillis(50), registry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> flight.load("k", () -> {
+            await(release);
+            return "slow";
+        }));
+        waitUntil(() -> flight.inFlight() == 1);
+
+        assertThrows(ServiceUnavailableException.class, () -> flight.load("k", () -> "unused"));
+        assertEquals(1.0, registry.counter("movie.lookup.timeouts", "op", "test").count());
+        release.countDown();
+        assertEquals("slow", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    private double coalesced() {
+        return registry.counter("movie.lookup.coalesced", "op", "test").count();
+    }
+
+    private static void assertCause(Class<? extends Throwable> type, Future<?> future) {
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(type, ex.getCause());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("condition not reached");
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.nozie.movieservice.streaming.hls;
+
+import com.nozie.common.exception.BadRequestException;
+import com.nozie.movieservice.streaming.play.PlayUrlIndex;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HlsProxyServiceTest {
+
+    private static final String MASTER = """
+            #EXTM3U
+            #EXT-X-STREAM-INF:BANDWIDTH=800000
+            720/index.m3u8
+            #EXT-X-MEDIA:TYPE=AUDIO,GROUP-ID="a",URI="audio/index.m3u8"
+            """;
+    private static final String VOD = """
+            #EXTM3U
+            #EXT-X-TARGETDURATION:6
+            #EXT-X-KEY:METHOD=AES-128,URI="key.bin"
+            #EXTINF:6.0,
+            seg0.ts
+            #EXT-X-ENDLIST""";
+
+    private HttpServer upstream;
+    private final AtomicInteger masterHits = new AtomicInteger();
+    private HlsProxyService proxy;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        upstream.createContext("/v/master.m3u8", exchange -> {
+            masterHits.incrementAndGet();
+            sleep(200);
+            respond(exchange, MASTER);
+        });
+        upstream.createContext("/v/720/index.m3u8", exchange -> respond(exchange, VOD));
+        upstream.createContext("/v/moved.m3u8", exchange -> redirect(exchange, "720/index.m3u8"));
+        upstream.createContext("/v/escape.m3u8", exchange -> redirect(exchange,
+                "http://localhost:" + upstream.getAddress().getPort() + "/v/720/index.m3u8"));
+        upstream.createContext("/v/foreign.m3u8", exchange -> respond(exchange,
+                "#EXTM3U\n#EXT-X-STREAM-INF:BANDWIDTH=1\nhttp://foreign.example/v/index.m3u8\n"));
+        upstream.start();
+        proxy = proxy(true);
+    }
+
+    private HlsProxyService proxy(boolean allowPrivateAddresses) {
+        return new HlsProxyService(new PlayUrlIndex(null, null, null), new SimpleMeterRegistry(),
+                List.of("127.0.0.1"), allowPrivateAddresses, 2000, 60_000, 2000, 1 << 20, 1 << 20);
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.stop(0);
+        proxy.shutdown();
+    }
+
+    @Test
+    void rewrite_MasterVariantsGoThroughProxy() {
+        HlsPlaylistRewriter.Result result = HlsPlaylistRewriter.rewrite(MASTER,
+                URI.create("https://cdn.example/v/master.m3u8"), url -> "P(" + url + ")");
+
+        assertFalse(result.live());
+        assertTrue(result.text().contains("\nP(https://cdn.example/v/720/index.m3u8)\n"));
+        assertTrue(result.text().contains("URI=\"P(https://cdn.example/v/audio/index.m3u8)\""));
+    }
+
+    @Test
+    void rewrite_MediaSegmentsBecomeAbsolute() {
+        HlsPlaylistRewriter.Result vod = HlsPlaylistRewriter.rewrite(VOD,
+                URI.create("https://cdn.example/v/720/index.m3u8"), url -> "P(" + url + ")");
+        HlsPlaylistRewriter.Result live = HlsPlaylistRewriter.rewrite(VOD.replace("#EXT-X-ENDLIST", ""),
+                URI.create("https://cdn.example/v/720/index.m3u8"), url -> "P(" + url + ")");
+
+        assertFalse(vod.live());
+        assertTrue(live.live());
+        assertEquals(6, live.targetDuration());
+        assertTrue(vod.text().contains("\nhttps://cdn.example/v/720/seg0.ts\n"));
+        assertTrue(vod.text().contains("URI=\"https://cdn.example/v/720/key.bin\""));
+        assertFalse(vod.text().contains("P("));
+    }
+
+    @Test
+    void get_ConcurrentRequestsShareOneUpstreamFetch() {
+        List<CompletableFuture<HlsProxyService.Playlist>> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            requests.add(proxy.get(base() + "/v/master.m3u8"));
+        }
+
+        byte[] first = requests.get(0).join().body();
+        for (CompletableFuture<HlsProxyService.Playlist> request : requests) {
+            assertSame(first, request.join().body());
+        }
+        assertEquals(1, masterHits.get());
+        String text = new String(first, StandardCharsets.UTF_8);
+        assertTrue(text.contains(HlsProxyService.link(base() + "/v/720/index.m3u8")));
+    }
+
+    @Test
+    void get_RejectsUnknownHosts() {
+        assertThrows(BadRequestException.class, () -> proxy.get("https://evil.example/x.m3u8"));
+        assertThrows(BadRequestException.class, () -> proxy.get("file:///etc/passwd"));
+    }
+
+    @Test
+    void get_FollowsRedirectsOnlyToAllowedHosts() {
+        String moved = new String(proxy.get(base() + "/v/moved.m3u8").join().body(), StandardCharsets.UTF_8);
+        assertTrue(moved.contains("\n" + base() + "/v/720/seg0.ts\n"));
+
+        // localhost không nằm trong allowed-hosts dù cùng server
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> proxy.get(base() + "/v/escape.m3u8").join());
+        assertInstanceOf(BadRequestException.class, ex.getCause());
+    }
+
+    @Test
+    void get_NestedPlaylistOnUnknownHostIsNotProxied() {
+        String text = new String(proxy.get(base() + "/v/foreign.m3u8").join().body(), StandardCharsets.UTF_8);
+
+        assertTrue(text.contains("\nhttp://foreign.example/v/index.m3u8\n"));
+        assertThrows(BadRequestException.class, () -> proxy.get("http://foreign.example/v/index.m3u8"));
+    }
+
+    @Test
+    void get_RejectsInternalAddresses() throws IOException {
+        HlsProxyService strict = proxy(false);
+        try {
+            CompletionException ex = assertThrows(CompletionException.class,
+                    () -> strict.get(base() + "/v/720/index.m3u8").join());
+            assertInstanceOf(BadRequestException.class, ex.getCause());
+        } finally {
+            strict.shutdown();
+        }
+        assertTrue(HlsProxyService.isInternal(InetAddress.getByName("169.254.169.254")));
+        assertTrue(HlsProxyService.isInternal(InetAddress.getByName("10.1.2.3")));
+        assertTrue(HlsProxyService.isInternal(InetAddress.getByName("fd00::1")));
+        assertFalse(HlsProxyService.isInternal(InetAddress.getByName("93.184.216.34")));
+    }
+
+    private String base() {
+        return "http://127.0.0.1:" + upstream.getAddress().getPort();
+    }
+
+    private static void respond(com.sun.net.httpserver.HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void redirect(com.sun.net.httpserver.HttpExchange exchange, String location) throws IOException {
+        exchange.getResponseHeaders().set("Location", location);
+        exchange.sendResponseHeaders(302, -1);
+        exchange.close();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
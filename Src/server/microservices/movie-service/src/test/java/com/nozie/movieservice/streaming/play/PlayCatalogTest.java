@@ -0,0 +1,105 @@
+package com.nozie.movieservice.streaming.play;
+
+import com.nozie.movieservice.common.dto.PlayUrlResponse;
+import com.nozie.movieservice.common.model.EpisodeServer;
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.model.MovieEpisode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayCatalogTest {
+
+    private PlayCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new PlayCatalog();
+        List<MovieEpisode> episodes = new ArrayList<>();
+        for (int e = 0; e < 3; e++) {
+            episodes.add(episode("m1", 0, e, "https://cdn-a.example/m1/vs/" + e + "/index.m3u8"));
+            episodes.add(episode("m1", 1, e, "https://cdn-b.example/m1/tm/" + e + "/index.m3u8"));
+        }
+        catalog.put(movie("m1", "phim-1", null, server("Vietsub #1", 3), server("Thuyết minh", 3)), episodes);
+    }
+
+    @Test
+    void resolve_ReturnsEpisodeUrls() {
+        PlayUrlResponse play = catalog.resolve("m1", 1, 2);
+
+        assertEquals("Thuyết minh", play.getServerName());
+        assertEquals("Tập 3", play.getEpisodeName());
+        assertEquals("https://cdn-b.example/m1/tm/2/index.m3u8", play.getM3u8Url());
+        assertEquals("https://cdn-b.example/share/m1-1-2", play.getEmbedUrl());
+        assertFalse(play.isCustomHls());
+    }
+
+    @Test
+    void resolve_OutOfRangeFallsBackToFirst() {
+        PlayUrlResponse play = catalog.resolve("m1", 7, 99);
+
+        assertEquals("Vietsub #1", play.getServerName());
+        assertEquals("https://cdn-a.example/m1/vs/0/index.m3u8", play.getM3u8Url());
+    }
+
+    @Test
+    void resolve_PrefersCustomHlsOnlyForDefaultEpisode() {
+        catalog.put(movie("m2", "phim-2", "https://r2.example/m2/master.m3u8", server("Vietsub #1", 1)),
+                List.of(episode("m2", 0, 0, "https://cdn-a.example/m2/0/index.m3u8")));
+
+        assertTrue(catalog.resolve("m2", 0, 0).isCustomHls());
+        assertEquals("https://r2.example/m2/master.m3u8", catalog.resolve("m2", 0, 0).getM3u8Url());
+    }
+
+    @Test
+    void resolve_MissingEpisodeOrServersHasNoUrl() {
+        catalog.put(movie("m3", "phim-3", null, server("Vietsub #1", 2)), List.of());
+        catalog.put(movie("m4", "phim-4", null), List.of());
+
+        assertEquals("Vietsub #1", catalog.resolve("m3", 0, 1).getServerName());
+        assertNull(catalog.resolve("m3", 0, 1).getM3u8Url());
+        assertNull(catalog.resolve("m4", 0, 0).getServerName());
+        assertNull(catalog.resolve("unknown", 0, 0));
+    }
+
+    @Test
+    void put_DeduplicatesUrlPrefixes() {
+        assertEquals(2, catalog.prefixCount());
+    }
+
+    @Test
+    void putAndRemove_KeepSlugMapping() {
+        catalog.put(movie("m1", "phim-1-moi", null), List.of());
+        assertNull(catalog.idForSlug("phim-1"));
+        assertEquals("m1", catalog.idForSlug("phim-1-moi"));
+
+        catalog.remove("m1");
+        assertNull(catalog.idForSlug("phim-1-moi"));
+        assertNull(catalog.resolve("m1", 0, 0));
+    }
+
+    private static Movie movie(String id, String slug, String customHlsUrl, EpisodeServer... servers) {
+        return Movie.builder().id(id).name(id).slug(slug).customHlsUrl(customHlsUrl).servers(List.of(servers)).build();
+    }
+
+    private static EpisodeServer server(String name, int count) {
+        return EpisodeServer.builder().serverName(name).isAi(false).episodeCount(count).build();
+    }
+
+    private static MovieEpisode episode(String movieId, int server, int episode, String m3u8) {
+        String host = m3u8.substring(0, m3u8.indexOf('/', "https://".length()));
+        return MovieEpisode.builder()
+                .movieId(movieId)
+                .serverIndex(server)
+                .episodeIndex(episode)
+                .name("Tập " + (episode + 1))
+                .slug("tap-" + (episode + 1))
+                .linkM3u8(m3u8)
+                .linkEmbed(host + "/share/" + movieId + "-" + server + "-" + episode)
+                .build();
+    }
+}
@@ -0,0 +1,139 @@
+package com.nozie.movieservice.streaming.play;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamHealthTest {
+
+    private HttpServer fast;
+    private HttpServer slow;
+    private UpstreamHealth health;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fast = stub(0, 200);
+        slow = stub(400, 200);
+        health = new UpstreamHealth(new SimpleMeterRegistry(), 2000, 2, 100, 3_600_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fast.stop(0);
+        slow.stop(0);
+    }
+
+    @Test
+    void choose_UnprobedHostsKeepServerOrder() {
+        assertEquals(0, health.choose(new String[]{url(slow), url(fast)}));
+        assertEquals(1, health.choose(new String[]{null, url(fast)}));
+        assertEquals(-1, health.choose(new String[]{null, null}));
+    }
+
+    @Test
+    void choose_PrefersLowerTimeToFirstByte() {
+        String[] urls = {url(slow), url(fast)};
+        health.choose(urls);
+
+        health.probeAll();
+
+        assertTrue(health.stats(UpstreamHealth.host(url(slow))).latencyMillis()
+                > health.stats(UpstreamHealth.host(url(fast))).latencyMillis());
+        assertEquals(1, health.choose(urls));
+    }
+
+    @Test
+    void choose_SkipsHostAfterConsecutiveFailures() throws IOException {
+        HttpServer broken = stub(0, 503);
+        try {
+            String[] urls = {url(broken), url(slow)};
+            health.choose(urls);
+
+            health.probeAll();
+            assertEquals(0, health.choose(new String[]{url(broken), null}));
+            health.probeAll();
+
+            assertEquals(2, health.stats(UpstreamHealth.host(url(broken))).consecutiveFailures());
+            assertEquals(1, health.choose(urls));
+        } finally {
+            broken.stop(0);
+        }
+    }
+
+    @Test
+    void choose_DeadHostIsUnhealthy() throws IOException {
+        HttpServer gone = stub(0, 200);
+        String dead = url(gone);
+        gone.stop(0);
+        String[] urls = {dead, url(slow)};
+        health.choose(urls);
+
+        health.probeAll();
+        health.probeAll();
+
+        assertEquals(1, health.choose(urls));
+    }
+
+    @Test
+    void observe_FailingHostSwitchesToLatestSample() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(exchange.getRequestURI().getPath().startsWith("/removed") ? 404 : 200, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort();
+            String host = UpstreamHealth.host(base + "/");
+            health.observe(base + "/removed/index.m3u8");
+            health.probeAll();
+            assertEquals(1, health.stats(host).consecutiveFailures());
+
+            health.observe(base + "/hls/index.m3u8");
+            assertEquals(base + "/hls/index.m3u8", health.stats(host).sampleUrl());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void probeAll_DropsHostsNotSeenWithinTtl() {
+        UpstreamHealth shortLived = new UpstreamHealth(new SimpleMeterRegistry(), 2000, 2, 100, -1);
+        shortLived.observe(url(fast));
+
+        shortLived.probeAll();
+
+        assertNull(shortLived.stats(UpstreamHealth.host(url(fast))));
+    }
+
+    private static HttpServer stub(long delayMillis, int status) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "#EXTM3U\n".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static String url(HttpServer server) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/hls/index.m3u8";
+    }
+}
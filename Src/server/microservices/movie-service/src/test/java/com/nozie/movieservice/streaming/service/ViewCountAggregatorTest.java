@@ -0,0 +1,82 @@
+package com.nozie.movieservice.streaming.service;
+
+import com.nozie.movieservice.common.repository.MovieRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ViewCountAggregatorTest {
+
+    private final List<Map<String, Long>> writes = new ArrayList<>();
+    private final Set<String> failing = new HashSet<>();
+
+    @Test
+    void flush_PartialBulkFailureRetriesOnlyFailedMovies() {
+        ViewCountAggregator aggregator = aggregator(600_000);
+        aggregator.record("a");
+        aggregator.record("a");
+        aggregator.record("b");
+        failing.add("b");
+
+        aggregator.flush();
+        failing.clear();
+        aggregator.flush();
+
+        assertEquals(Map.of("a", 2L, "b", 1L), writes.get(0));
+        assertEquals(Map.of("b", 1L), writes.get(1));
+        assertEquals(0, aggregator.pendingViews());
+    }
+
+    @Test
+    void flush_EvictsIdleCountersWithoutLosingViews() {
+        ViewCountAggregator aggregator = aggregator(0);
+        aggregator.record("a");
+        aggregator.flush();
+        assertTrue(aggregator.isTracked("a"));
+
+        aggregator.flush();
+        assertFalse(aggregator.isTracked("a"));
+
+        aggregator.record("a");
+        aggregator.flush();
+        assertEquals(List.of(Map.of("a", 1L), Map.of("a", 1L)), writes);
+    }
+
+    @Test
+    void idForSlug_CachesResolvedIds() {
+        ViewCountAggregator aggregator = aggregator(600_000);
+        List<String> resolved = new ArrayList<>();
+
+        aggregator.idForSlug("phim-a", slug -> { resolved.add(slug); return "a"; });
+        String id = aggregator.idForSlug("phim-a", slug -> { resolved.add(slug); return "a"; });
+
+        assertEquals("a", id);
+        assertEquals(List.of("phim-a"), resolved);
+    }
+
+    private ViewCountAggregator aggregator(long idleEvictMs) {
+        MovieRepository repository = (MovieRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{MovieRepository.class}, (proxy, method, args) -> {
+                    if (!"incrementViews".equals(method.getName())) throw new UnsupportedOperationException();
+                    @SuppressWarnings("unchecked")
+                    Map<String, Long> deltas = (Map<String, Long>) args[0];
+                    writes.add(new HashMap<>(deltas));
+                    Set<String> failed = new HashSet<>(deltas.keySet());
+                    failed.retainAll(failing);
+                    return failed;
+                });
+        ViewCountAggregator aggregator = new ViewCountAggregator(repository, new SimpleMeterRegistry(), idleEvictMs);
+        ReflectionTestUtils.setField(aggregator, "flushBatchSize", 1000);
+        return aggregator;
+    }
+}
@@ -0,0 +1,136 @@
+package com.nozie.movieservice.sync;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nozie.common.exception.ServiceUnavailableException;
+import com.nozie.movieservice.common.model.Episode;
+import com.nozie.movieservice.common.model.EpisodeServer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OphimClientTest {
+
+    private static final String LIST = """
+            {"status":"success","message":"","data":{"items":[
+              {"_id":"a1","slug":"phim-a","modified":{"time":"2024-05-02T10:00:00.000Z"}},
+              {"_id":"b2","slug":"phim-b","modified":{"time":"2024-05-01T10:00:00.000Z"}}],
+             "params":{"pagination":{"totalItems":50,"totalItemsPerPage":24,"currentPage":1}}}}
+            """;
+    private static final String DETAIL = """
+            {"status":"success","message":"","data":{"item":{
+              "_id":"a1","name":"Phim A","slug":"phim-a","origin_name":"Movie A","type":"series","year":2024,
+              "thumb_url":"phim-a-thumb.jpg","poster_url":"https://cdn.example/p.jpg","view":42,
+              "actor":[""],"category":[{"id":"c1","name":"Hành Động","slug":"hanh-dong"}],
+              "tmdb":{"vote_average":7.5},"modified":{"time":"2024-05-02T10:00:00.000Z"},
+              "episodes":[{"server_name":"Vietsub #1","is_ai":false,"server_data":[
+                {"name":"1","slug":"tap-1","link_m3u8":"https://s1.example/1/index.m3u8"},
+                {"name":"2","slug":"tap-2","link_m3u8":"https://s1.example/2/index.m3u8"}]},
+                {"server_name":"AI","is_ai":true,"server_data":[]}]}}}
+            """;
+
+    private HttpServer stub;
+    private final AtomicInteger listCalls = new AtomicInteger();
+    private OphimClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.createContext("/v1/api/danh-sach/phim-moi-cap-nhat", exchange -> {
+            // Lần gọi đầu lỗi tạm thời để kiểm tra retry
+            if (listCalls.incrementAndGet() == 1) {
+                respond(exchange, 503, "busy");
+            } else {
+                respond(exchange, 200, LIST);
+            }
+        });
+        stub.createContext("/v1/api/phim/phim-a", exchange -> respond(exchange, 200, DETAIL));
+        stub.createContext("/v1/api/phim/missing", exchange ->
+                respond(exchange, 200, "{\"status\":\"error\",\"message\":\"not found\",\"data\":null}"));
+        stub.start();
+        client = new OphimClient(new ObjectMapper(), "http://127.0.0.1:" + stub.getAddress().getPort() + "/v1/api/",
+                2000, 4, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.stop(0);
+    }
+
+    @Test
+    void listPage_RetriesTransientErrorsAndReadsPagination() {
+        OphimClient.ListPage page = client.listPage(1, 24);
+
+        assertEquals(2, listCalls.get());
+        assertEquals(2, page.items().size());
+        assertEquals(3, page.totalPages());
+        assertEquals("phim-a", page.items().get(0).path("slug").asText());
+    }
+
+    @Test
+    void detail_MapsToMovieUpdateAndEpisodes() {
+        JsonNode item = client.detail("phim-a").orElseThrow();
+        List<Episode> episodes = OphimMovieMapper.episodes(item);
+        List<EpisodeServer> servers = OphimMovieMapper.servers(episodes);
+        Update update = OphimMovieMapper.toUpdate(item, servers, "https://img.example");
+
+        assertEquals(2, episodes.size());
+        assertEquals("https://s1.example/2/index.m3u8", episodes.get(0).getServerData().get(1).getLinkM3u8());
+        assertEquals(2, servers.get(0).getEpisodeCount());
+        assertEquals(0, servers.get(1).getEpisodeCount());
+        assertTrue(servers.get(1).getIsAi());
+
+        org.bson.Document set = (org.bson.Document) update.getUpdateObject().get("$set");
+        assertEquals("Movie A", set.get("originName"));
+        assertEquals("https://img.example/uploads/movies/phim-a-thumb.jpg", set.get("thumbUrl"));
+        assertEquals("https://cdn.example/p.jpg", set.get("posterUrl"));
+        assertEquals(7.5, set.get("tmdbRating"));
+        assertEquals(List.of(), set.get("actor"));
+        assertNull(set.get("view"));
+        assertEquals(42L, ((org.bson.Document) update.getUpdateObject().get("$setOnInsert")).get("view"));
+        assertNull(set.get("updatedAt"));
+        assertTrue(((org.bson.Document) update.getUpdateObject().get("$currentDate")).containsKey("updatedAt"));
+    }
+
+    @Test
+    void detail_ErrorStatusIsUnavailable() {
+        assertThrows(ServiceUnavailableException.class, () -> client.detail("missing"));
+    }
+
+    @Test
+    void diff_OnlyNewOrNewerTitlesAreChanged() {
+        Instant modified = Instant.parse("2024-05-02T10:00:00Z");
+        LocalDateTime stored = OphimMovieMapper.toLocal(modified);
+
+        assertTrue(OphimMovieMapper.isChanged(modified, false, null));
+        assertTrue(OphimMovieMapper.isChanged(modified, true, null));
+        assertTrue(OphimMovieMapper.isChanged(modified, true, stored.minusSeconds(1)));
+        assertFalse(OphimMovieMapper.isChanged(modified, true, stored));
+
+        List<JsonNode> page = client.listPage(1, 24).items();
+        assertTrue(OphimSyncService.allOlderThan(page, Instant.parse("2024-06-01T00:00:00Z")));
+        assertFalse(OphimSyncService.allOlderThan(page, Instant.parse("2024-05-02T10:00:00Z")));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.nozie.movieservice.sync;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nozie.movieservice.common.event.MovieChangedEvent;
+import com.nozie.movieservice.common.model.Movie;
+import com.nozie.movieservice.common.model.SyncCheckpoint;
+import com.nozie.movieservice.common.repository.MovieEpisodeRepository;
+import com.nozie.movieservice.common.repository.SyncRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OphimSyncServiceTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final FakeSyncRepository repository = new FakeSyncRepository();
+    private final FakeClient client = new FakeClient();
+    private final List<String> episodeWrites = new CopyOnWriteArrayList<>();
+    private final List<MovieChangedEvent> events = new CopyOnWriteArrayList<>();
+    private OphimSyncService service;
+
+    @BeforeEach
+    void setUp() {
+        MovieEpisodeRepository episodes = (MovieEpisodeRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{MovieEpisodeRepository.class}, (proxy, method, args) -> {
+                    if (!"replaceAll".equals(method.getName())) throw new UnsupportedOperationException(method.getName());
+                    episodeWrites.add((String) args[0]);
+                    return null;
+                });
+        service = new OphimSyncService(repository, episodes, client,
+                event -> events.add((MovieChangedEvent) event), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "imageCdn", "https://img.example");
+        ReflectionTestUtils.setField(service, "pageSize", 24);
+        ReflectionTestUtils.setField(service, "pageParallelism", 1);
+        ReflectionTestUtils.setField(service, "batchSize", 200);
+        ReflectionTestUtils.setField(service, "leaseTtlMs", 60_000L);
+    }
+
+    @Test
+    void sync_ResumesFromCheckpointPage() {
+        client.totalPages = 4;
+        for (int p = 1; p <= 4; p++) client.page(p, item("m" + p, "2024-05-0" + (5 - p) + "T10:00:00Z"));
+        repository.checkpoint = SyncCheckpoint.builder().id(OphimSyncService.SOURCE)
+                .runStartedAt(Instant.parse("2024-05-06T00:00:00Z")).nextPage(3).build();
+
+        service.scheduledSync();
+
+        assertEquals(List.of(3, 4), client.listed);
+        assertEquals(List.of("phim-m3", "phim-m4"), client.detailed);
+        assertEquals(5, repository.checkpoint.getNextPage());
+        assertNotNull(repository.checkpoint.getRunFinishedAt());
+        assertFalse(service.isRunning());
+        assertNull(repository.leaseOwner, "lease released after the run");
+    }
+
+    @Test
+    void incrementalSync_StopsAtCutoffAndAdvancesWatermark() {
+        client.totalPages = 3;
+        client.page(1, item("a1", "2024-05-03T10:00:00Z"), item("b2", "2024-05-02T10:00:00Z"));
+        client.page(2, item("c3", "2024-04-30T10:00:00Z"));
+        client.page(3, item("d4", "2024-04-29T10:00:00Z"));
+        repository.stored("c3", "2024-04-30T10:00:00Z");
+        repository.checkpoint = SyncCheckpoint.builder().id(OphimSyncService.SOURCE)
+                .watermark(Instant.parse("2024-05-01T00:00:00Z"))
+                .runStartedAt(Instant.parse("2024-05-01T00:00:00Z"))
+                .runFinishedAt(Instant.parse("2024-05-01T00:10:00Z")).build();
+
+        service.scheduledSync();
+
+        assertEquals(List.of(1, 2), client.listed, "page 2 is entirely older than the cutoff");
+        assertEquals(Instant.parse("2024-05-03T10:00:00Z"), repository.checkpoint.getWatermark());
+        assertEquals(Instant.parse("2024-05-01T00:00:00Z"), repository.checkpoint.getRunCutoff());
+        assertEquals(List.of("phim-a1", "phim-b2"), client.detailed);
+        assertEquals(3, repository.checkpoint.getScanned());
+        assertEquals(2, repository.checkpoint.getChanged());
+    }
+
+    @Test
+    void sync_DiffsWindowWithOneInQueryAndUpsertsOnlyChanged() {
+        client.totalPages = 1;
+        client.page(1, item("a1", "2024-05-03T10:00:00Z"), item("b2", "2024-05-02T10:00:00Z"),
+                item("c3", "2024-05-01T10:00:00Z"));
+        String unchangedId = repository.stored("a1", "2024-05-03T10:00:00Z");
+        String updatedId = repository.stored("b2", "2024-04-20T10:00:00Z");
+
+        assertTrue(service.trigger(true));
+        awaitIdle();
+
+        assertEquals(List.of(Set.of("a1", "b2", "c3")), repository.versionQueries);
+        assertEquals(List.of("phim-b2", "phim-c3"), client.detailed);
+        assertEquals(List.of("b2", "c3"), repository.upserted);
+        String createdId = repository.stored.get("c3").id();
+        assertNotEquals(unchangedId, createdId);
+        assertEquals(Set.of(updatedId, createdId), Set.copyOf(episodeWrites));
+        assertEquals(OphimMovieMapper.toLocal(Instant.parse("2024-05-02T10:00:00Z")),
+                repository.stored.get("b2").modifiedAt());
+
+        Map<String, MovieChangedEvent.ChangeType> types = new HashMap<>();
+        events.forEach(e -> types.put(e.getMovieId(), e.getType()));
+        assertEquals(Map.of(updatedId, MovieChangedEvent.ChangeType.UPDATED,
+                createdId, MovieChangedEvent.ChangeType.CREATED), types);
+        assertEquals(Instant.parse("2024-05-03T10:00:00Z"), repository.checkpoint.getWatermark());
+    }
+
+    @Test
+    void sync_SkipsWhileAnotherReplicaHoldsTheLease() {
+        client.totalPages = 1;
+        client.page(1, item("a1", "2024-05-03T10:00:00Z"));
+        repository.leaseOwner = "other-replica";
+        repository.leaseExpiresAt = Instant.now().plusSeconds(60);
+
+        service.scheduledSync();
+        assertFalse(service.trigger(false));
+
+        assertTrue(client.listed.isEmpty());
+        assertNull(repository.checkpoint);
+        assertFalse(service.isRunning());
+
+        repository.leaseExpiresAt = Instant.now().minusSeconds(1);
+        service.scheduledSync();
+
+        assertEquals(List.of(1), client.listed, "expired lease is taken over");
+    }
+
+    private void awaitIdle() {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.isRunning() && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertFalse(service.isRunning());
+    }
+
+    private static JsonNode item(String externalId, String modified) {
+        return JSON.createObjectNode()
+                .put("_id", externalId)
+                .put("slug", "phim-" + externalId)
+                .put("name", "Phim " + externalId)
+                .set("modified", JSON.createObjectNode().put("time", modified));
+    }
+
+    /** OPhim giả: danh sách theo trang, chi tiết = item danh sách; ghi lại các trang / slug đã gọi. */
+    private static class FakeClient extends OphimClient {
+
+        final Map<Integer, List<JsonNode>> pages = new HashMap<>();
+        final Map<String, JsonNode> bySlug = new HashMap<>();
+        final List<Integer> listed = new CopyOnWriteArrayList<>();
+        final List<String> detailed = new CopyOnWriteArrayList<>();
+        int totalPages;
+
+        FakeClient() {
+            super(JSON, "http://localhost", 1000, 1, 0);
+        }
+
+        void page(int page, JsonNode... items) {
+            pages.put(page, List.of(items));
+            for (JsonNode item : items) bySlug.put(item.path("slug").asText(), item);
+        }
+
+        @Override
+        public ListPage listPage(int page, int limit) {
+            listed.add(page);
+            return new ListPage(page, pages.getOrDefault(page, List.of()), totalPages);
+        }
+
+        @Override
+        public Optional<JsonNode> detail(String slug) {
+            detailed.add(slug);
+            return Optional.ofNullable(bySlug.get(slug));
+        }
+    }
+
+    /** SyncRepository trong bộ nhớ: phim lưu theo externalId, ghi lại các query $in và upsert. */
+    private static class FakeSyncRepository implements SyncRepository {
+
+        final Map<String, StoredVersion> stored = new HashMap<>();
+        final List<Set<String>> versionQueries = new ArrayList<>();
+        final List<String> upserted = new ArrayList<>();
+        SyncCheckpoint checkpoint;
+        String leaseOwner;
+        Instant leaseExpiresAt;
+
+        String stored(String externalId, String modified) {
+            String id = new ObjectId().toHexString();
+            stored.put(externalId, new StoredVersion(id, OphimMovieMapper.toLocal(Instant.parse(modified))));
+            return id;
+        }
+
+        @Override
+        public Optional<SyncCheckpoint> findCheckpoint(String source) {
+            return Optional.ofNullable(checkpoint);
+        }
+
+        @Override
+        public void saveCheckpoint(SyncCheckpoint cp) {
+            checkpoint = cp;
+        }
+
+        @Override
+        public synchronized boolean tryAcquireLease(String source, String owner, Duration ttl) {
+            if (leaseOwner != null && !leaseOwner.equals(owner) && leaseExpiresAt.isAfter(Instant.now())) return false;
+            leaseOwner = owner;
+            leaseExpiresAt = Instant.now().plus(ttl);
+            return true;
+        }
+
+        @Override
+        public synchronized void releaseLease(String source, String owner) {
+            if (owner.equals(leaseOwner)) leaseOwner = null;
+        }
+
+        @Override
+        public Map<String, StoredVersion> findStoredVersions(Collection<String> externalIds) {
+            versionQueries.add(Set.copyOf(externalIds));
+            Map<String, StoredVersion> found = new HashMap<>();
+            for (String externalId : externalIds) {
+                if (stored.containsKey(externalId)) found.put(externalId, stored.get(externalId));
+            }
+            return found;
+        }
+
+        @Override
+        public Map<Integer, String> upsertByExternalId(List<String> externalIds, List<Update> updates) {
+            for (int i = 0; i < externalIds.size(); i++) {
+                Document doc = updates.get(i).getUpdateObject();
+                Document set = doc.get("$set", Document.class);
+                Document onInsert = doc.get("$setOnInsert", Document.class);
+                StoredVersion existing = stored.get(externalIds.get(i));
+                Document stamped = doc.get("$currentDate", Document.class);
+                assertTrue(stamped.containsKey("updatedAt"));
+                assertEquals(existing == null, stamped.containsKey("createdAt"), "createdAt only on insert");
+                String id = existing != null ? existing.id() : ((ObjectId) onInsert.get("_id")).toHexString();
+                stored.put(externalIds.get(i), new StoredVersion(id, (LocalDateTime) set.get("modifiedAt")));
+                upserted.add(externalIds.get(i));
+            }
+            return Map.of();
+        }
+
+        @Override
+        public List<Movie> findMoviesByIds(Collection<String> ids) {
+            return ids.stream().map(id -> Movie.builder().id(id).build()).toList();
+        }
+    }
+}
@@ -170,6 +170,8 @@ function mapMovieFromOPhim(ophimMovie, isDetailView = false) {
         source: 'OPHIM',
         accessType: 'FREE',
         importedAt: new Date(),
+        // movie-service sắp xếp và feed /changes theo updatedAt
+        updatedAt: new Date(),
         modifiedAt: ophimMovie.modified?.time ? new Date(ophimMovie.modified.time) : new Date()
     };
 
@@ -218,14 +220,41 @@ async function importMovieBySlug(db, slug) {
 
     const movie = mapMovieFromOPhim(data.data.item, true);
     
+    // Episodes lưu ở collection riêng (movieId, serverIndex, episodeIndex); phim chỉ giữ tóm tắt servers
+    const episodes = movie.episodes;
+    delete movie.episodes;
+    movie.servers = episodes.map(ep => ({
+        serverName: ep.serverName,
+        isAi: ep.isAi,
+        episodeCount: ep.serverData.length
+    }));
+
     const collection = db.collection('movies');
-    await collection.updateOne(
+    const saved = await collection.findOneAndUpdate(
         { slug: movie.slug },
-        { $set: movie },
-        { upsert: true }
+        { $set: movie, $unset: { episodes: '' }, $setOnInsert: { createdAt: movie.updatedAt } },
+        { upsert: true, returnDocument: 'after', projection: { _id: 1 } }
     );
+    const movieId = String((saved.value ?? saved)._id);
+
+    // Upsert từng tập trước, xóa tập thừa sau: phim không lúc nào hết tập trong khi import
+    const episodeCollection = db.collection('episodes');
+    const items = episodes.flatMap((ep, serverIndex) =>
+        ep.serverData.map((sd, episodeIndex) => ({ movieId, serverIndex, episodeIndex, ...sd })));
+    if (items.length > 0) {
+        await episodeCollection.bulkWrite(items.map(({ movieId, serverIndex, episodeIndex, ...sd }) => ({
+            updateOne: { filter: { movieId, serverIndex, episodeIndex }, update: { $set: sd }, upsert: true }
+        })), { ordered: false });
+    }
+    await episodeCollection.deleteMany({
+        movieId,
+        $or: [
+            { serverIndex: { $gte: episodes.length } },
+            ...episodes.map((ep, serverIndex) => ({ serverIndex, episodeIndex: { $gte: ep.serverData.length } }))
+        ]
+    });
     
-    console.log(`  ✓ Imported: ${movie.name} (${movie.episodes?.length || 0} servers)`);
+    console.log(`  ✓ Imported: ${movie.name} (${movie.servers.length} servers, ${items.length} episodes)`);
     return movie;
 }
 
@@ -242,10 +271,10 @@ async function importMoviesFromList(db, movies) {
         // Chỉ update nếu chưa có hoặc là basic import (không override detail import)
         const existing = await collection.findOne({ slug: movie.slug });
         
-        if (!existing || !existing.episodes || existing.episodes.length === 0) {
+        if (!existing || !existing.servers || existing.servers.length === 0) {
             await collection.updateOne(
                 { slug: movie.slug },
-                { $set: movie },
+                { $set: movie, $setOnInsert: { createdAt: movie.updatedAt } },
                 { upsert: true }
             );
             imported++;